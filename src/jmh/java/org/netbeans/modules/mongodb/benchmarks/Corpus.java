@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.bson.BsonArray;
+import org.bson.BsonBinary;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.netbeans.modules.mongodb.api.SplittableIterable;
+
+/**
+ * Synthetic documents of different shapes. The documents are generated from
+ * a fixed seed so runs are comparable.
+ *
+ * @author Yann D'Isanto
+ */
+public enum Corpus {
+
+    /**
+     * Flat documents with many scalar fields, like in a flat table view.
+     */
+    WIDE {
+        @Override
+        BsonDocument document(Random random) {
+            final BsonDocument document = new BsonDocument();
+            for (int i = 0; i < 100; i++) {
+                document.append("field" + random.nextInt(1000), scalar(random, i));
+            }
+            return document;
+        }
+    },
+    /**
+     * Nested documents, 20 levels deep.
+     */
+    DEEP {
+        @Override
+        BsonDocument document(Random random) {
+            BsonDocument document = new BsonDocument("leaf", scalar(random, 0));
+            for (int i = 1; i < 20; i++) {
+                document = new BsonDocument()
+                    .append("name", new BsonString("level" + i))
+                    .append("value", scalar(random, i))
+                    .append("child", document);
+            }
+            return document;
+        }
+    },
+    /**
+     * Documents holding an array of 1000 small sub-documents.
+     */
+    BIG_ARRAY {
+        @Override
+        BsonDocument document(Random random) {
+            final List<BsonValue> items = new ArrayList<>(1000);
+            for (int i = 0; i < 1000; i++) {
+                items.add(new BsonDocument()
+                    .append("index", new BsonInt32(i))
+                    .append("value", scalar(random, i)));
+            }
+            return new BsonDocument("items", new BsonArray(items));
+        }
+    },
+    /**
+     * Documents holding binary payloads of 4 to 64 KB.
+     */
+    BINARY {
+        @Override
+        BsonDocument document(Random random) {
+            final BsonDocument document = new BsonDocument("name", new BsonString("file" + random.nextInt()));
+            for (int i = 0; i < 4; i++) {
+                final byte[] data = new byte[4096 << random.nextInt(5)];
+                random.nextBytes(data);
+                document.append("data" + i, new BsonBinary(data));
+            }
+            return document;
+        }
+    };
+
+    private static final long SEED = 42;
+
+    abstract BsonDocument document(Random random);
+
+    /**
+     * Generates the specified number of documents, each with an
+     * {@code _id}.
+     *
+     * @param count the number of documents
+     * @return the documents
+     */
+    public List<BsonDocument> documents(int count) {
+        final Random random = new Random(SEED);
+        final List<BsonDocument> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final byte[] id = new byte[12];
+            random.nextBytes(id);
+            final BsonDocument document = new BsonDocument("_id", new BsonObjectId(new ObjectId(id)));
+            document.putAll(document(random));
+            documents.add(document);
+        }
+        return Collections.unmodifiableList(documents);
+    }
+
+    /**
+     * Returns the specified documents as an in-process stand-in of a find
+     * result, splittable in consecutive parts for the parallel export.
+     *
+     * @param documents the documents
+     * @return a splittable iterable of the documents
+     */
+    public static SplittableIterable<BsonDocument> splittable(final List<BsonDocument> documents) {
+        return new SplittableIterable<BsonDocument>() {
+
+            @Override
+            public List<Iterable<BsonDocument>> split(int maxParts) {
+                final int partSize = (documents.size() + maxParts - 1) / maxParts;
+                final List<Iterable<BsonDocument>> parts = new ArrayList<>(maxParts);
+                for (int start = 0; start < documents.size(); start += partSize) {
+                    parts.add(documents.subList(start, Math.min(start + partSize, documents.size())));
+                }
+                if (parts.isEmpty()) {
+                    parts.add(documents);
+                }
+                return parts;
+            }
+
+            @Override
+            public Iterator<BsonDocument> iterator() {
+                return documents.iterator();
+            }
+        };
+    }
+
+    private static BsonValue scalar(Random random, int i) {
+        switch (i % 6) {
+            case 0:
+                return new BsonString("value " + random.nextLong());
+            case 1:
+                return new BsonInt32(random.nextInt());
+            case 2:
+                return new BsonInt64(random.nextLong());
+            case 3:
+                return new BsonDouble(random.nextDouble());
+            case 4:
+                return BsonBoolean.valueOf(random.nextBoolean());
+            default:
+                return new BsonDateTime(random.nextInt() & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.netbeans.modules.mongodb.bson.BsonDocumentReader;
+import org.netbeans.modules.mongodb.bson.DocumentReader;
+import org.netbeans.modules.mongodb.bson.JsonDocumentReader;
+import org.netbeans.modules.mongodb.util.DataFormat;
+import org.netbeans.modules.mongodb.util.ExportProperties;
+import org.netbeans.modules.mongodb.util.Exporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The export and import file paths. The exported documents come from an
+ * in-process list standing in for a find result. The import benchmark reads
+ * and decodes the documents like the {@code Importer} does before sending
+ * them to the server, so it doesn't need a running server.
+ *
+ * @author Yann D'Isanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportImportBenchmark {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Param
+    public Corpus corpus;
+
+    @Param
+    public DataFormat format;
+
+    private List<BsonDocument> documents;
+
+    private File exportFile;
+
+    private File importFile;
+
+    @Setup
+    public void setup() throws IOException {
+        documents = corpus.documents(corpus == Corpus.WIDE ? 20000 : 2000);
+        exportFile = File.createTempFile("export", format.getExtension());
+        importFile = File.createTempFile("import", format.getExtension());
+        Files.delete(importFile.toPath());
+        exporter(importFile, false).run();
+    }
+
+    @TearDown
+    public void tearDown() {
+        exportFile.delete();
+        importFile.delete();
+    }
+
+    private Exporter exporter(File file, boolean unordered) {
+        return new Exporter(ExportProperties.builder()
+            .collection("benchmark")
+            .documents(Corpus.splittable(documents))
+            .file(file)
+            .encoding(UTF8)
+            .format(format)
+            .unordered(unordered)
+            .build());
+    }
+
+    /**
+     * Exports into a new file: the exporter would otherwise back up the
+     * previous export.
+     */
+    @Benchmark
+    public long export(ExportOrder order) throws IOException {
+        Files.deleteIfExists(exportFile.toPath());
+        exporter(exportFile, order.unordered).run();
+        return exportFile.length();
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        long count = 0;
+        final InputStream input = format.decode(new FileInputStream(importFile));
+        try (DocumentReader reader = format.isBinary()
+            ? new BsonDocumentReader(new BufferedInputStream(input))
+            : new JsonDocumentReader(new InputStreamReader(input, UTF8))) {
+            while (reader.read() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether the parts are exported as soon as read, only the export
+     * benchmark depends on it.
+     */
+    @State(Scope.Benchmark)
+    public static class ExportOrder {
+
+        @Param({"false", "true"})
+        public boolean unordered;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.netbeans.modules.mongodb.bson.Bsons;
+import org.netbeans.modules.mongodb.util.BsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The JSON conversions done for every displayed document: shell JSON for the
+ * cells and the text view, strict JSON parsing for the editors and fields
+ * sorting when the "sort fields" option is on.
+ *
+ * @author Yann D'Isanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    private List<BsonDocument> documents;
+
+    private List<String> strictJson;
+
+    @Setup
+    public void setup() {
+        documents = corpus.documents(20);
+        strictJson = new ArrayList<>(documents.size());
+        for (BsonDocument document : documents) {
+            strictJson.add(Bsons.strict(document));
+        }
+    }
+
+    @Benchmark
+    public void shell(Blackhole blackhole) {
+        for (BsonDocument document : documents) {
+            blackhole.consume(Bsons.shell(document));
+        }
+    }
+
+    @Benchmark
+    public void shellAndPretty(Blackhole blackhole) {
+        for (BsonDocument document : documents) {
+            blackhole.consume(Bsons.shellAndPretty(document));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String json : strictJson) {
+            blackhole.consume(BsonDocument.parse(json));
+        }
+    }
+
+    @Benchmark
+    public void sortDocumentFields(Blackhole blackhole) {
+        for (BsonDocument document : documents) {
+            blackhole.consume(BsonUtils.sortDocumentFields(document));
+        }
+    }
+
+    /**
+     * The text computed by {@code BsonFlatTableCellRenderer} for each cell of
+     * a row, with the fields sorting on.
+     */
+    @Benchmark
+    public void flatTableCells(Blackhole blackhole) {
+        for (BsonDocument document : documents) {
+            for (Map.Entry<String, BsonValue> field : document.entrySet()) {
+                BsonValue value = field.getValue();
+                if (value.isDocument()) {
+                    value = BsonUtils.sortDocumentFields(value.asDocument());
+                }
+                blackhole.consume(Bsons.shell(value));
+            }
+        }
+    }
+}
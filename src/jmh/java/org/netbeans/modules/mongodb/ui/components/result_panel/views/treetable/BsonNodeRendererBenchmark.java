@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.netbeans.modules.mongodb.benchmarks.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The value texts computed by {@link BsonNodeRenderer} for each visible node
+ * of the tree table. It lives in the renderer package to reach the package
+ * private {@code stringifyValue}.
+ *
+ * @author Yann D'Isanto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BsonNodeRendererBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    /**
+     * All the values of the documents, as if all nodes were expanded.
+     */
+    private List<BsonValue> values;
+
+    @Setup
+    public void setup() {
+        values = new ArrayList<>();
+        for (BsonDocument document : corpus.documents(20)) {
+            collect(document, values);
+        }
+    }
+
+    private static void collect(BsonValue value, List<BsonValue> values) {
+        values.add(value);
+        if (value.isDocument()) {
+            for (BsonValue child : value.asDocument().values()) {
+                collect(child, values);
+            }
+        } else if (value.isArray()) {
+            for (BsonValue child : value.asArray()) {
+                collect(child, values);
+            }
+        }
+    }
+
+    @Benchmark
+    public void stringifyValues(Blackhole blackhole) {
+        for (BsonValue value : values) {
+            blackhole.consume(BsonNodeRenderer.stringifyValue(value));
+        }
+    }
+}
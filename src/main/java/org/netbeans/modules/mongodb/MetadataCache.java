@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoSocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bson.Document;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
+
+/**
+ * Caches the metadata the explorer displays for a connection: the database
+ * names, the collection names of each database and the indexes of each
+ * collection.
+ * <p>
+ * An entry older than the time to live is still returned but is reloaded in
+ * the background, in the explorer lane of the connection. The callback given
+ * by the reader is only called if the reloaded metadata differs, so that
+ * unchanged explorer nodes are left alone.
+ *
+ * @author Yann D'Isanto
+ */
+public final class MetadataCache {
+
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Logger LOGGER = Logger.getLogger(MetadataCache.class.getName());
+
+    private static final String DATABASES_KEY = "databases";
+
+    private static final String COLLECTIONS_KEY_PREFIX = "collections/";
+
+    private static final String INDEXES_KEY_PREFIX = "indexes/";
+
+    private final MongoConnection connection;
+
+    private final long timeToLive;
+
+    private final ConcurrentMap<String, Entry<?>> entries = new ConcurrentHashMap<>();
+
+    public MetadataCache(MongoConnection connection) {
+        this(connection, DEFAULT_TIME_TO_LIVE);
+    }
+
+    public MetadataCache(MongoConnection connection, long timeToLive) {
+        this.connection = connection;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the database names of the server.
+     *
+     * @param onChange called if a background reload finds different names
+     * @return the database names, empty if disconnected
+     */
+    public List<String> getDatabaseNames(Runnable onChange) {
+        return get(DATABASES_KEY, new Loader<String>() {
+
+            @Override
+            public List<String> load(MongoClient client) {
+                final List<String> names = new ArrayList<>();
+                for (String name : client.listDatabaseNames()) {
+                    names.add(name);
+                }
+                return names;
+            }
+        }, onChange);
+    }
+
+    /**
+     * Returns the collection names of the specified database.
+     *
+     * @param dbName the database name
+     * @param onChange called if a background reload finds different names
+     * @return the collection names, empty if disconnected
+     */
+    public List<String> getCollectionNames(final String dbName, Runnable onChange) {
+        return get(COLLECTIONS_KEY_PREFIX + dbName, new Loader<String>() {
+
+            @Override
+            public List<String> load(MongoClient client) {
+                final List<String> names = new ArrayList<>();
+                for (String name : client.getDatabase(dbName).listCollectionNames()) {
+                    names.add(name);
+                }
+                return names;
+            }
+        }, onChange);
+    }
+
+    /**
+     * Returns the indexes of the specified collection.
+     *
+     * @param namespace the collection namespace
+     * @param onChange called if a background reload finds different indexes
+     * @return the index documents, empty if disconnected
+     */
+    public List<Document> getIndexes(final MongoNamespace namespace, Runnable onChange) {
+        return get(INDEXES_KEY_PREFIX + namespace.getFullName(), new Loader<Document>() {
+
+            @Override
+            public List<Document> load(MongoClient client) {
+                final List<Document> indexes = new ArrayList<>();
+                for (Document index : client.getDatabase(namespace.getDatabaseName())
+                    .getCollection(namespace.getCollectionName())
+                    .listIndexes()) {
+                    indexes.add(index);
+                }
+                return indexes;
+            }
+        }, onChange);
+    }
+
+    /**
+     * Forgets the database names and everything cached about the databases.
+     */
+    public void invalidateDatabases() {
+        entries.clear();
+    }
+
+    /**
+     * Forgets the collection names of the specified database and the indexes
+     * of its collections.
+     *
+     * @param dbName the database name
+     */
+    public void invalidateCollections(String dbName) {
+        entries.remove(COLLECTIONS_KEY_PREFIX + dbName);
+        final String indexesKeyPrefix = INDEXES_KEY_PREFIX + dbName + '.';
+        for (String key : entries.keySet()) {
+            if (key.startsWith(indexesKeyPrefix)) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Forgets the indexes of the specified collection.
+     *
+     * @param namespace the collection namespace
+     */
+    public void invalidateIndexes(MongoNamespace namespace) {
+        entries.remove(INDEXES_KEY_PREFIX + namespace.getFullName());
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> get(final String key, final Loader<T> loader, final Runnable onChange) {
+        // the client is read once as the connection may be closed meanwhile
+        final MongoClient client = connection.getClient();
+        if (client == null) {
+            return Collections.emptyList();
+        }
+        final Entry<T> entry = (Entry<T>) entries.get(key);
+        if (entry == null) {
+            final List<T> values = loader.load(client);
+            put(client, key, new Entry<>(values));
+            return values;
+        }
+        if (entry.isExpired() && entry.revalidating.compareAndSet(false, true)) {
+            Tasks.getRequestProcessor(connection.getLookup(), Priority.EXPLORER).post(new Runnable() {
+
+                @Override
+                public void run() {
+                    revalidate(client, key, entry, loader, onChange);
+                }
+            });
+        }
+        return entry.values;
+    }
+
+    private <T> void revalidate(MongoClient client, String key, Entry<T> entry, Loader<T> loader, Runnable onChange) {
+        final List<T> values;
+        try {
+            values = loader.load(client);
+        } catch (MongoSocketException ex) {
+            entry.revalidating.set(false);
+            connection.disconnect();
+            return;
+        } catch (MongoException ex) {
+            entry.revalidating.set(false);
+            LOGGER.log(Level.FINE, "metadata revalidation failed", ex);
+            return;
+        }
+        final boolean changed = values.equals(entry.values) == false;
+        if (entries.replace(key, entry, new Entry<>(changed ? values : entry.values))
+            && changed
+            && connection.getClient() == client) {
+            onChange.run();
+        }
+    }
+
+    private void put(MongoClient client, String key, Entry<?> entry) {
+        // entries loaded by a closed client are dropped
+        if (connection.getClient() == client) {
+            entries.put(key, entry);
+        }
+    }
+
+    private interface Loader<T> {
+
+        List<T> load(MongoClient client);
+    }
+
+    private final class Entry<T> {
+
+        private final List<T> values;
+
+        private final long loadTime = System.currentTimeMillis();
+
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        public Entry(List<T> values) {
+            this.values = Collections.unmodifiableList(values);
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() - loadTime > timeToLive;
+        }
+    }
+}
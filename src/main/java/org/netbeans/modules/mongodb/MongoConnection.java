@@ -19,77 +19,221 @@ package org.netbeans.modules.mongodb;
 
 import org.netbeans.modules.mongodb.api.connections.ConnectionInfo;
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientURI;
 import com.mongodb.MongoException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
-import org.netbeans.api.progress.BaseProgressUtils;
+import lombok.Value;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.util.Tasks;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Handles the client of a connection. Connecting, disconnecting and checking
+ * the server health run in the background, one at a time, and return a
+ * {@link Future} the callers can wait on. The client is available as soon as
+ * the server answered a ping, so its first pooled connection is already open.
+ * <p>
+ * The driver settings, like the pool ones ({@code maxPoolSize},
+ * {@code minPoolSize}, {@code maxIdleTimeMS}, {@code waitQueueTimeoutMS}...)
+ * or the timeouts ({@code connectTimeoutMS}, {@code socketTimeoutMS}...),
+ * are tuned per connection through the options of its URI.
  *
  * @author Yann D'Isanto
  */
 @Messages({
-    "waitWhileConnecting=Please wait while connecting to mongo database"
+    "# {0} - connection name",
+    "TASK_connect=connecting to {0}",
+    "# {0} - connection name",
+    "TASK_checkHealth=pinging {0}",
+    "# {0} - error message",
+    "connectionError=error connecting to mongo database: {0}"
 })
 public class MongoConnection {
 
+    private static final BsonDocument PING = new BsonDocument("ping", new BsonInt32(1));
+
+    /**
+     * The age after which the server health is checked again when displayed.
+     */
+    public static final long HEALTH_MAX_AGE_MS = 10000;
+
     @Getter
     private final Lookup lookup;
 
-    private final Object connectionLock = new Object();
+    /**
+     * Runs the connection lifecycle operations, in submission order.
+     */
+    private final RequestProcessor lifecycleProcessor = new RequestProcessor(MongoConnection.class.getName(), 1);
+
+    @Getter
+    private volatile MongoClient client;
 
+    /**
+     * The last server health check, {@code null} if disconnected.
+     */
     @Getter
-    private MongoClient client;
+    private volatile ServerHealth health;
+
+    /**
+     * The running server health check, if any.
+     */
+    private Future<ServerHealth> healthCheck;
+
+    /**
+     * The pending or completed connection, {@code null} if disconnected.
+     */
+    private Future<MongoClient> connection;
 
-    private final Disconnecter disconnecter = new Disconnecter();
+    /**
+     * Incremented by every disconnection so that a pending connection knows
+     * it has been cancelled.
+     */
+    private int generation = 0;
 
-    private final List<ConnectionStateListener> listeners = new ArrayList<>();
+    private final List<ConnectionStateListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The explorer metadata of the server, cleared on disconnection.
+     */
+    @Getter
+    private final MetadataCache metadataCache = new MetadataCache(this);
+
+    /**
+     * The explorer statistics of the server, cleared on disconnection.
+     */
+    @Getter
+    private final StatsCache statsCache = new StatsCache(this);
 
     public MongoConnection(Lookup lookup) {
         this.lookup = lookup;
     }
 
-    public MongoClient connect() {
-        synchronized (connectionLock) {
-            if (client == null) {
-                BaseProgressUtils.showProgressDialogAndRun(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        final ConnectionInfo connection = getLookup().lookup(ConnectionInfo.class);
-                        try {
-                            client = new MongoClient(connection.getMongoURI());
-                            fireConnectionStateChanged(ConnectionState.CONNECTED);
-                        } catch (MongoException ex) {
-                            DialogNotification.error(
-                                    "error connectiong to mongo database: " + ex.getLocalizedMessage());
-                            MongoClient client = MongoConnection.this.client;
-                            MongoConnection.this.client = null;
-                            if (client != null) {
-                                client.close();
-                            }
-                        }
+    /**
+     * Connects in the background if not connected or connecting yet.
+     *
+     * @return the connection, which result is the client or {@code null} if
+     * the connection failed or was cancelled by a disconnection
+     */
+    public Future<MongoClient> connect() {
+        final FutureTask<MongoClient> task;
+        synchronized (this) {
+            if (connection != null) {
+                return connection;
+            }
+            task = new FutureTask<>(new Connector(generation));
+            connection = task;
+        }
+        fireConnectionStateChanged(ConnectionState.CONNECTING);
+        Tasks.create(lifecycleProcessor, Bundle.TASK_connect(getDisplayName()), task).execute();
+        return task;
+    }
+
+    /**
+     * Disconnects in the background, cancelling the pending connection if
+     * any.
+     *
+     * @return the disconnection
+     */
+    public Future<?> disconnect() {
+        final MongoClient oldClient;
+        final boolean wasConnected;
+        synchronized (this) {
+            generation++;
+            wasConnected = connection != null;
+            oldClient = client;
+            connection = null;
+            client = null;
+            health = null;
+        }
+        metadataCache.clear();
+        statsCache.clear();
+        final FutureTask<Void> task = new FutureTask<>(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    if (oldClient != null) {
+                        oldClient.close();
+                    }
+                } finally {
+                    if (wasConnected) {
+                        fireConnectionStateChanged(ConnectionState.DISCONNECTED);
                     }
-                }, Bundle.waitWhileConnecting());
+                }
             }
+        }, null);
+        lifecycleProcessor.post(task);
+        return task;
+    }
+
+    /**
+     * Pings the server in the background, unless a ping is already running.
+     *
+     * @param onChecked run once the health is checked, may be {@code null}
+     * @return the server health, also available through {@link #getHealth()}
+     * once checked
+     */
+    public synchronized Future<ServerHealth> checkHealth(final Runnable onChecked) {
+        if (healthCheck != null && healthCheck.isDone() == false) {
+            return healthCheck;
         }
-        return client;
+        final FutureTask<ServerHealth> task = new FutureTask<>(new Callable<ServerHealth>() {
+
+            @Override
+            public ServerHealth call() {
+                final MongoClient currentClient = client;
+                if (currentClient == null) {
+                    return null;
+                }
+                final ServerHealth checked = ping(currentClient);
+                synchronized (MongoConnection.this) {
+                    if (client == currentClient) {
+                        health = checked;
+                    }
+                }
+                if (onChecked != null) {
+                    onChecked.run();
+                }
+                return checked;
+            }
+        });
+        healthCheck = task;
+        Tasks.create(lifecycleProcessor, Bundle.TASK_checkHealth(getDisplayName()), task).execute();
+        return task;
     }
 
-    public synchronized void disconnect() {
-        disconnecter.run();
+    /**
+     * Whether the server health is older than {@link #HEALTH_MAX_AGE_MS}.
+     *
+     * @return {@code true} if connected and the health should be checked
+     * again
+     */
+    public boolean isHealthExpired() {
+        final ServerHealth current = health;
+        return client != null
+            && (current == null || System.currentTimeMillis() - current.getCheckTime() > HEALTH_MAX_AGE_MS);
     }
 
     public boolean isConnected() {
         return client != null;
     }
 
-    public ConnectionState getConnectionState() {
-        return isConnected() ? ConnectionState.CONNECTED : ConnectionState.DISCONNECTED;
+    public synchronized ConnectionState getConnectionState() {
+        if (client != null) {
+            return ConnectionState.CONNECTED;
+        }
+        return connection != null ? ConnectionState.CONNECTING : ConnectionState.DISCONNECTED;
     }
 
     public void addConnectionStateListener(ConnectionStateListener listener) {
@@ -106,34 +250,95 @@ public class MongoConnection {
         }
     }
 
-    private final class Disconnecter implements AutoCloseable, Runnable {
+    private String getDisplayName() {
+        return getLookup().lookup(ConnectionInfo.class).getDisplayName();
+    }
 
-        @Override
-        public void close() {
-            run();
+    /**
+     * Pings the server. The ping selects the server and opens the first
+     * pooled connection if needed.
+     */
+    private static ServerHealth ping(MongoClient client) {
+        final long start = System.nanoTime();
+        try {
+            client.getDatabase("admin").runCommand(PING);
+            return new ServerHealth(true, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), null, System.currentTimeMillis());
+        } catch (MongoException ex) {
+            return new ServerHealth(false, -1, ex.getLocalizedMessage(), System.currentTimeMillis());
+        }
+    }
+
+    private final class Connector implements Callable<MongoClient> {
+
+        private final int connectorGeneration;
+
+        public Connector(int generation) {
+            this.connectorGeneration = generation;
         }
 
         @Override
-        public void run() {
-            boolean wasConnected = false;
+        public MongoClient call() {
+            final ConnectionInfo info = getLookup().lookup(ConnectionInfo.class);
+            MongoClient newClient = null;
+            ServerHealth newHealth;
             try {
-                synchronized (connectionLock) {
-                    MongoClient client = MongoConnection.this.client;
-                    MongoConnection.this.client = null;
-                    if (client != null) {
-                        wasConnected = true;
-                        client.close();
+                final MongoClientOptions.Builder options = MongoClientOptions.builder()
+                    .description(info.getDisplayName());
+                newClient = new MongoClient(new MongoClientURI(info.getUri(), options));
+                newHealth = ping(newClient);
+            } catch (MongoException | IllegalArgumentException ex) {
+                newHealth = new ServerHealth(false, -1, ex.getLocalizedMessage(), System.currentTimeMillis());
+            }
+            boolean cancelled;
+            synchronized (MongoConnection.this) {
+                cancelled = generation != connectorGeneration;
+                if (cancelled == false) {
+                    if (newHealth.isReachable()) {
+                        client = newClient;
+                        health = newHealth;
+                    } else {
+                        connection = null;
                     }
                 }
-            } finally {
-                if (wasConnected) {
+            }
+            if (cancelled || newHealth.isReachable() == false) {
+                if (newClient != null) {
+                    newClient.close();
+                }
+                if (cancelled == false) {
+                    DialogNotification.error(Bundle.connectionError(newHealth.getError()));
                     fireConnectionStateChanged(ConnectionState.DISCONNECTED);
                 }
+                return null;
             }
+            fireConnectionStateChanged(ConnectionState.CONNECTED);
+            return newClient;
         }
     }
 
+    /**
+     * The result of a server ping.
+     */
+    @Value
+    public static class ServerHealth {
+
+        boolean reachable;
+
+        /**
+         * The ping round trip time, -1 if the server is not reachable.
+         */
+        long pingMillis;
+
+        /**
+         * The error message if the server is not reachable.
+         */
+        String error;
+
+        long checkTime;
+    }
+
     public static enum ConnectionState {
+        CONNECTING,
         CONNECTED,
         DISCONNECTED
     }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoSocketException;
+import com.mongodb.client.MongoDatabase;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.netbeans.modules.mongodb.api.MongoErrorCode;
+import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
+
+/**
+ * Caches the {@code dbStats} and {@code collStats} results the explorer
+ * displays in the property sheets of a connection.
+ * <p>
+ * The statistics are loaded in the background, in the explorer lane of the
+ * connection. The requests made within a short delay for a same database are
+ * batched: their commands are run by a single task, so that selecting many
+ * collection nodes doesn't post one task per node.
+ *
+ * @author Yann D'Isanto
+ */
+public final class StatsCache {
+
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * How long a batch waits for other requests before running.
+     */
+    private static final int BATCH_DELAY = 50;
+
+    private final MongoConnection connection;
+
+    private final long timeToLive;
+
+    /**
+     * The statistics by namespace, the database statistics having the
+     * database name as key. A failed command is cached as an empty document.
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The batches not started yet, by database name. Guarded by this.
+     */
+    private final Map<String, Batch> pendingBatches = new HashMap<>();
+
+    public StatsCache(MongoConnection connection) {
+        this(connection, DEFAULT_TIME_TO_LIVE);
+    }
+
+    public StatsCache(MongoConnection connection, long timeToLive) {
+        this.connection = connection;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the statistics of the specified database. Missing or expired
+     * statistics are loaded in the background.
+     *
+     * @param dbName the database name
+     * @param onLoad called once the statistics are loaded
+     * @return the cached statistics, possibly expired, or {@code null} if not
+     * loaded yet
+     */
+    public Document getDbStats(String dbName, Runnable onLoad) {
+        return get(dbName, null, onLoad);
+    }
+
+    /**
+     * Returns the statistics of the specified collection. Missing or expired
+     * statistics are loaded in the background.
+     *
+     * @param namespace the collection namespace
+     * @param onLoad called once the statistics are loaded
+     * @return the cached statistics, possibly expired, or {@code null} if not
+     * loaded yet
+     */
+    public Document getCollectionStats(MongoNamespace namespace, Runnable onLoad) {
+        return get(namespace.getDatabaseName(), namespace.getCollectionName(), onLoad);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private Document get(String dbName, String collectionName, Runnable onLoad) {
+        final Entry entry = entries.get(key(dbName, collectionName));
+        if (entry == null || entry.isExpired()) {
+            schedule(dbName, collectionName, onLoad);
+        }
+        return entry != null ? entry.stats : null;
+    }
+
+    private synchronized void schedule(String dbName, String collectionName, Runnable onLoad) {
+        Batch batch = pendingBatches.get(dbName);
+        if (batch == null) {
+            batch = new Batch(dbName);
+            pendingBatches.put(dbName, batch);
+            final Batch scheduled = batch;
+            Tasks.getRequestProcessor(connection.getLookup(), Priority.EXPLORER).post(new Runnable() {
+
+                @Override
+                public void run() {
+                    load(scheduled);
+                }
+            }, BATCH_DELAY);
+        }
+        if (collectionName != null) {
+            batch.collectionNames.add(collectionName);
+        } else {
+            batch.dbStats = true;
+        }
+        batch.callbacks.add(onLoad);
+    }
+
+    private void load(Batch batch) {
+        synchronized (this) {
+            // the later requests go to a new batch
+            pendingBatches.remove(batch.dbName);
+        }
+        // the client is read once as the connection may be closed meanwhile
+        final MongoClient client = connection.getClient();
+        if (client == null) {
+            return;
+        }
+        final MongoDatabase db = client.getDatabase(batch.dbName);
+        MongoException error = null;
+        try {
+            if (batch.dbStats) {
+                final BsonDocument command = new BsonDocument("dbStats", new BsonInt32(1)).append("scale", new BsonInt32(1));
+                error = run(client, db, command, key(batch.dbName, null), error);
+            }
+            for (String collectionName : batch.collectionNames) {
+                final BsonDocument command = new BsonDocument("collStats", new BsonString(collectionName));
+                error = run(client, db, command, key(batch.dbName, collectionName), error);
+            }
+        } catch (MongoSocketException ex) {
+            connection.disconnect();
+            return;
+        }
+        for (Runnable callback : batch.callbacks) {
+            callback.run();
+        }
+        if (error != null) {
+            DialogNotification.error(error);
+        }
+    }
+
+    /**
+     * Runs a statistics command and caches its result.
+     *
+     * @return the first error of the batch to report
+     */
+    private MongoException run(MongoClient client, MongoDatabase db, BsonDocument command, String key, MongoException error) {
+        Document stats;
+        try {
+            stats = db.runCommand(command);
+        } catch (MongoSocketException ex) {
+            throw ex;
+        } catch (MongoException ex) {
+            stats = new Document();
+            if (error == null && MongoErrorCode.of(ex) != MongoErrorCode.Unauthorized) {
+                error = ex;
+            }
+        }
+        // statistics loaded by a closed client are dropped
+        if (connection.getClient() == client) {
+            entries.put(key, new Entry(stats));
+        }
+        return error;
+    }
+
+    private static String key(String dbName, String collectionName) {
+        return collectionName != null ? dbName + '.' + collectionName : dbName;
+    }
+
+    private static final class Batch {
+
+        private final String dbName;
+
+        private final Set<String> collectionNames = new LinkedHashSet<>();
+
+        private boolean dbStats = false;
+
+        private final Set<Runnable> callbacks = new LinkedHashSet<>();
+
+        public Batch(String dbName) {
+            this.dbName = dbName;
+        }
+    }
+
+    private final class Entry {
+
+        private final Document stats;
+
+        private final long loadTime = System.currentTimeMillis();
+
+        public Entry(Document stats) {
+            this.stats = stats;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() - loadTime > timeToLive;
+        }
+    }
+}
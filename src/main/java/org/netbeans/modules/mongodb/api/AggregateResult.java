@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.api;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.Setter;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+
+/**
+ * The result of an aggregation pipeline. The pipeline is run once, when the
+ * result is first accessed or {@link #execute() executed}, and its cursor is
+ * streamed through a {@link MongoCursorResult}: pages are available as soon as
+ * their documents are received and the whole output can be browsed with a
+ * bounded heap. Refreshing the result doesn't run the pipeline again.
+ *
+ * @author Yann D'Isanto
+ */
+public final class AggregateResult implements CollectionResult, Closeable {
+
+    @Getter
+    private final MongoCollection<BsonDocument> collection;
+
+    @Getter
+    private final List<BsonDocument> pipeline;
+
+    /**
+     * Whether the aggregation stages can write temporary files.
+     */
+    @Getter
+    @Setter
+    private boolean allowDiskUse = false;
+
+    /**
+     * The number of documents per cursor batch, the server default if 0.
+     */
+    @Getter
+    @Setter
+    private int batchSize = 0;
+
+    /**
+     * The server side time budget of the aggregation, none if 0.
+     */
+    @Getter
+    @Setter
+    private long maxTimeMS = 0;
+
+    private MongoCursorResult cursorResult;
+
+    public AggregateResult(MongoCollection<BsonDocument> collection, List<BsonDocument> pipeline) {
+        Objects.requireNonNull(collection, "collection can't be null");
+        Objects.requireNonNull(pipeline, "pipeline can't be null");
+        this.collection = collection;
+        this.pipeline = Collections.unmodifiableList(new ArrayList<>(pipeline));
+    }
+
+    /**
+     * Runs the pipeline if not done yet. The first batch of documents is
+     * received when this method returns, so the aggregation errors are thrown
+     * here.
+     */
+    public synchronized void execute() {
+        if (cursorResult == null) {
+            final AggregateIterable<RawBsonDocument> aggregate = collection
+                .aggregate(pipeline, RawBsonDocument.class)
+                .allowDiskUse(allowDiskUse)
+                .useCursor(true);
+            if (batchSize > 0) {
+                aggregate.batchSize(batchSize);
+            }
+            if (maxTimeMS > 0) {
+                aggregate.maxTime(maxTimeMS, TimeUnit.MILLISECONDS);
+            }
+            cursorResult = new MongoCursorResult(aggregate.iterator());
+        }
+    }
+
+    private synchronized MongoCursorResult getCursorResult() {
+        execute();
+        return cursorResult;
+    }
+
+    /**
+     * Drains the whole aggregation cursor.
+     *
+     * @return the total elements count or -1 if interrupted
+     */
+    @Override
+    public long getTotalElementsCount() {
+        return getCursorResult().getTotalElementsCount();
+    }
+
+    @Override
+    public List<BsonDocument> get(long offset, int count) {
+        return getCursorResult().get(offset, count);
+    }
+
+    @Override
+    public Iterable<BsonDocument> iterable() {
+        return getCursorResult().iterable();
+    }
+
+    /**
+     * Returns how the server would run the pipeline, without running it.
+     *
+     * @param database the database of the collection
+     * @return the explain output
+     */
+    public BsonDocument explain(MongoDatabase database) {
+        final BsonDocument command = new BsonDocument("aggregate", new BsonString(collection.getNamespace().getCollectionName()))
+            .append("pipeline", new BsonArray(pipeline))
+            .append("explain", BsonBoolean.TRUE)
+            .append("allowDiskUse", BsonBoolean.valueOf(allowDiskUse));
+        if (maxTimeMS > 0) {
+            command.append("maxTimeMS", new BsonInt64(maxTimeMS));
+        }
+        return database.runCommand(command, BsonDocument.class);
+    }
+
+    /**
+     * Closes the aggregation cursor and deletes its spill file.
+     */
+    @Override
+    public synchronized void close() {
+        if (cursorResult != null) {
+            cursorResult.close();
+        }
+    }
+}
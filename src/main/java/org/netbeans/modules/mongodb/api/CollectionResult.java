@@ -28,6 +28,12 @@ import org.bson.BsonDocument;
  */
 public interface CollectionResult {
     
+    /**
+     * Returns the total elements count. This may be a costly operation.
+     *
+     * @return the total elements count or a negative value if it couldn't be
+     * computed
+     */
     long getTotalElementsCount();
     
     List<BsonDocument> get(long offset, int count);
@@ -17,11 +17,14 @@
  */
 package org.netbeans.modules.mongodb.api;
 
+import com.mongodb.MongoException;
 import java.util.ArrayList;
 import static java.util.Collections.emptyList;
 import java.util.List;
 import lombok.Getter;
+import lombok.Setter;
 import org.bson.BsonDocument;
+import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -29,6 +32,13 @@ import org.bson.BsonDocument;
  */
 public final class CollectionResultPages {
 
+    /**
+     * Runs the counts when no count request processor is set.
+     */
+    private static final RequestProcessor COUNT_REQUEST_PROCESSOR = new RequestProcessor(CollectionResultPages.class.getName(), 2, true);
+
+    public static final long DEFAULT_CACHE_MAX_SIZE = 16 * 1024 * 1024;
+
     @Getter
     private CollectionResult queryResult;
     
@@ -47,6 +57,43 @@ public final class CollectionResultPages {
     
     private int pagesCount = 0;
 
+    /**
+     * The total elements count, negative while it is being computed or if it
+     * couldn't be computed.
+     */
+    private volatile long totalElementsCount = -1;
+
+    /**
+     * Whether the total elements count failed or exceeded its time budget.
+     */
+    private volatile boolean totalElementsCountFailed = false;
+
+    private RequestProcessor.Task countTask;
+
+    /**
+     * Incremented on each count so the result of an outdated count is
+     * ignored.
+     */
+    private int countGeneration = 0;
+
+    private final PageCache cache = new PageCache(DEFAULT_CACHE_MAX_SIZE);
+
+    /**
+     * The request processor used to prefetch the pages adjacent to the current
+     * one, no prefetch if {@code null}.
+     */
+    @Getter
+    @Setter
+    private RequestProcessor prefetchRequestProcessor;
+
+    /**
+     * The request processor computing the total elements count, which may
+     * drain a whole cursor. It must interrupt its cancelled tasks.
+     */
+    @Getter
+    @Setter
+    private RequestProcessor countRequestProcessor = COUNT_REQUEST_PROCESSOR;
+
     public CollectionResultPages(int pageSize) {
         this(CollectionResult.EMPTY, pageSize, true);
     }
@@ -64,12 +111,62 @@ public final class CollectionResultPages {
         refresh();
     }
 
+    /**
+     * Sets the maximum estimated heap size of the cached pages.
+     *
+     * @param maxSize the cache size in bytes
+     */
+    public void setCacheMaxSize(long maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the total elements count. The count is computed asynchronously
+     * when the result is refreshed.
+     *
+     * @return the total elements count or a negative value if it is not known
+     * (yet)
+     * @see #isTotalElementsCountKnown() 
+     */
     public long getTotalElementsCount() {
-        return queryResult.getTotalElementsCount();
+        return totalElementsCount;
+    }
+
+    public boolean isTotalElementsCountKnown() {
+        return totalElementsCount >= 0;
+    }
+
+    /**
+     * Whether the total elements count couldn't be computed, the count failed
+     * or exceeded its time budget, as opposed to a count still running.
+     *
+     * @return {@code true} if the count failed
+     * @see #recountTotalElements()
+     */
+    public boolean isTotalElementsCountFailed() {
+        return totalElementsCountFailed;
+    }
+
+    /**
+     * Computes the total elements count again, asynchronously. The count is
+     * notified through {@link Listener#totalElementsCountChanged}.
+     */
+    public void recountTotalElements() {
+        countTotalElements();
     }
     
+    /**
+     * Returns the pages count. While the total elements count is not known
+     * this is a lower bound: the pages up to the current one plus the next one
+     * if the current page is full.
+     *
+     * @return the pages count
+     */
     public int getPageCount() {
-        return pagesCount;
+        if (isTotalElementsCountKnown()) {
+            return pagesCount;
+        }
+        return getPageIndex() + (currentPageItems.size() < pageSize ? 0 : 1);
     }
 
     public int getPageIndex() {
@@ -78,11 +175,12 @@ public final class CollectionResultPages {
 
     public void setPageIndex(int pageIndex) {
         pageFirstElementOffset = (pageIndex - 1) * pageSize;
-        refresh();
+        loadPage();
     }
 
     public void setPageSize(int pageSize) {
         this.pageSize = pageSize;
+        updatePagesCount();
         setPageIndex((pageFirstElementOffset / pageSize) + 1);
     }
 
@@ -100,10 +198,13 @@ public final class CollectionResultPages {
             return;
         }
         pageFirstElementOffset = 0;
-        refresh();
+        loadPage();
     }
 
     public void moveLast() {
+        if (isTotalElementsCountKnown() == false) {
+            return;
+        }
         setPageIndex(getPageCount()); // page index start with 1
     }
 
@@ -115,7 +216,7 @@ public final class CollectionResultPages {
             return;
         }
         pageFirstElementOffset += pageSize;
-        refresh();
+        loadPage();
     }
 
     /**
@@ -126,17 +227,118 @@ public final class CollectionResultPages {
             return;
         }
         pageFirstElementOffset = Math.max(pageFirstElementOffset - pageSize, 0);
-        refresh();
+        loadPage();
     }
     
+    /**
+     * Reloads the current page and recomputes the total elements count. The
+     * cached pages and the page boundaries known by a {@link FindResult} are
+     * discarded. The page is notified as soon as it is
+     * loaded, the count is notified later through
+     * {@link Listener#totalElementsCountChanged}.
+     */
     public void refresh() {
+        if (queryResult instanceof FindResult) {
+            ((FindResult) queryResult).refresh();
+        }
+        cache.clear();
+        countTotalElements();
+        loadPage();
+    }
+
+    private void loadPage() {
         int pageIndex = getPageIndex();
-        final double pageCount = (double) queryResult.getTotalElementsCount() / (double) pageSize;
-        pagesCount = (int) Math.ceil(pageCount);
-        currentPageItems = queryResult.get(pageFirstElementOffset, pageSize);
+        currentPageItems = fetchPage(queryResult, pageFirstElementOffset, pageSize);
         for (Listener listener : listeners) {
             listener.pageChanged(this, pageIndex, currentPageItems);
         }
+        prefetchAdjacentPages();
+    }
+
+    private List<BsonDocument> fetchPage(CollectionResult result, int offset, int size) {
+        List<BsonDocument> page = cache.get(result, offset, size);
+        if (page == null) {
+            int generation = cache.getGeneration();
+            page = result.get(offset, size);
+            cache.put(generation, result, offset, size, page);
+        }
+        return page;
+    }
+
+    private void prefetchAdjacentPages() {
+        final RequestProcessor requestProcessor = prefetchRequestProcessor;
+        if (requestProcessor == null) {
+            return;
+        }
+        final CollectionResult result = queryResult;
+        final int size = pageSize;
+        final List<Integer> offsets = new ArrayList<>(2);
+        if (canMoveForward()) {
+            offsets.add(pageFirstElementOffset + size);
+        }
+        if (canMoveBackward()) {
+            offsets.add(Math.max(pageFirstElementOffset - size, 0));
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+        requestProcessor.post(new Runnable() {
+
+            @Override
+            public void run() {
+                for (Integer offset : offsets) {
+                    if (cache.contains(result, offset, size) == false) {
+                        try {
+                            fetchPage(result, offset, size);
+                        } catch (MongoException ex) {
+                            // the page will be fetched again when displayed
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private synchronized void countTotalElements() {
+        if (countTask != null) {
+            countTask.cancel();
+        }
+        totalElementsCount = -1;
+        totalElementsCountFailed = false;
+        final int generation = ++countGeneration;
+        final CollectionResult result = queryResult;
+        countTask = countRequestProcessor.post(new Runnable() {
+
+            @Override
+            public void run() {
+                long count;
+                try {
+                    count = result.getTotalElementsCount();
+                } catch (MongoException ex) {
+                    count = -1;
+                }
+                totalElementsCountComputed(generation, count);
+            }
+        });
+    }
+
+    private void totalElementsCountComputed(int generation, long count) {
+        synchronized (this) {
+            if (generation != countGeneration) {
+                return;
+            }
+            totalElementsCount = count;
+            totalElementsCountFailed = count < 0;
+            updatePagesCount();
+        }
+        for (Listener listener : listeners) {
+            listener.totalElementsCountChanged(this, count);
+        }
+    }
+
+    private void updatePagesCount() {
+        final double pageCount = (double) Math.max(totalElementsCount, 0) / (double) pageSize;
+        pagesCount = (int) Math.ceil(pageCount);
     }
     
     public void updateDocument(BsonDocument oldValue, BsonDocument newValue) {
@@ -148,6 +350,7 @@ public final class CollectionResultPages {
             throw new UnsupportedOperationException("not editable");
         }
         BsonDocument oldValue = currentPageItems.set(index, newValue);
+        cache.update(oldValue, newValue);
         for (Listener listener : listeners) {
             listener.pageObjectUpdated(index, oldValue, newValue);
         }
@@ -168,5 +371,14 @@ public final class CollectionResultPages {
         void pageChanged(CollectionResultPages source, int pageIndex, List<BsonDocument> page);
         
         void pageObjectUpdated(int index, BsonDocument oldValue, BsonDocument newValue);
+
+        /**
+         * Invoked when the asynchronous total elements count is done.
+         *
+         * @param source the pages
+         * @param count the total elements count, negative if it couldn't be
+         * computed
+         */
+        void totalElementsCountChanged(CollectionResultPages source, long count);
     }
 }
@@ -17,14 +17,30 @@
  */
 package org.netbeans.modules.mongodb.api;
 
+import com.mongodb.MongoExecutionTimeoutException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import static java.util.Collections.unmodifiableSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
 import lombok.Setter;
+import org.bson.BsonArray;
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
 
 /**
  *
@@ -32,44 +48,369 @@ import org.bson.BsonDocument;
  */
 public final class FindResult implements CollectionResult {
 
+    public static final long DEFAULT_COUNT_MAX_TIME_MS = 10000;
+
+    /**
+     * The minimum number of documents by {@code _id} range when the documents
+     * are split.
+     */
+    private static final int MIN_ID_RANGE_SIZE = 10000;
+
+    private static final String ID = "_id";
+
+    private static final BsonInt32 INCLUDED = new BsonInt32(1);
+
+    private static final BsonDocument ID_PROJECTION = new BsonDocument(ID, INCLUDED);
+
+    private static final BsonDocument ASCENDING = new BsonDocument(ID, new BsonInt32(1));
+
+    private static final BsonDocument DESCENDING = new BsonDocument(ID, new BsonInt32(-1));
+
     @Getter
     private final MongoCollection<BsonDocument> collection;
     
     @Getter
-    @Setter
     private FindCriteria findCriteria;
 
+    /**
+     * Whether pages are retrieved using keyset (range) pagination rather than
+     * skip/limit. Keyset pagination sorts on {@code _id} when no sort is
+     * specified.
+     */
+    @Getter
+    @Setter
+    private boolean keysetPaging = true;
+
+    /**
+     * The server side time budget of a filtered count.
+     */
+    @Getter
+    @Setter
+    private long countMaxTimeMS = DEFAULT_COUNT_MAX_TIME_MS;
+
+    /**
+     * The top level fields the pages are restricted to, {@code null} to fetch
+     * whole documents. Set by views only displaying a few fields of wide
+     * documents. Doesn't apply to {@link #iterable()}.
+     */
+    @Getter
+    private Set<String> displayedFields;
+
+    /**
+     * The find criteria of the pages: the find criteria which projection is
+     * restricted to the displayed fields.
+     */
+    private FindCriteria pagesCriteria;
+
+    private KeysetPaging paging;
+
+    /**
+     * The last total count if exact, -1 if unknown or only estimated from
+     * the collection metadata. The pages are read backward from the last
+     * document only if it is exact.
+     */
+    private volatile long lastExactTotalElementsCount = -1;
+
     public FindResult(MongoCollection<BsonDocument> collection, FindCriteria findCriteria) {
         Objects.requireNonNull(collection, "collection can't be null");
         this.collection = collection;
+        setFindCriteria(findCriteria);
+    }
+
+    public void setFindCriteria(FindCriteria findCriteria) {
         this.findCriteria = findCriteria != null ? findCriteria : FindCriteria.EMPTY;
+        this.lastExactTotalElementsCount = -1;
+        updatePagesCriteria();
+    }
+
+    /**
+     * Restricts the fields of the pages documents to the specified top level
+     * fields. The find criteria projection still applies: its projection
+     * operators and its restrictions of sub fields are kept. The sort fields
+     * are always fetched.
+     *
+     * @param fields the fields to fetch or {@code null} to fetch whole
+     * documents
+     */
+    public void setDisplayedFields(Collection<String> fields) {
+        this.displayedFields = fields != null ? unmodifiableSet(new LinkedHashSet<>(fields)) : null;
+        updatePagesCriteria();
+    }
+
+    /**
+     * Returns the projection actually used to fetch the pages.
+     *
+     * @return the pages projection
+     */
+    public BsonDocument getPagesProjection() {
+        return pagesCriteria.getProjection();
+    }
+
+    private void updatePagesCriteria() {
+        pagesCriteria = displayedFields != null
+            ? findCriteria.copy().projection(displayedFieldsProjection()).build()
+            : findCriteria;
+        paging = new KeysetPaging(collection, pagesCriteria);
+    }
+
+    private BsonDocument displayedFieldsProjection() {
+        final BsonDocument criteriaProjection = findCriteria.getProjection();
+        final BsonDocument projection = new BsonDocument();
+        for (String field : displayedFields) {
+            boolean restricted = false;
+            for (Map.Entry<String, BsonValue> entry : criteriaProjection.entrySet()) {
+                final String path = entry.getKey();
+                if ((path.equals(field) || path.startsWith(field + ".")) && isExclusion(entry.getValue()) == false) {
+                    projection.append(path, entry.getValue());
+                    restricted = true;
+                }
+            }
+            if (restricted == false) {
+                projection.append(field, INCLUDED);
+            }
+        }
+        final BsonValue idProjection = criteriaProjection.get(ID);
+        if (idProjection != null && projection.containsKey(ID) == false) {
+            projection.append(ID, idProjection);
+        }
+        for (String path : findCriteria.getSort().keySet()) {
+            if (projection.containsKey(path) == false && projection.containsKey(path.split("\\.")[0]) == false) {
+                final BsonValue value = criteriaProjection.get(path);
+                projection.append(path, value != null && isExclusion(value) == false ? value : INCLUDED);
+            }
+        }
+        return projection;
+    }
+
+    private static boolean isExclusion(BsonValue projectionValue) {
+        return (projectionValue.isBoolean() && projectionValue.asBoolean().getValue() == false)
+            || (projectionValue.isNumber() && projectionValue.asNumber().intValue() == 0);
     }
     
-    
-    
+    /**
+     * Counts the documents matching the filter. Without filter the count is
+     * answered from the collection metadata. A filtered count is limited to
+     * {@link #getCountMaxTimeMS()} server side.
+     *
+     * @return the documents count or -1 if the count exceeded its time budget
+     */
     @Override
     public long getTotalElementsCount() {
-        return collection.count(findCriteria.getFilter());
+        final BsonDocument filter = findCriteria.getFilter();
+        final long count = count(filter);
+        lastExactTotalElementsCount = filter.isEmpty() ? -1 : count;
+        return count;
+    }
+
+    /**
+     * Forgets what is known of the documents, the page boundaries and the
+     * sort keys types, as documents may have been added, updated or deleted
+     * since the pages were read.
+     */
+    public void refresh() {
+        lastExactTotalElementsCount = -1;
+        paging.clear();
+    }
+
+    private long count(BsonDocument filter) {
+        if (filter.isEmpty()) {
+            return collection.count();
+        }
+        try {
+            return collection.count(filter, new CountOptions().maxTime(countMaxTimeMS, TimeUnit.MILLISECONDS));
+        } catch (MongoExecutionTimeoutException ex) {
+            return -1;
+        }
     }
 
+    /**
+     * Returns the documents of a page as {@link RawBsonDocument}s: the fields
+     * are only decoded when accessed.
+     */
     @Override
     public List<BsonDocument> get(long offset, int count) {
-        return findIterable()
+        KeysetPaging currentPaging = paging;
+        if (keysetPaging && currentPaging.isApplicable()) {
+            return currentPaging.get(offset, count, lastExactTotalElementsCount);
+        }
+        return findIterable(RawBsonDocument.class, pagesCriteria)
                 .skip((int) offset)
                 .limit(count)
                 .into(new ArrayList<BsonDocument>());
     }
 
+    /**
+     * Returns the documents. Without sort the documents are iterated in
+     * {@code _id} order and the returned iterable is both a
+     * {@link SplittableIterable} which parts are {@code _id} ranges and a
+     * {@link ResumableIterable}.
+     *
+     * @return the documents
+     */
     @Override
     public Iterable<BsonDocument> iterable() {
-        return findIterable();
+        if (findCriteria.getSort().isEmpty()) {
+            return new IdRangesIterable(findCriteria.getFilter());
+        }
+        return findIterable(BsonDocument.class, findCriteria);
     }
     
-    private FindIterable<BsonDocument> findIterable() {
+    /**
+     * Returns how the server runs the query of the first page, with the
+     * execution statistics of the winning plan.
+     *
+     * @param database the database of the collection
+     * @param pageSize the size of the first page
+     * @return the explain output
+     */
+    public BsonDocument explain(MongoDatabase database, int pageSize) {
+        final KeysetPaging currentPaging = paging;
+        final BsonDocument sort = keysetPaging && currentPaging.isApplicable()
+            ? currentPaging.getSort()
+            : pagesCriteria.getSort();
+        final BsonDocument find = new BsonDocument("find", new BsonString(collection.getNamespace().getCollectionName()))
+            .append("filter", pagesCriteria.getFilter())
+            .append("projection", pagesCriteria.getProjection())
+            .append("sort", sort)
+            .append("limit", new BsonInt32(pageSize));
+        final BsonDocument command = new BsonDocument("explain", find)
+            .append("verbosity", new BsonString("executionStats"));
+        return database.runCommand(command, BsonDocument.class);
+    }
+
+    private <T> FindIterable<T> findIterable(Class<T> documentClass, FindCriteria criteria) {
         return collection
-                .find(findCriteria.getFilter() != null ? findCriteria.getFilter() : new BsonDocument())
-                .projection(findCriteria.getProjection())
-                .sort(findCriteria.getSort());
+                .find(criteria.getFilter() != null ? criteria.getFilter() : new BsonDocument(), documentClass)
+                .projection(criteria.getProjection())
+                .sort(criteria.getSort());
     }
     
+    /**
+     * Splits the documents into {@code _id} ranges of roughly the same size.
+     * The ranges bounds are read on the {@code _id} index. The documents are
+     * not split if their {@code _id}s don't have the same type as ranges don't
+     * span several types.
+     * <p>
+     * A part may wait long for the previous ones to be consumed: its server
+     * cursor doesn't time out and is killed when its iterator is closed.
+     */
+    private List<Iterable<BsonDocument>> splitByIdRanges(BsonDocument filter, int maxParts) {
+        final long count = maxParts > 1 ? count(filter) : -1;
+        if (count < (long) maxParts * MIN_ID_RANGE_SIZE) {
+            return Collections.<Iterable<BsonDocument>>singletonList(idRange(filter, null, null));
+        }
+        final BsonValue minId = idAt(filter, ASCENDING, 0);
+        final BsonValue maxId = idAt(filter, DESCENDING, 0);
+        if (minId == null || maxId == null || KeysetPaging.sameType(minId, maxId) == false) {
+            return Collections.<Iterable<BsonDocument>>singletonList(idRange(filter, null, null));
+        }
+        final List<Iterable<BsonDocument>> ranges = new ArrayList<>(maxParts);
+        BsonValue lowerBound = null;
+        for (int i = 1; i < maxParts; i++) {
+            final BsonValue upperBound = idAt(filter, ASCENDING, (int) Math.min(count * i / maxParts, Integer.MAX_VALUE));
+            if (upperBound == null || upperBound.equals(lowerBound) || upperBound.equals(minId)) {
+                continue;
+            }
+            ranges.add(idRange(filter, lowerBound, upperBound).noCursorTimeout(true));
+            lowerBound = upperBound;
+        }
+        ranges.add(idRange(filter, lowerBound, null).noCursorTimeout(true));
+        return ranges;
+    }
+
+    private BsonValue idAt(BsonDocument filter, BsonDocument sort, int skip) {
+        final BsonDocument document = collection.find(filter)
+            .projection(ID_PROJECTION)
+            .sort(sort)
+            .skip(skip)
+            .limit(1)
+            .first();
+        return document != null ? document.get(ID) : null;
+    }
+
+    /**
+     * Returns the documents which {@code _id} is in the specified range.
+     *
+     * @param lowerBound the inclusive lower bound, none if {@code null}
+     * @param upperBound the exclusive upper bound, none if {@code null}
+     */
+    private FindIterable<BsonDocument> idRange(BsonDocument filter, BsonValue lowerBound, BsonValue upperBound) {
+        final BsonDocument range = new BsonDocument();
+        if (lowerBound != null) {
+            range.append("$gte", lowerBound);
+        }
+        if (upperBound != null) {
+            range.append("$lt", upperBound);
+        }
+        return collection
+            .find(and(filter, range))
+            .projection(findCriteria.getProjection())
+            .sort(ASCENDING);
+    }
+
+    /**
+     * Combines the specified filter with the specified {@code _id} condition.
+     */
+    private static BsonDocument and(BsonDocument filter, BsonDocument idCondition) {
+        if (idCondition.isEmpty()) {
+            return filter;
+        }
+        final BsonDocument idFilter = new BsonDocument(ID, idCondition);
+        if (filter.isEmpty()) {
+            return idFilter;
+        }
+        final BsonArray clauses = new BsonArray();
+        clauses.add(filter);
+        clauses.add(idFilter);
+        return new BsonDocument("$and", clauses);
+    }
+
+    private final class IdRangesIterable implements SplittableIterable<BsonDocument>, ResumableIterable<BsonDocument> {
+
+        private final BsonDocument filter;
+
+        public IdRangesIterable(BsonDocument filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public Iterator<BsonDocument> iterator() {
+            return idRange(filter, null, null).iterator();
+        }
+
+        @Override
+        public List<Iterable<BsonDocument>> split(int maxParts) {
+            return splitByIdRanges(filter, maxParts);
+        }
+
+        @Override
+        public BsonDocument getFilter() {
+            return filter;
+        }
+
+        @Override
+        public BsonDocument getProjection() {
+            return findCriteria.getProjection();
+        }
+
+        @Override
+        public boolean isResumableAfter(BsonValue id) {
+            if (id == null || id.isNull()) {
+                return false;
+            }
+            final BsonValue minId = idAt(filter, ASCENDING, 0);
+            final BsonValue maxId = idAt(filter, DESCENDING, 0);
+            return minId != null && maxId != null
+                && KeysetPaging.sameType(minId, id) && KeysetPaging.sameType(maxId, id);
+        }
+
+        @Override
+        public Iterable<BsonDocument> after(BsonValue id) {
+            if (isResumableAfter(id) == false) {
+                throw new IllegalArgumentException("documents _ids are not all of the type of " + id);
+            }
+            return new IdRangesIterable(and(filter, new BsonDocument("$gt", id)));
+        }
+    }
+
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.api;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import lombok.AllArgsConstructor;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+/**
+ * Keyset (range) pagination of a find query.
+ * <p>
+ * The sort key of the first and last document of every fetched page is
+ * remembered by global offset. A page is then read with a range filter
+ * starting from the nearest known boundary, so the server only skips over
+ * the documents between that boundary and the page instead of all the
+ * documents preceding the page. The sort key is made of the find criteria
+ * sort fields followed by {@code _id} as tie-breaker ({@code _id} alone if
+ * no sort is specified).
+ * <p>
+ * When a boundary document misses one of the sort key fields (because of the
+ * projection or a sparse field), it is not remembered and the pages around it
+ * are read with a plain skip.
+ * <p>
+ * A range filter only matches the values of the boundary BSON type. The
+ * boundaries are thus only used when the values of every sort key have a same
+ * type, numbers being all of a same type. As the values are sorted by type
+ * first, this is checked once from the lowest and the greatest value of each
+ * key. The missing and null values sort first, so a key having such values
+ * is never used either. Otherwise all the pages are read with a plain skip.
+ *
+ * @author Yann D'Isanto
+ */
+final class KeysetPaging {
+
+    private static final String ID = "_id";
+
+    private static final BsonInt32 INCLUDED = new BsonInt32(1);
+
+    private final MongoCollection<BsonDocument> collection;
+
+    private final FindCriteria criteria;
+
+    /**
+     * The sort key fields, {@code null} if the sort can't be used for keyset
+     * pagination (text score sort for instance).
+     */
+    private final List<SortKey> keys;
+
+    private final BsonDocument sort;
+
+    private final BsonDocument reverseSort;
+
+    /**
+     * Documents sort keys by global offset.
+     */
+    private final NavigableMap<Long, BsonDocument> boundaries = new TreeMap<>();
+
+    /**
+     * Whether the values of each sort key have a same type, {@code null}
+     * until checked.
+     */
+    private Boolean sameTypeKeys;
+
+    /**
+     * The lowest value of each sort key, giving the type of its values.
+     */
+    private final Map<String, BsonValue> keyTypes = new HashMap<>();
+
+    KeysetPaging(MongoCollection<BsonDocument> collection, FindCriteria criteria) {
+        this.collection = collection;
+        this.criteria = criteria;
+        this.keys = buildSortKeys(criteria.getSort());
+        this.sort = new BsonDocument();
+        this.reverseSort = new BsonDocument();
+        if (keys != null) {
+            for (SortKey key : keys) {
+                sort.append(key.path, new BsonInt32(key.ascending ? 1 : -1));
+                reverseSort.append(key.path, new BsonInt32(key.ascending ? -1 : 1));
+            }
+        }
+    }
+
+    boolean isApplicable() {
+        return keys != null;
+    }
+
+    /**
+     * Returns the sort of the pages queries: the sort key in ascending
+     * reading order.
+     */
+    BsonDocument getSort() {
+        return sort;
+    }
+
+    /**
+     * Retrieves the documents of the page starting at the specified offset.
+     *
+     * @param offset the global offset of the page first document
+     * @param count the maximum number of documents of the page
+     * @param totalCount the total documents count or a negative value if it
+     * is not known
+     * @return the page documents
+     */
+    synchronized List<BsonDocument> get(long offset, int count, long totalCount) {
+        if (count <= 0 || (totalCount >= 0 && offset >= totalCount)) {
+            return new ArrayList<>();
+        }
+        // pick the cheapest way to reach the page: the smallest skip wins
+        long forwardSkip = offset;
+        Map.Entry<Long, BsonDocument> forwardBoundary = boundaries.lowerEntry(offset);
+        if (forwardBoundary != null) {
+            forwardSkip = offset - forwardBoundary.getKey() - 1;
+        }
+        long pageEnd = offset + count;
+        long backwardSkip = Long.MAX_VALUE;
+        int backwardLimit = count;
+        Map.Entry<Long, BsonDocument> backwardBoundary = boundaries.ceilingEntry(pageEnd);
+        if (backwardBoundary != null) {
+            backwardSkip = backwardBoundary.getKey() - pageEnd;
+        }
+        if (totalCount >= 0 && Math.max(0, totalCount - pageEnd) < backwardSkip) {
+            // read backward from the last document
+            backwardBoundary = null;
+            backwardSkip = Math.max(0, totalCount - pageEnd);
+            backwardLimit = (int) Math.min(count, totalCount - offset);
+        }
+
+        List<BsonDocument> page;
+        if (backwardSkip < forwardSkip) {
+            page = find(backwardBoundary != null ? backwardBoundary.getValue() : null, false)
+                .skip((int) backwardSkip)
+                .limit(backwardLimit)
+                .into(new ArrayList<BsonDocument>());
+            Collections.reverse(page);
+        } else {
+            page = find(forwardBoundary != null ? forwardBoundary.getValue() : null, true)
+                .skip((int) forwardSkip)
+                .limit(count)
+                .into(new ArrayList<BsonDocument>());
+        }
+        if (page.isEmpty() == false) {
+            remember(offset, page.get(0));
+            remember(offset + page.size() - 1, page.get(page.size() - 1));
+        }
+        return page;
+    }
+
+    synchronized void clear() {
+        boundaries.clear();
+        sameTypeKeys = null;
+    }
+
+    private FindIterable<RawBsonDocument> find(BsonDocument boundary, boolean forward) {
+        BsonDocument filter = criteria.getFilter();
+        if (boundary != null) {
+            BsonDocument range = rangeFilter(boundary, forward);
+            filter = filter.isEmpty()
+                ? range
+                : new BsonDocument("$and", new BsonArray(asList(filter, range)));
+        }
+        return collection
+            .find(filter, RawBsonDocument.class)
+            .projection(criteria.getProjection())
+            .sort(forward ? sort : reverseSort);
+    }
+
+    /**
+     * Builds the filter matching the documents located after (or before) the
+     * specified sort key according to the sort order.
+     */
+    private BsonDocument rangeFilter(BsonDocument boundary, boolean after) {
+        BsonArray clauses = new BsonArray();
+        for (int i = 0; i < keys.size(); i++) {
+            BsonDocument clause = new BsonDocument();
+            for (int j = 0; j < i; j++) {
+                String path = keys.get(j).path;
+                clause.append(path, boundary.get(path));
+            }
+            SortKey key = keys.get(i);
+            String operator = key.ascending == after ? "$gt" : "$lt";
+            clause.append(key.path, new BsonDocument(operator, boundary.get(key.path)));
+            clauses.add(clause);
+        }
+        return clauses.size() == 1
+            ? clauses.get(0).asDocument()
+            : new BsonDocument("$or", clauses);
+    }
+
+    private void remember(long offset, BsonDocument document) {
+        if (hasSameTypeKeys() == false) {
+            return;
+        }
+        BsonDocument boundary = new BsonDocument();
+        for (SortKey key : keys) {
+            BsonValue value = resolve(document, key.path);
+            BsonValue keyType = keyTypes.get(key.path);
+            if (value == null || value.isNull() || value.isArray() || keyType == null || sameType(value, keyType) == false) {
+                // can't be used in a range filter
+                return;
+            }
+            boundary.append(key.path, value);
+        }
+        boundaries.put(offset, boundary);
+    }
+
+    private boolean hasSameTypeKeys() {
+        if (sameTypeKeys == null) {
+            sameTypeKeys = checkSameTypeKeys();
+        }
+        return sameTypeKeys;
+    }
+
+    private boolean checkSameTypeKeys() {
+        keyTypes.clear();
+        for (SortKey key : keys) {
+            BsonDocument lowest = extreme(key.path, 1);
+            BsonDocument greatest = extreme(key.path, -1);
+            if (lowest == null || greatest == null) {
+                // no documents yet, no boundaries either
+                continue;
+            }
+            BsonValue lowestValue = resolve(lowest, key.path);
+            BsonValue greatestValue = resolve(greatest, key.path);
+            if (lowestValue == null || lowestValue.isNull() || lowestValue.isArray()
+                || greatestValue == null || greatestValue.isArray()
+                || sameType(lowestValue, greatestValue) == false) {
+                return false;
+            }
+            keyTypes.put(key.path, lowestValue);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the document having the lowest or greatest value of the
+     * specified sort key field, with this field only.
+     */
+    private BsonDocument extreme(String path, int direction) {
+        return collection
+            .find(criteria.getFilter(), RawBsonDocument.class)
+            .projection(new BsonDocument(path, INCLUDED))
+            .sort(new BsonDocument(path, new BsonInt32(direction)))
+            .limit(1)
+            .first();
+    }
+
+    /**
+     * Whether the specified values can be compared by a range filter: they
+     * have the same type or are both numbers.
+     */
+    static boolean sameType(BsonValue value1, BsonValue value2) {
+        return value1.getBsonType() == value2.getBsonType() || (value1.isNumber() && value2.isNumber());
+    }
+
+    private static BsonValue resolve(BsonDocument document, String path) {
+        BsonValue value = document;
+        for (String field : path.split("\\.")) {
+            if (value == null || value.isDocument() == false) {
+                return null;
+            }
+            value = value.asDocument().get(field);
+        }
+        return value;
+    }
+
+    private static List<SortKey> buildSortKeys(BsonDocument sort) {
+        List<SortKey> keys = new ArrayList<>(sort.size() + 1);
+        boolean idKey = false;
+        for (Map.Entry<String, BsonValue> entry : sort.entrySet()) {
+            BsonValue direction = entry.getValue();
+            if (direction.isNumber() == false) {
+                return null;
+            }
+            keys.add(new SortKey(entry.getKey(), direction.asNumber().intValue() >= 0));
+            idKey |= ID.equals(entry.getKey());
+        }
+        if (idKey == false) {
+            keys.add(new SortKey(ID, true));
+        }
+        return keys;
+    }
+
+    private static List<BsonValue> asList(BsonValue... values) {
+        List<BsonValue> list = new ArrayList<>(values.length);
+        Collections.addAll(list, values);
+        return list;
+    }
+
+    @AllArgsConstructor
+    private static final class SortKey {
+
+        final String path;
+
+        final boolean ascending;
+    }
+}
@@ -18,55 +18,325 @@
 package org.netbeans.modules.mongodb.api;
 
 import com.mongodb.client.MongoCursor;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import static java.util.Collections.emptyList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import lombok.AllArgsConstructor;
+import java.util.NoSuchElementException;
 import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.openide.util.RequestProcessor;
 
 /**
+ * A result draining a cursor. The cursor is drained as the pages are
+ * requested, and entirely when the total elements count is computed.
+ * <p>
+ * The documents are kept as raw BSON. The most recently drained ones are kept
+ * in memory, up to a given number of bytes; the older ones are spilled to a
+ * temporary file, where they are read back through an offset index. The
+ * whole cursor output can then be browsed with a bounded heap.
  *
  * @author Yann D'Isanto
  */
-@AllArgsConstructor
-public final class MongoCursorResult implements CollectionResult {
+public final class MongoCursorResult implements CollectionResult, Closeable {
 
-    public static final int DEFAULT_MAX_SIZE = 10000;
+    /**
+     * The default maximum size in bytes of the documents kept in memory.
+     */
+    public static final long DEFAULT_MEMORY_WINDOW_SIZE = 4 * 1024 * 1024;
 
-    private int maxSize;
-    
-    private List<BsonDocument> documents = emptyList();
+    /**
+     * The maximum number of documents drained at once, so the pages requests
+     * are not blocked while the cursor is entirely drained.
+     */
+    private static final int DRAIN_CHUNK_SIZE = 1000;
 
-    public MongoCursorResult(MongoCursor<BsonDocument> cursor) {
-        this(cursor, DEFAULT_MAX_SIZE);
-    }
-    public MongoCursorResult(MongoCursor<BsonDocument> cursor, int maxSize) {
-        this.maxSize = maxSize;
-        setCursor(cursor);
+    /**
+     * The number of documents read at once when iterating the result.
+     */
+    private static final int ITERATION_BATCH_SIZE = 100;
+
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
+    /**
+     * Releases the closed results, waiting for their running drain to stop.
+     */
+    private static final RequestProcessor CLOSE_REQUEST_PROCESSOR = new RequestProcessor(MongoCursorResult.class.getName(), 1);
+
+    private final MongoCursor<? extends BsonDocument> cursor;
+
+    private final long memoryWindowSize;
+
+    /**
+     * The drained documents which are not spilled, the first one being the
+     * document at index {@link #windowStart}.
+     */
+    private final List<RawBsonDocument> window = new ArrayList<>();
+
+    private long windowBytes = 0;
+
+    private int windowStart = 0;
+
+    /**
+     * The offsets of the spilled documents in the spill file.
+     */
+    private long[] offsets = new long[0];
+
+    private long spillFileSize = 0;
+
+    private FileChannel spillChannel;
+
+    private boolean exhausted = false;
+
+    /**
+     * Set as soon as the result is closed, without waiting for the monitor a
+     * drain may hold while fetching documents from the server.
+     */
+    private volatile boolean closed = false;
+
+    private boolean released = false;
+
+    public MongoCursorResult(MongoCursor<? extends BsonDocument> cursor) {
+        this(cursor, DEFAULT_MEMORY_WINDOW_SIZE);
     }
 
-    public void setCursor(MongoCursor<BsonDocument> cursor) {
-        documents = new ArrayList<>();
-        while(cursor.hasNext() && documents.size() < maxSize) {
-            documents.add(cursor.next());
-        }
+    public MongoCursorResult(MongoCursor<? extends BsonDocument> cursor, long memoryWindowSize) {
+        this.cursor = cursor;
+        this.memoryWindowSize = memoryWindowSize;
     }
-    
+
+    /**
+     * Drains the whole cursor, the drained documents being available to the
+     * pages requests meanwhile.
+     *
+     * @return the total elements count or -1 if interrupted
+     */
     @Override
     public long getTotalElementsCount() {
-        return documents.size();
+        while (drain(DRAIN_CHUNK_SIZE)) {
+            if (Thread.interrupted()) {
+                return -1;
+            }
+        }
+        return getDrainedCount();
     }
 
     @Override
     public List<BsonDocument> get(long offset, int count) {
-        int fromIndex = (int) offset;
-        int toIndex = fromIndex + count;
-        return documents.subList(fromIndex, Math.min(toIndex, documents.size()));
+        final long end = offset + count;
+        while (getDrainedCount() < end && drain((int) Math.min(DRAIN_CHUNK_SIZE, end - getDrainedCount()))) {
+        }
+        return read((int) Math.min(offset, Integer.MAX_VALUE), (int) Math.min(end, Integer.MAX_VALUE));
     }
 
     @Override
     public Iterable<BsonDocument> iterable() {
+        return new Iterable<BsonDocument>() {
+
+            @Override
+            public Iterator<BsonDocument> iterator() {
+                return new BatchIterator();
+            }
+        };
+    }
+
+    /**
+     * Closes the cursor and deletes the spill file. The running drain, if
+     * any, stops after the document being fetched and the resources are
+     * released in background: the calling thread is not blocked.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        CLOSE_REQUEST_PROCESSOR.post(new Runnable() {
+
+            @Override
+            public void run() {
+                release();
+            }
+        });
+    }
+
+    private synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        exhausted = true;
+        window.clear();
+        cursor.close();
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException ex) {
+                // the file is deleted on exit anyway
+            }
+        }
+    }
+
+    private synchronized int getDrainedCount() {
+        return windowStart + window.size();
+    }
+
+    /**
+     * Drains up to the specified number of documents, stopping as soon as the
+     * result is closed.
+     *
+     * @return true if the cursor has more documents
+     */
+    private synchronized boolean drain(int maxCount) {
+        for (int i = 0; i < maxCount && exhausted == false && closed == false; i++) {
+            if (cursor.hasNext()) {
+                final RawBsonDocument document = toRaw(cursor.next());
+                window.add(document);
+                windowBytes += size(document);
+            } else {
+                exhausted = true;
+            }
+        }
+        if (closed) {
+            return false;
+        }
+        if (windowBytes > memoryWindowSize) {
+            try {
+                spill();
+            } catch (IOException ex) {
+                throw new IllegalStateException("can't write result spill file", ex);
+            }
+        }
+        return exhausted == false;
+    }
+
+    /**
+     * Writes the oldest documents of the window to the spill file until half
+     * of the memory window is free.
+     */
+    private void spill() throws IOException {
+        if (spillChannel == null) {
+            final Path spillFile = Files.createTempFile("nbmongo-result", ".bson");
+            spillFile.toFile().deleteOnExit();
+            spillChannel = FileChannel.open(spillFile,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        int count = 0;
+        long bytes = 0;
+        while (count < window.size() && windowBytes - bytes > memoryWindowSize / 2) {
+            bytes += size(window.get(count));
+            count++;
+        }
+        if (offsets.length < windowStart + count) {
+            offsets = Arrays.copyOf(offsets, Math.max(windowStart + count, offsets.length * 2));
+        }
+        final ByteBuffer[] buffers = new ByteBuffer[count];
+        final long start = spillFileSize;
+        for (int i = 0; i < count; i++) {
+            buffers[i] = window.get(i).getByteBuffer().asNIO();
+            offsets[windowStart + i] = spillFileSize;
+            spillFileSize += buffers[i].remaining();
+        }
+        spillChannel.position(start);
+        long written = 0;
+        while (written < bytes) {
+            written += spillChannel.write(buffers);
+        }
+        window.subList(0, count).clear();
+        windowStart += count;
+        windowBytes -= bytes;
+    }
+
+    private synchronized List<BsonDocument> read(int from, int to) {
+        final List<BsonDocument> documents = new ArrayList<>(Math.max(0, to - from));
+        if (closed) {
+            return documents;
+        }
+        final int end = Math.min(to, getDrainedCount());
+        if (from < windowStart) {
+            try {
+                readSpilled(from, Math.min(end, windowStart), documents);
+            } catch (IOException ex) {
+                throw new IllegalStateException("can't read result spill file", ex);
+            }
+        }
+        for (int i = Math.max(from, windowStart); i < end; i++) {
+            documents.add(window.get(i - windowStart));
+        }
         return documents;
     }
-    
+
+    /**
+     * Reads the specified spilled documents, with a single read of the file.
+     */
+    private void readSpilled(int from, int to, List<BsonDocument> documents) throws IOException {
+        final long start = offsets[from];
+        final long end = to < windowStart ? offsets[to] : spillFileSize;
+        final ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (spillChannel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        final byte[] bytes = buffer.array();
+        for (int i = from; i < to; i++) {
+            final int documentStart = (int) (offsets[i] - start);
+            final int documentEnd = i + 1 < to ? (int) (offsets[i + 1] - start) : bytes.length;
+            documents.add(new RawBsonDocument(bytes, documentStart, documentEnd - documentStart));
+        }
+    }
+
+    private static RawBsonDocument toRaw(BsonDocument document) {
+        if (document instanceof RawBsonDocument) {
+            return (RawBsonDocument) document;
+        }
+        return new RawBsonDocument(document, DOCUMENT_CODEC);
+    }
+
+    private static int size(RawBsonDocument document) {
+        return document.getByteBuffer().remaining();
+    }
+
+    private final class BatchIterator implements Iterator<BsonDocument> {
+
+        private List<BsonDocument> batch = new ArrayList<>();
+
+        private int batchOffset = 0;
+
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() {
+            if (index - batchOffset < batch.size()) {
+                return true;
+            }
+            batchOffset += batch.size();
+            batch = get(batchOffset, ITERATION_BATCH_SIZE);
+            return batch.isEmpty() == false;
+        }
+
+        @Override
+        public BsonDocument next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            return batch.get(index++ - batchOffset);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.api;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+/**
+ * LRU cache of result pages bounded by the estimated heap size of the cached
+ * documents. The size of a {@link RawBsonDocument} is the size of its bytes,
+ * it is not decoded.
+ *
+ * @author Yann D'Isanto
+ */
+final class PageCache {
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long maxSize;
+
+    private long size = 0;
+
+    /**
+     * Incremented on each clear so pages fetched before are not cached.
+     */
+    private int generation = 0;
+
+    PageCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    synchronized int getGeneration() {
+        return generation;
+    }
+
+    synchronized List<BsonDocument> get(CollectionResult result, int offset, int pageSize) {
+        Entry entry = entries.get(new Key(result, offset, pageSize));
+        return entry != null ? entry.page : null;
+    }
+
+    synchronized boolean contains(CollectionResult result, int offset, int pageSize) {
+        return entries.containsKey(new Key(result, offset, pageSize));
+    }
+
+    /**
+     * Caches a page unless the cache has been cleared since the specified
+     * generation.
+     */
+    synchronized void put(int generation, CollectionResult result, int offset, int pageSize, List<BsonDocument> page) {
+        if (generation != this.generation) {
+            return;
+        }
+        Entry entry = new Entry(page, estimateSize(page));
+        Entry previous = entries.put(new Key(result, offset, pageSize), entry);
+        if (previous != null) {
+            size -= previous.size;
+        }
+        size += entry.size;
+        evict();
+    }
+
+    /**
+     * Replaces the specified document in the cached pages containing it.
+     */
+    synchronized void update(BsonDocument oldValue, BsonDocument newValue) {
+        for (Entry entry : entries.values()) {
+            int index = entry.page.indexOf(oldValue);
+            if (index > -1) {
+                entry.page.set(index, newValue);
+                long entrySize = estimateSize(entry.page);
+                size += entrySize - entry.size;
+                entry.size = entrySize;
+            }
+        }
+        evict();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        size = 0;
+        generation++;
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    private static long estimateSize(List<BsonDocument> page) {
+        long pageSize = 16;
+        for (BsonDocument document : page) {
+            pageSize += 8 + estimateSize(document);
+        }
+        return pageSize;
+    }
+
+    /**
+     * Roughly estimates the heap size of a bson value.
+     */
+    static long estimateSize(BsonValue value) {
+        if (value instanceof RawBsonDocument) {
+            return 64 + ((RawBsonDocument) value).getByteBuffer().remaining();
+        }
+        switch (value.getBsonType()) {
+            case DOCUMENT:
+                long documentSize = 64;
+                for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+                    documentSize += 48 + 2 * field.getKey().length() + estimateSize(field.getValue());
+                }
+                return documentSize;
+            case ARRAY:
+                long arraySize = 32;
+                for (BsonValue item : value.asArray()) {
+                    arraySize += 8 + estimateSize(item);
+                }
+                return arraySize;
+            case STRING:
+                return 56 + 2 * value.asString().getValue().length();
+            case SYMBOL:
+                return 56 + 2 * value.asSymbol().getSymbol().length();
+            case JAVASCRIPT:
+                return 56 + 2 * value.asJavaScript().getCode().length();
+            case BINARY:
+                return 40 + value.asBinary().getData().length;
+            default:
+                return 24;
+        }
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class Key {
+
+        final CollectionResult result;
+
+        final int offset;
+
+        final int pageSize;
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+
+        final List<BsonDocument> page;
+
+        long size;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.api;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * An iterable of documents ordered by {@code _id} which iteration can be
+ * resumed after a given {@code _id}.
+ *
+ * @author Yann D'Isanto
+ * @param <T> the elements type
+ */
+public interface ResumableIterable<T> extends Iterable<T> {
+
+    /**
+     * Returns the filter of the iterated documents.
+     *
+     * @return the filter
+     */
+    BsonDocument getFilter();
+
+    /**
+     * Returns the projection of the iterated documents.
+     *
+     * @return the projection
+     */
+    BsonDocument getProjection();
+
+    /**
+     * Whether the iteration can be resumed after the specified {@code _id}.
+     * It can't if the {@code _id}s of the elements are not all of the type of
+     * the specified one: the elements of the other types would be skipped.
+     *
+     * @param id the {@code _id} of the last element already iterated
+     * @return {@code true} if {@link #after(BsonValue)} returns all the
+     * remaining elements
+     */
+    boolean isResumableAfter(BsonValue id);
+
+    /**
+     * Returns the elements which {@code _id} is greater than the specified
+     * one. The returned iterable supports the same operations as this one.
+     *
+     * @param id the {@code _id} of the last element already iterated
+     * @return the remaining elements
+     * @throws IllegalArgumentException if the iteration can't be resumed
+     * after the specified {@code _id}
+     * @see #isResumableAfter(BsonValue)
+     */
+    Iterable<T> after(BsonValue id);
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.api;
+
+import java.util.List;
+
+/**
+ * An iterable which elements can be read in parallel as several independent
+ * parts.
+ *
+ * @author Yann D'Isanto
+ * @param <T> the elements type
+ */
+public interface SplittableIterable<T> extends Iterable<T> {
+
+    /**
+     * Splits this iterable into consecutive parts. Iterating the parts one
+     * after the other gives all the elements of this iterable, though not
+     * necessarily in the same order. This may be a costly operation.
+     * <p>
+     * The parts may hold server resources until they are read to their end:
+     * the iterator of a part which is not must be closed if
+     * {@link java.io.Closeable}.
+     *
+     * @param maxParts the maximum number of parts
+     * @return the parts, at least one
+     */
+    List<Iterable<T>> split(int maxParts);
+}
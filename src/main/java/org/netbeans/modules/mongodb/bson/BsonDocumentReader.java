@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.bson;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonSerializationException;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+
+/**
+ * Reads raw BSON documents one at a time from a byte stream (the layout of
+ * mongodump {@code .bson} files: documents one after the other).
+ *
+ * @author Yann D'Isanto
+ */
+public final class BsonDocumentReader implements DocumentReader {
+
+    /**
+     * The maximum BSON document size accepted by the server (16 MB) plus
+     * some margin.
+     */
+    private static final int MAX_DOCUMENT_SIZE = 16 * 1024 * 1024 + 16 * 1024;
+
+    private final InputStream input;
+
+    private final BsonDocumentCodec codec = new BsonDocumentCodec();
+
+    private final DecoderContext context = DecoderContext.builder().build();
+
+    private byte[] buffer = new byte[64 * 1024];
+
+    private long position = 0;
+
+    public BsonDocumentReader(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Returns the number of bytes consumed so far.
+     *
+     * @return the current position in the byte stream
+     */
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public BsonDocument read() throws IOException {
+        final int size = readSize();
+        if (size == -1) {
+            return null;
+        }
+        if (size > buffer.length) {
+            final byte[] larger = new byte[size];
+            System.arraycopy(buffer, 0, larger, 0, 4);
+            buffer = larger;
+        }
+        readFully(4, size - 4);
+        position += size;
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(buffer, 0, size))) {
+            return codec.decode(reader, context);
+        }
+    }
+
+    @Override
+    public boolean skip() throws IOException {
+        final int size = readSize();
+        if (size == -1) {
+            return false;
+        }
+        long remaining = size - 4;
+        while (remaining > 0) {
+            final long skipped = input.skip(remaining);
+            if (skipped > 0) {
+                remaining -= skipped;
+            } else if (input.read() != -1) {
+                remaining--;
+            } else {
+                throw new EOFException("Truncated BSON document at position " + position);
+            }
+        }
+        position += size;
+        return true;
+    }
+
+    /**
+     * Reads the size of the next document into the first 4 bytes of the
+     * buffer.
+     *
+     * @return the document size or -1 if the end of the stream is reached
+     */
+    private int readSize() throws IOException {
+        final int first = input.read();
+        if (first == -1) {
+            return -1;
+        }
+        buffer[0] = (byte) first;
+        readFully(1, 3);
+        final int size = ByteBuffer.wrap(buffer, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (size < 5 || size > MAX_DOCUMENT_SIZE) {
+            throw new BsonSerializationException(String.format("Invalid BSON document size %d at position %d", size, position));
+        }
+        return size;
+    }
+
+    private void readFully(int offset, int length) throws IOException {
+        while (length > 0) {
+            final int read = input.read(buffer, offset, length);
+            if (read == -1) {
+                throw new EOFException("Truncated BSON document at position " + position);
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
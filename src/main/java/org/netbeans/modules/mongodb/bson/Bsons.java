@@ -17,19 +17,19 @@
  */
 package org.netbeans.modules.mongodb.bson;
 
-import java.io.StringWriter;
 import java.io.Writer;
 import org.bson.BsonBinary;
 import org.bson.BsonDbPointer;
+import org.bson.BsonDocument;
 import org.bson.BsonRegularExpression;
 import org.bson.BsonTimestamp;
 import org.bson.BsonType;
 import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
 import org.bson.codecs.BsonDocumentCodec;
 import static org.bson.codecs.BsonValueCodecProvider.getClassForBsonType;
 import org.bson.codecs.Codec;
 import org.bson.codecs.DecoderContext;
-import org.bson.codecs.EncoderContext;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonReader;
 import org.bson.json.JsonWriter;
@@ -51,6 +51,23 @@ public final class Bsons {
         return toJson(value, SHELL);
     }
 
+    /**
+     * Returns the shell JSON of the specified value truncated to the specified
+     * length. The encoding stops as soon as the length is reached so huge
+     * values are not fully encoded.
+     *
+     * @param value a value
+     * @param maxLength the maximum length of the returned string, not
+     * counting the trailing ellipsis of truncated strings
+     * @return the JSON string, ending with an ellipsis if truncated
+     */
+    public static String shell(BsonValue value, int maxLength) {
+        if (value == null) {
+            return null;
+        }
+        return JsonEmitter.get().toJson(value, SHELL, maxLength);
+    }
+
     public static String shellAndPretty(BsonValue value) {
         return toJson(value, SHELL_PRETTY);
     }
@@ -67,16 +84,22 @@ public final class Bsons {
         if(value == null) {
             return null;
         }
-        if(value.isDocument()) {
-            return value.asDocument().toJson(settings);
-        }
-        StringWriter writer = new StringWriter();
-        getCodec(value).encode(
-                new BsonValueJsonWriter(writer, settings), 
-                value, 
-                EncoderContext.builder().build()
-        );
-        return writer.toString();
+        return JsonEmitter.get().toJson(value, settings, JsonEmitter.UNLIMITED);
+    }
+
+    /**
+     * Returns a mutable version of the specified document. Raw documents,
+     * which fields are only decoded when accessed, are fully decoded.
+     *
+     * @param document a document
+     * @return the document itself or its decoded copy if it is a
+     * {@link RawBsonDocument}
+     */
+    public static BsonDocument mutable(BsonDocument document) {
+        if (document instanceof RawBsonDocument) {
+            return ((RawBsonDocument) document).decode(documentCodec);
+        }
+        return document;
     }
 
     @SuppressWarnings("unchecked")    
@@ -84,11 +107,6 @@ public final class Bsons {
         return (T) getCodec(type).decode(new JsonReader(json), DecoderContext.builder().build());
     }
 
-    @SuppressWarnings("unchecked")
-    private static Codec<BsonValue> getCodec(BsonValue value) {
-        return (Codec<BsonValue>) documentCodec.getCodecRegistry().get(value.getClass());
-    }
-
     @SuppressWarnings("unchecked")
     public static Codec<? extends BsonValue> getCodec(BsonType type) {
         return documentCodec.getCodecRegistry().get(getClassForBsonType(type));
@@ -99,7 +117,7 @@ public final class Bsons {
     private Bsons() {
     }
 
-    static private class BsonValueJsonWriter extends JsonWriter {
+    static class BsonValueJsonWriter extends JsonWriter {
 
         public BsonValueJsonWriter(Writer writer, JsonWriterSettings settings) {
             super(writer, settings);
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.bson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.bson.BsonDocument;
+
+/**
+ * Reads documents one at a time from a stream.
+ *
+ * @author Yann D'Isanto
+ */
+public interface DocumentReader extends Closeable {
+
+    /**
+     * Reads the next document.
+     *
+     * @return the next document or {@code null} if the end of the stream is
+     * reached
+     * @throws IOException if an I/O error occurs
+     */
+    BsonDocument read() throws IOException;
+
+    /**
+     * Skips the next document, without decoding it when possible.
+     *
+     * @return {@code false} if the end of the stream is reached
+     * @throws IOException if an I/O error occurs
+     */
+    boolean skip() throws IOException;
+
+    /**
+     * Returns the position in the stream (in stream units: characters or
+     * bytes) after the last read document.
+     *
+     * @return the current position
+     */
+    long getPosition();
+}
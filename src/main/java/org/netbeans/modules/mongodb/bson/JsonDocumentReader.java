@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.bson;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import org.bson.BsonDocument;
+import org.bson.json.JsonParseException;
+
+/**
+ * Reads JSON documents one at a time from a character stream.
+ * <p>
+ * The input format is detected while reading: either a sequence of documents
+ * (one per line or simply concatenated) or a top-level array of documents
+ * (several arrays may follow each other). The documents text is delimited
+ * without parsing it, then each document is parsed on its own with a
+ * {@link org.bson.json.JsonReader} so only one document is held in memory
+ * whatever the input size.
+ *
+ * @author Yann D'Isanto
+ */
+public final class JsonDocumentReader implements DocumentReader {
+
+    private static final int EOF = -1;
+
+    /**
+     * Above this capacity the document buffer is released once the document
+     * is parsed.
+     */
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 1024 * 1024;
+
+    private final Reader reader;
+
+    private StringBuilder buffer = new StringBuilder();
+
+    /**
+     * The number of characters consumed.
+     */
+    private long position = 0;
+
+    private boolean inArray = false;
+
+    private boolean firstArrayElement = false;
+
+    public JsonDocumentReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Returns the number of characters consumed so far.
+     *
+     * @return the current position in the character stream
+     */
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Reads the next document.
+     *
+     * @return the next document or {@code null} if the end of the stream is
+     * reached
+     * @throws IOException if an I/O error occurs
+     * @throws JsonParseException if the input is not valid
+     */
+    @Override
+    public BsonDocument read() throws IOException {
+        if (readNext() == false) {
+            return null;
+        }
+        final BsonDocument document = BsonDocument.parse(buffer.toString());
+        releaseLargeBuffer();
+        return document;
+    }
+
+    /**
+     * Skips the next document without parsing it.
+     *
+     * @return {@code false} if the end of the stream is reached
+     * @throws IOException if an I/O error occurs
+     * @throws JsonParseException if the input is not valid
+     */
+    @Override
+    public boolean skip() throws IOException {
+        final boolean skipped = readNext();
+        releaseLargeBuffer();
+        return skipped;
+    }
+
+    /**
+     * Copies the text of the next document into the buffer.
+     *
+     * @return {@code false} if the end of the stream is reached
+     */
+    private boolean readNext() throws IOException {
+        int c = nextNonWhitespace();
+        while (true) {
+            if (inArray) {
+                if (c == ']') {
+                    inArray = false;
+                    c = nextNonWhitespace();
+                    continue;
+                }
+                if (firstArrayElement) {
+                    firstArrayElement = false;
+                } else if (c == ',') {
+                    c = nextNonWhitespace();
+                } else {
+                    throw unexpected(c, "',' or ']'");
+                }
+                if (c == EOF) {
+                    throw new JsonParseException("Invalid JSON input. Position: %d. Unterminated array.", position);
+                }
+            } else if (c == '[') {
+                inArray = true;
+                firstArrayElement = true;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    continue;
+                }
+            }
+            break;
+        }
+        if (c == EOF) {
+            return false;
+        }
+        if (c != '{') {
+            throw unexpected(c, "a document");
+        }
+        readDocument();
+        return true;
+    }
+
+    private void releaseLargeBuffer() {
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+            buffer = new StringBuilder();
+        }
+    }
+
+    /**
+     * Copies the text of the document starting with the already consumed
+     * opening brace into the buffer.
+     */
+    private void readDocument() throws IOException {
+        buffer.setLength(0);
+        buffer.append('{');
+        int depth = 1;
+        while (depth > 0) {
+            final int c = next();
+            switch (c) {
+                case EOF:
+                    throw new JsonParseException("Invalid JSON input. Position: %d. Unterminated document.", position);
+                case '{':
+                    depth++;
+                    break;
+                case '}':
+                    depth--;
+                    break;
+                case '"':
+                case '\'':
+                case '/': // regular expression
+                    buffer.append((char) c);
+                    readDelimited(c);
+                    continue;
+            }
+            buffer.append((char) c);
+        }
+    }
+
+    /**
+     * Copies a string (or regular expression) up to its closing delimiter
+     * into the buffer.
+     */
+    private void readDelimited(int delimiter) throws IOException {
+        while (true) {
+            final int c = next();
+            if (c == EOF) {
+                throw new JsonParseException("Invalid JSON input. Position: %d. Unterminated string.", position);
+            }
+            buffer.append((char) c);
+            if (c == delimiter) {
+                return;
+            }
+            if (c == '\\') {
+                final int escaped = next();
+                if (escaped == EOF) {
+                    throw new JsonParseException("Invalid JSON input. Position: %d. Unterminated string.", position);
+                }
+                buffer.append((char) escaped);
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c != EOF && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int next() throws IOException {
+        final int c = reader.read();
+        if (c != EOF) {
+            position++;
+        }
+        return c;
+    }
+
+    private JsonParseException unexpected(int c, String expected) {
+        return c == EOF
+            ? new JsonParseException("Invalid JSON input. Position: %d. Expected %s but reached end of input.", position, expected)
+            : new JsonParseException("Invalid JSON input. Position: %d. Expected %s but found '%c'.", position, expected, (char) c);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.bson;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
+import org.bson.BSONException;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
+import org.bson.json.JsonWriter;
+import org.bson.json.JsonWriterSettings;
+
+/**
+ * Writes BSON values as JSON directly into an {@link Appendable}, with the
+ * same output than the driver's {@link JsonWriter} for the given settings.
+ * <p>
+ * Unlike {@code BsonDocument.toJson()}, no intermediate string is built: the
+ * JSON goes straight to the target (a {@code StringBuilder}, an export file
+ * writer...). The encoding can be capped to a number of characters, in which
+ * case it stops as soon as the cap is reached so huge values are never fully
+ * encoded.
+ * <p>
+ * Emitters hold reusable buffers and are not thread safe: use
+ * {@link #get()} to get the emitter of the current thread.
+ *
+ * @author Yann D'Isanto
+ */
+public final class JsonEmitter {
+
+    /**
+     * The maximum length value meaning no limit.
+     */
+    public static final int UNLIMITED = -1;
+
+    private static final String ELLIPSIS = "\u2026";
+
+    /**
+     * The capacity above which the reusable string buffer is not kept, so a
+     * single huge value does not pin its buffer for the thread lifetime.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
+    private static final RawBsonDocumentCodec RAW_DOCUMENT_CODEC = new RawBsonDocumentCodec();
+
+    private static final ThreadLocal<JsonEmitter> EMITTERS = new ThreadLocal<JsonEmitter>() {
+
+        @Override
+        protected JsonEmitter initialValue() {
+            return new JsonEmitter();
+        }
+    };
+
+    private final Map<BsonType, Codec<BsonValue>> codecs = new EnumMap<>(BsonType.class);
+
+    private final AppendableWriter writer = new AppendableWriter();
+
+    private StringBuilder buffer = new StringBuilder();
+
+    private JsonEmitter() {
+    }
+
+    /**
+     * Returns the emitter of the current thread.
+     *
+     * @return the emitter of the current thread
+     */
+    public static JsonEmitter get() {
+        return EMITTERS.get();
+    }
+
+    /**
+     * Writes the JSON of the specified value.
+     *
+     * @param value a value
+     * @param settings the JSON settings
+     * @param output where to write the JSON
+     * @throws IOException if writing to the output fails
+     */
+    public void write(BsonValue value, JsonWriterSettings settings, Appendable output) throws IOException {
+        write(value, settings, output, UNLIMITED);
+    }
+
+    /**
+     * Writes the JSON of the specified value, up to the specified number of
+     * characters.
+     *
+     * @param value a value
+     * @param settings the JSON settings
+     * @param output where to write the JSON
+     * @param maxLength the maximum number of characters to write or
+     * {@link #UNLIMITED}
+     * @return {@code false} if the JSON has been truncated
+     * @throws IOException if writing to the output fails
+     */
+    public boolean write(BsonValue value, JsonWriterSettings settings, Appendable output, int maxLength) throws IOException {
+        writer.reset(output, maxLength);
+        try {
+            encode(value, settings);
+            return true;
+        } catch (LimitReachedException ex) {
+            return false;
+        } catch (BSONException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw ex;
+        } finally {
+            writer.reset(null, UNLIMITED);
+        }
+    }
+
+    /**
+     * Appends the JSON of the specified value to a string builder.
+     *
+     * @param output the string builder
+     * @param value a value
+     * @param settings the JSON settings
+     * @return the string builder
+     */
+    public StringBuilder append(StringBuilder output, BsonValue value, JsonWriterSettings settings) {
+        try {
+            write(value, settings, output, UNLIMITED);
+            return output;
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    /**
+     * Returns the JSON of the specified value truncated to the specified
+     * length.
+     *
+     * @param value a value
+     * @param settings the JSON settings
+     * @param maxLength the maximum length of the returned string, not
+     * counting the trailing ellipsis of truncated strings, or
+     * {@link #UNLIMITED}
+     * @return the JSON string, ending with an ellipsis if truncated
+     */
+    public String toJson(BsonValue value, JsonWriterSettings settings, int maxLength) {
+        final StringBuilder json = buffer;
+        json.setLength(0);
+        try {
+            if (write(value, settings, json, maxLength) == false) {
+                json.append(ELLIPSIS);
+            }
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+        final String text = json.toString();
+        if (json.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder();
+        }
+        return text;
+    }
+
+    private void encode(BsonValue value, JsonWriterSettings settings) {
+        if (value instanceof RawBsonDocument) {
+            // piped from the raw bytes, the fields are not decoded
+            RAW_DOCUMENT_CODEC.encode(new JsonWriter(writer, settings), (RawBsonDocument) value, ENCODER_CONTEXT);
+        } else if (value.isDocument()) {
+            DOCUMENT_CODEC.encode(new JsonWriter(writer, settings), value.asDocument(), ENCODER_CONTEXT);
+        } else {
+            getCodec(value.getBsonType()).encode(new Bsons.BsonValueJsonWriter(writer, settings), value, ENCODER_CONTEXT);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Codec<BsonValue> getCodec(BsonType type) {
+        Codec<BsonValue> codec = codecs.get(type);
+        if (codec == null) {
+            codec = (Codec<BsonValue>) Bsons.getCodec(type);
+            codecs.put(type, codec);
+        }
+        return codec;
+    }
+
+    /**
+     * A writer appending to the current output, refusing to write more than
+     * the current maximum length.
+     */
+    private static final class AppendableWriter extends Writer {
+
+        private Appendable output;
+
+        private int remaining;
+
+        void reset(Appendable output, int maxLength) {
+            this.output = output;
+            this.remaining = maxLength;
+        }
+
+        private int checkLimit(int len) {
+            if (remaining == UNLIMITED || len <= remaining) {
+                if (remaining != UNLIMITED) {
+                    remaining -= len;
+                }
+                return len;
+            }
+            return remaining;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (checkLimit(1) < 1) {
+                throw new LimitReachedException();
+            }
+            output.append((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            final int allowed = checkLimit(len);
+            for (int i = off; i < off + allowed; i++) {
+                output.append(cbuf[i]);
+            }
+            if (allowed < len) {
+                throw new LimitReachedException();
+            }
+        }
+
+        @Override
+        public void write(String str) throws IOException {
+            write(str, 0, str.length());
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            final int allowed = checkLimit(len);
+            output.append(str, off, off + allowed);
+            if (allowed < len) {
+                throw new LimitReachedException();
+            }
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            final CharSequence chars = csq == null ? "null" : csq;
+            return append(chars, 0, chars.length());
+        }
+
+        @Override
+        public Writer append(CharSequence csq, int start, int end) throws IOException {
+            final CharSequence chars = csq == null ? "null" : csq;
+            final int allowed = checkLimit(end - start);
+            output.append(chars, start, start + allowed);
+            if (allowed < end - start) {
+                throw new LimitReachedException();
+            }
+            return this;
+        }
+
+        @Override
+        public Writer append(char c) throws IOException {
+            write(c);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class LimitReachedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitReachedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.ResourceBundle;
 import java.util.concurrent.TimeUnit;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Value;
 import org.bson.Document;
@@ -37,6 +38,7 @@ import org.openide.util.NbBundle.Messages;
  * @author Yann D'Isanto
  */
 @AllArgsConstructor
+@EqualsAndHashCode
 @Getter
 public class Index {
 
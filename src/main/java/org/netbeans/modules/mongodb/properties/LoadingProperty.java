@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.properties;
+
+import java.lang.reflect.InvocationTargetException;
+import org.openide.nodes.PropertySupport;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Placeholder of properties which are being loaded.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "LABEL_loading=Statistics",
+    "loading=loading\u2026"
+})
+public final class LoadingProperty extends PropertySupport.ReadOnly<String> {
+
+    public static final String KEY = "loading";
+
+    public LoadingProperty() {
+        super(KEY, String.class, Bundle.LABEL_loading(), null);
+    }
+
+    @Override
+    public String getValue() throws IllegalAccessException, InvocationTargetException {
+        return Bundle.loading();
+    }
+}
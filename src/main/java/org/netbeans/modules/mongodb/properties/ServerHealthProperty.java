@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.properties;
+
+import java.lang.reflect.InvocationTargetException;
+import org.netbeans.modules.mongodb.MongoConnection;
+import org.netbeans.modules.mongodb.MongoConnection.ServerHealth;
+import org.openide.nodes.PropertySupport;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * The last ping of the server of a connection.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "LABEL_serverHealth=Server ping",
+    "# {0} - ping round trip time in milliseconds",
+    "serverReachable={0} ms",
+    "# {0} - error message",
+    "serverUnreachable=unreachable: {0}",
+    "serverHealthUnknown=-"
+})
+public final class ServerHealthProperty extends PropertySupport.ReadOnly<String> {
+
+    public static final String KEY = "serverHealth";
+
+    private final Lookup lkp;
+
+    public ServerHealthProperty(Lookup lkp) {
+        super(KEY, String.class, Bundle.LABEL_serverHealth(), null);
+        this.lkp = lkp;
+    }
+
+    @Override
+    public String getValue() throws IllegalAccessException, InvocationTargetException {
+        final ServerHealth health = lkp.lookup(MongoConnection.class).getHealth();
+        if (health == null) {
+            return Bundle.serverHealthUnknown();
+        }
+        return health.isReachable()
+            ? Bundle.serverReachable(health.getPingMillis())
+            : Bundle.serverUnreachable(health.getError());
+    }
+}
@@ -0,0 +1,52 @@
+/* 
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.actions;
+
+import org.netbeans.modules.mongodb.ui.windows.AggregationTopComponent;
+import java.awt.event.ActionEvent;
+import javax.swing.AbstractAction;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Opens an {@code AggregationTopComponent}.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "ACTION_OpenAggregationWindow_name=Aggregation..."
+})
+public class OpenAggregationWindowAction extends AbstractAction {
+
+    private static final long serialVersionUID = 1L;
+    
+    private final Lookup lookup;
+    
+    public OpenAggregationWindowAction(Lookup lookup) {
+        super(Bundle.ACTION_OpenAggregationWindow_name());
+        this.lookup = lookup;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        final AggregationTopComponent tc = new AggregationTopComponent(lookup);
+        tc.open();
+        tc.requestActive();
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.actions;
+
+import java.awt.event.ActionEvent;
+import javax.swing.AbstractAction;
+import org.netbeans.modules.mongodb.api.connections.ConnectionInfo;
+import org.netbeans.modules.mongodb.ui.util.TopComponentUtils;
+import org.netbeans.modules.mongodb.ui.windows.ServerMetricsTopComponent;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Opens the {@code ServerMetricsTopComponent} of a connection, or activates
+ * it if already opened.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "ACTION_OpenServerMetricsWindow_name=Server Metrics"
+})
+public class OpenServerMetricsWindowAction extends AbstractAction {
+
+    private static final long serialVersionUID = 1L;
+    
+    private final Lookup lookup;
+    
+    public OpenServerMetricsWindowAction(Lookup lookup) {
+        super(Bundle.ACTION_OpenServerMetricsWindow_name());
+        this.lookup = lookup;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        ServerMetricsTopComponent tc = TopComponentUtils.find(ServerMetricsTopComponent.class, lookup.lookup(ConnectionInfo.class));
+        if (tc == null) {
+            tc = new ServerMetricsTopComponent(lookup);
+            tc.open();
+        }
+        tc.requestActive();
+    }
+
+}
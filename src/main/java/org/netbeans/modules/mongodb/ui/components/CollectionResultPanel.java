@@ -21,20 +21,30 @@ import java.awt.CardLayout;
 import java.awt.Container;
 import java.awt.Cursor;
 import java.awt.Font;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ImageIcon;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
@@ -64,7 +74,9 @@ import org.netbeans.modules.mongodb.api.FindCriteria;
 import org.netbeans.modules.mongodb.api.FindCriteria.SortOrder;
 import org.netbeans.modules.mongodb.api.FindResult;
 import org.netbeans.modules.mongodb.resources.Images;
+import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.ui.util.IntegerDocumentFilter;
+import org.netbeans.modules.mongodb.ui.util.ValidatingInputLine;
 import org.netbeans.modules.mongodb.ui.actions.*;
 import org.netbeans.modules.mongodb.ui.components.result_panel.views.flattable.DocumentsFlatTableModel;
 import org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable.DocumentsTreeTableModel;
@@ -83,11 +95,11 @@ import org.netbeans.modules.mongodb.ui.components.result_panel.views.text.Result
 import org.netbeans.modules.mongodb.ui.windows.CollectionView;
 import org.netbeans.modules.mongodb.util.BsonProperty;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.awt.NotificationDisplayer;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle.Messages;
-import org.openide.util.RequestProcessor;
 import org.openide.windows.TopComponent;
 
 /**
@@ -99,9 +111,15 @@ import org.openide.windows.TopComponent;
     "invalidJson=invalid json",
     "# {0} - total documents count",
     "totalDocuments=Total Documents: {0}      ",
+    "totalDocumentsCounting=Total Documents: counting...      ",
+    "totalDocumentsUnknown=Total Documents: unknown      ",
+    "totalDocumentsRetry=The count failed or timed out, click to count again",
     "# {0} - current page",
     "# {1} - total page count",
     "pageCountLabel=Page {0} of {1}",
+    "# {0} - current page",
+    "# {1} - minimum total page count",
+    "pageCountLabelAtLeast=Page {0} of \u2265{1}",
     "# {0} - collection namespace",
     "collectionViewTitle={0}",
     "# {0} - connection name",
@@ -118,7 +136,14 @@ import org.openide.windows.TopComponent;
     "ACTION_usePropertyAddFindFilter=add to current filter",
     "ACTION_usePropertyAddFindProjection=add to current projection",
     "# {0} - sort order",
-    "ACTION_usePropertyAddFindSort=add to current sort in {0} order"
+    "ACTION_usePropertyAddFindSort=add to current sort in {0} order",
+    "ACTION_hideColumn=Hide column",
+    "ACTION_keepVisibleColumns=Keep only visible columns",
+    "ACTION_showAllColumns=Show all columns",
+    "ACTION_fetchDisplayedColumnsOnly=Fetch displayed columns only",
+    "ACTION_pageCacheSize=Page cache size...",
+    "pageCacheSizeText=Memory used by the cached pages (MB):",
+    "invalidPageCacheSize=the size must be a number of megabytes, at least 1"
 })
 public final class CollectionResultPanel extends javax.swing.JPanel {
 
@@ -126,8 +151,6 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
 
     private static final ResultView DEFAULT_RESULT_VIEW = ResultView.TREE_TABLE;
 
-    private static final RequestProcessor REQUEST_PROCESSOR = new RequestProcessor(CollectionResultPanel.class);
-
     @Getter
     private final Lookup lookup;
 
@@ -146,6 +169,12 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
     @Getter
     private final ResultsTextView textView;
 
+    /**
+     * The pages shared by all the result views.
+     */
+    @Getter
+    private final CollectionResultPages resultPages;
+
     @Getter
     @Setter
     private boolean displayDocumentEditionShortcutHint = true;
@@ -156,6 +185,25 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
     @Getter
     private CollectionResult currentResult;
 
+    /**
+     * Whether the pages of a find result only hold the flat table columns
+     * while the flat table is displayed and its columns are restricted.
+     */
+    @Getter
+    private boolean fetchDisplayedColumnsOnly = false;
+
+    /**
+     * The maximum estimated heap size of the cached pages, in bytes.
+     */
+    @Getter
+    private long pageCacheMaxSize = CollectionResultPages.DEFAULT_CACHE_MAX_SIZE;
+
+    /**
+     * Serializes the pages operations of the panel, which may be run
+     * concurrently by the interactive lane of the connection.
+     */
+    private final Lock pagesLock = new ReentrantLock(true);
+
     private final Runnable resultRefresh = new Runnable() {
 
         @Override
@@ -186,6 +234,11 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
         public void pageObjectUpdated(int index, BsonDocument oldValue, BsonDocument newValue) {
         }
 
+        @Override
+        public void totalElementsCountChanged(CollectionResultPages source, long count) {
+            updatePagination();
+        }
+
     };
 
     /**
@@ -206,13 +259,29 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
 
         int pageSize = 20; // TODO: store/load from pref
         currentResult = CollectionResult.EMPTY;
-        treeTableModel = new DocumentsTreeTableModel(new CollectionResultPages(currentResult, pageSize, readOnly));
-        flatTableModel = new DocumentsFlatTableModel(new CollectionResultPages(currentResult, pageSize, readOnly));
-        textView = new ResultsTextView(new CollectionResultPages(currentResult, pageSize, readOnly));
+        resultPages = new CollectionResultPages(currentResult, pageSize, readOnly);
+        // prefetched pages and counts are posted with the lowest priority of
+        // the lane
+        resultPages.setPrefetchRequestProcessor(Tasks.getRequestProcessor(lookup, Priority.INTERACTIVE));
+        resultPages.setCountRequestProcessor(Tasks.getRequestProcessor(lookup, Priority.INTERACTIVE));
+        totalDocumentsLabel.addMouseListener(new MouseAdapter() {
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (resultPages.isTotalElementsCountFailed()) {
+                    resultPages.recountTotalElements();
+                    updatePagination();
+                }
+            }
+        });
+        treeTableModel = new DocumentsTreeTableModel(resultPages);
+        flatTableModel = new DocumentsFlatTableModel(resultPages);
+        textView = new ResultsTextView(resultPages);
         resultPanel.add(textView, "TEXT");
         resultViews.put(ResultView.TREE_TABLE, treeTableModel);
         resultViews.put(ResultView.FLAT_TABLE, flatTableModel);
         resultViews.put(ResultView.TEXT, textView);
+        resultViews.get(resultView).setDisplayed(true);
 
         final ListSelectionListener tableSelectionListener = new ListSelectionListener() {
 
@@ -267,6 +336,18 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
 
         final PlainDocument document = (PlainDocument) pageSizeField.getDocument();
         document.setDocumentFilter(new IntegerDocumentFilter());
+        final JPopupMenu pageSizeMenu = new JPopupMenu();
+        pageSizeMenu.add(new JMenuItem(new AbstractAction(Bundle.ACTION_pageCacheSize()) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                editPageCacheMaxSize();
+            }
+        }));
+        pageSizeLabel.setComponentPopupMenu(pageSizeMenu);
+        pageSizeField.setComponentPopupMenu(pageSizeMenu);
 
         resultTreeTable.addMouseListener(new MouseAdapter() {
 
@@ -345,22 +426,67 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
             }
 
         });
+        resultFlatTable.getTableHeader().addMouseListener(new MouseAdapter() {
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (e.isPopupTrigger() || SwingUtilities.isRightMouseButton(e)) {
+                    final int column = resultFlatTable.columnAtPoint(e.getPoint());
+                    final JPopupMenu menu = createFlatTableHeaderContextMenu(column);
+                    menu.show(e.getComponent(), e.getX(), e.getY());
+                }
+            }
+        });
         getResultPages().addListener(pagesListener);
     }
 
     public void setResult(CollectionResult result) {
+        if (currentResult instanceof Closeable && currentResult != result) {
+            try {
+                ((Closeable) currentResult).close();
+            } catch (IOException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
         currentResult = result;
-        Tasks.create(REQUEST_PROCESSOR, Bundle.TASK_refreshResults(), resultUpdate).execute();
+        updatePagesProjection();
+        Tasks.create(lookup, Priority.INTERACTIVE, Bundle.TASK_refreshResults(), serialized(resultUpdate)).execute();
     }
 
     public void refreshResults() {
-        Tasks.create(REQUEST_PROCESSOR, Bundle.TASK_refreshResults(), resultRefresh).execute();
+        Tasks.create(lookup, Priority.INTERACTIVE, Bundle.TASK_refreshResults(), serialized(resultRefresh)).execute();
+    }
+
+    /**
+     * Posts an operation on the result pages, such as a page move, to the
+     * interactive lane of the connection. The pages operations of the panel
+     * run one at a time.
+     *
+     * @param operation the pages operation
+     */
+    public void postPagesOperation(Runnable operation) {
+        Tasks.getRequestProcessor(lookup, Priority.INTERACTIVE).post(serialized(operation), 0, Thread.MAX_PRIORITY);
+    }
+
+    private Runnable serialized(final Runnable operation) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                pagesLock.lock();
+                try {
+                    operation.run();
+                } finally {
+                    pagesLock.unlock();
+                }
+            }
+        };
     }
 
     public void editDocument(BsonDocument document, BsonDocument modifiedDocument) {
         if (currentResult instanceof FindResult) {
             FindResult result = (FindResult) currentResult;
-            BsonDocument projection = result.getFindCriteria().getProjection();
+            BsonDocument projection = result.getPagesProjection();
             if (projection.isEmpty() == false) {
                 List<String> filtered = new ArrayList<>(modifiedDocument.size());
                 for (String key : modifiedDocument.keySet()) {
@@ -379,13 +505,28 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
                 }
             }
         }
-        for (View view : resultViews.values()) {
-            CollectionResultPages pages = view.getPages();
-            if (pages.getQueryResult().equals(currentResult)) {
-                pages.updateDocument(document, modifiedDocument);
-            }
+        if (resultPages.getQueryResult().equals(currentResult)) {
+            resultPages.updateDocument(document, modifiedDocument);
         }
+    }
 
+    /**
+     * Updates the current page after a document has been edited in place in
+     * the tree table. The document node value may be a decoded copy of the
+     * page document, or the page document itself once edited: the page is
+     * updated anyway so the other views are refreshed.
+     *
+     * @param documentRootNode the edited document root node
+     */
+    public void documentNodeEdited(BsonValueNode documentRootNode) {
+        if (readOnly) {
+            return;
+        }
+        final int index = documentRootNode.getParent().getIndex(documentRootNode);
+        final BsonDocument document = documentRootNode.getValue().asDocument();
+        if (index > -1 && index < resultPages.getCurrentPageItems().size()) {
+            resultPages.updateDocument(index, document);
+        }
     }
 
     private JTable getResultTable() {
@@ -399,22 +540,6 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
         }
     }
 
-    public CollectionResultPages getFlatTablePages() {
-        return flatTableModel.getPages();
-    }
-
-    public CollectionResultPages getTreeTablePages() {
-        return treeTableModel.getPages();
-    }
-
-    public CollectionResultPages getTextViewPages() {
-        return textView.getPages();
-    }
-
-    public CollectionResultPages getResultPages() {
-        return resultViews.get(resultView).getPages();
-    }
-
     public BsonDocument getResultTableSelectedDocument() {
         final JTable table = getResultTable();
         if (table == null) { // TEXT view
@@ -437,15 +562,84 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
     }
 
     public void changeResultView(ResultView resultView) {
-        getResultPages().removeListener(pagesListener);
+        resultViews.get(this.resultView).setDisplayed(false);
         this.resultView = resultView;
-        getResultPages().addListener(pagesListener);
-        if (getResultPages().getQueryResult().equals(currentResult) == false) {
-            setResult(currentResult);
+        if (updatePagesProjection()) {
+            refreshResults();
         }
+        resultViews.get(resultView).setDisplayed(true);
         updateResultPanel();
     }
 
+    public void setFetchDisplayedColumnsOnly(boolean fetchDisplayedColumnsOnly) {
+        this.fetchDisplayedColumnsOnly = fetchDisplayedColumnsOnly;
+        if (updatePagesProjection()) {
+            refreshResults();
+        }
+    }
+
+    /**
+     * Restricts the fields fetched by a find result to the flat table
+     * displayed columns when the flat table is displayed, its columns are
+     * restricted and {@link #isFetchDisplayedColumnsOnly()}. Whole documents
+     * are fetched otherwise.
+     *
+     * @return true if the fetched fields changed
+     */
+    private boolean updatePagesProjection() {
+        if ((currentResult instanceof FindResult) == false) {
+            return false;
+        }
+        final FindResult result = (FindResult) currentResult;
+        final Set<String> fields = fetchDisplayedColumnsOnly && resultView == ResultView.FLAT_TABLE
+            ? flatTableModel.getDisplayedColumns()
+            : null;
+        if (Objects.equals(fields, result.getDisplayedFields())) {
+            return false;
+        }
+        result.setDisplayedFields(fields);
+        return true;
+    }
+
+    /**
+     * Tells whether the documents of the current page only hold some of their
+     * fields because of the flat table displayed columns.
+     *
+     * @return true if the documents don't hold all their fields
+     */
+    public boolean isPagesProjected() {
+        return currentResult instanceof FindResult
+            && ((FindResult) currentResult).getDisplayedFields() != null;
+    }
+
+    private void setFlatTableDisplayedColumns(Collection<String> columns) {
+        flatTableModel.setDisplayedColumns(columns);
+        if (updatePagesProjection()) {
+            refreshResults();
+        }
+    }
+
+    /**
+     * Returns the flat table columns which are (at least partially) visible
+     * in the scroll pane.
+     */
+    private List<String> getVisibleFlatTableColumns() {
+        final Rectangle visibleRect = resultFlatTable.getVisibleRect();
+        int first = resultFlatTable.columnAtPoint(new Point(visibleRect.x, visibleRect.y));
+        int last = resultFlatTable.columnAtPoint(new Point(visibleRect.x + visibleRect.width - 1, visibleRect.y));
+        if (first == -1) {
+            first = 0;
+        }
+        if (last == -1) {
+            last = resultFlatTable.getColumnCount() - 1;
+        }
+        final List<String> columns = new ArrayList<>();
+        for (int column = first; column <= last; column++) {
+            columns.add(flatTableModel.getColumnName(resultFlatTable.convertColumnIndexToModel(column)));
+        }
+        return columns;
+    }
+
     private void updateResultPanel() {
         SwingUtilities.invokeLater(new Runnable() {
 
@@ -466,16 +660,26 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
             @Override
             public void run() {
                 CollectionResultPages pages = getResultPages();
-                long documentCount = pages.getTotalElementsCount();
-                totalDocumentsLabel.setText(
-                    Bundle.totalDocuments(documentCount));
-                int page = documentCount == 0 ? 0 : pages.getPageIndex();
                 int pageCount = pages.getPageCount();
-                pageCountLabel.setText(Bundle.pageCountLabel(page, pageCount));
+                if (pages.isTotalElementsCountKnown()) {
+                    long documentCount = pages.getTotalElementsCount();
+                    totalDocumentsLabel.setText(
+                        Bundle.totalDocuments(documentCount));
+                    int page = documentCount == 0 ? 0 : pages.getPageIndex();
+                    pageCountLabel.setText(Bundle.pageCountLabel(page, pageCount));
+                } else {
+                    totalDocumentsLabel.setText(pages.isTotalElementsCountFailed()
+                        ? Bundle.totalDocumentsUnknown()
+                        : Bundle.totalDocumentsCounting());
+                    pageCountLabel.setText(Bundle.pageCountLabelAtLeast(pages.getPageIndex(), pageCount));
+                }
+                final boolean retryable = pages.isTotalElementsCountFailed();
+                totalDocumentsLabel.setToolTipText(retryable ? Bundle.totalDocumentsRetry() : null);
+                totalDocumentsLabel.setCursor(retryable ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : null);
                 navFirstAction.setEnabled(pages.canMoveBackward());
                 navLeftAction.setEnabled(pages.canMoveBackward());
                 navRightAction.setEnabled(pages.canMoveForward());
-                navLastAction.setEnabled(pages.canMoveForward());
+                navLastAction.setEnabled(pages.isTotalElementsCountKnown() && pages.canMoveForward());
                 setCursor(null);
             }
         });
@@ -496,9 +700,41 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
     }
 
     private void changePageSize(int pageSize) {
-        getTreeTablePages().setPageSize(pageSize);
-        getFlatTablePages().setPageSize(pageSize);
-        getTextViewPages().setPageSize(pageSize);
+        resultPages.setPageSize(pageSize);
+    }
+
+    /**
+     * Sets the maximum estimated heap size of the cached pages.
+     *
+     * @param pageCacheMaxSize the size in bytes
+     */
+    public void setPageCacheMaxSize(long pageCacheMaxSize) {
+        this.pageCacheMaxSize = pageCacheMaxSize;
+        resultPages.setCacheMaxSize(pageCacheMaxSize);
+    }
+
+    private void editPageCacheMaxSize() {
+        final String input = DialogNotification.validatingInput(
+            Bundle.pageCacheSizeText(),
+            Bundle.ACTION_pageCacheSize(),
+            String.valueOf(pageCacheMaxSize / (1024 * 1024)),
+            new ValidatingInputLine.InputValidator() {
+
+                @Override
+                public void validate(String inputText) throws IllegalArgumentException {
+                    try {
+                        if (Long.parseLong(inputText.trim()) < 1) {
+                            throw new IllegalArgumentException(Bundle.invalidPageCacheSize());
+                        }
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException(Bundle.invalidPageCacheSize());
+                    }
+                }
+            });
+        if (input != null) {
+            setPageCacheMaxSize(Long.parseLong(input.trim()) * 1024 * 1024);
+            writePreferences();
+        }
     }
 
     /**
@@ -876,10 +1112,72 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
         return menu;
     }
 
+    private JPopupMenu createFlatTableHeaderContextMenu(int column) {
+        final JPopupMenu menu = new JPopupMenu();
+        if (column > -1) {
+            final String columnName = flatTableModel.getColumnName(resultFlatTable.convertColumnIndexToModel(column));
+            menu.add(new JMenuItem(new AbstractAction(Bundle.ACTION_hideColumn()) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    final Set<String> displayedColumns = flatTableModel.getDisplayedColumns();
+                    final List<String> columns = new ArrayList<>();
+                    for (int i = 0; i < flatTableModel.getColumnCount(); i++) {
+                        columns.add(flatTableModel.getColumnName(i));
+                    }
+                    if (displayedColumns != null) {
+                        columns.retainAll(displayedColumns);
+                    }
+                    columns.remove(columnName);
+                    setFlatTableDisplayedColumns(columns);
+                }
+            }));
+        }
+        menu.add(new JMenuItem(new AbstractAction(Bundle.ACTION_keepVisibleColumns()) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setFlatTableDisplayedColumns(getVisibleFlatTableColumns());
+            }
+        }));
+        final JMenuItem showAllColumnsItem = new JMenuItem(new AbstractAction(Bundle.ACTION_showAllColumns()) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setFlatTableDisplayedColumns(null);
+            }
+        });
+        showAllColumnsItem.setEnabled(flatTableModel.getDisplayedColumns() != null);
+        menu.add(showAllColumnsItem);
+        if (currentResult instanceof FindResult) {
+            menu.addSeparator();
+            final JCheckBoxMenuItem fetchDisplayedColumnsOnlyItem = new JCheckBoxMenuItem(Bundle.ACTION_fetchDisplayedColumnsOnly(), fetchDisplayedColumnsOnly);
+            fetchDisplayedColumnsOnlyItem.addActionListener(new ActionListener() {
+
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    setFetchDisplayedColumnsOnly(fetchDisplayedColumnsOnlyItem.isSelected());
+                }
+            });
+            menu.add(fetchDisplayedColumnsOnlyItem);
+        }
+        return menu;
+    }
+
     private JPopupMenu createFlatTableContextMenu(int row, int column) {
         final JPopupMenu menu = new JPopupMenu();
-        final BsonDocument document = getFlatTablePages().getCurrentPageItems().get(row);
-        menu.add(new JMenuItem(new CopyFullDocumentToClipboardAction(document)));
+        final BsonDocument document = flatTableModel.getRowValue(row);
+        if (isPagesProjected()) {
+            menu.add(new JMenuItem(new CopyFullDocumentAction(this, document)));
+        } else {
+            menu.add(new JMenuItem(new CopyFullDocumentToClipboardAction(document)));
+        }
         final DocumentsFlatTableModel model = (DocumentsFlatTableModel) resultFlatTable.getModel();
         final BsonProperty property = new BsonProperty(
             model.getColumnName(column),
@@ -931,24 +1229,26 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
         final ResultView rView = ResultView.valueOf(resultViewPref);
         resultViewButtons.get(rView).setSelected(true);
         changeResultView(rView);
-        final int pageSize = prefs.getInt("result-view-table-page-size", getTreeTablePages().getPageSize());
-        getTreeTablePages().setPageSize(pageSize);
-        getFlatTablePages().setPageSize(pageSize);
-        getTextViewPages().setPageSize(pageSize);
+        final int pageSize = prefs.getInt("result-view-table-page-size", resultPages.getPageSize());
+        setPageCacheMaxSize(prefs.getLong("result-view-page-cache-size", CollectionResultPages.DEFAULT_CACHE_MAX_SIZE));
+        resultPages.setPageSize(pageSize);
         pageSizeField.setText(String.valueOf(pageSize));
         boolean sortDocumentsField = prefs.getBoolean("sort-documents-fields", false);
         sortFieldsButton.setSelected(sortDocumentsField);
         treeTableModel.setSortDocumentsFields(sortDocumentsField);
         textView.setSortDocumentsFields(sortDocumentsField);
         flatTableModel.setSortDocumentsFields(sortDocumentsField);
+        setFetchDisplayedColumnsOnly(prefs.getBoolean("flat-table-fetch-displayed-columns-only", false));
     }
 
     public void writePreferences() {
         final Preferences prefs = Prefs.of(Prefs.COLLECTION_RESULTS_PANEL);
-        prefs.putInt("result-view-table-page-size", getTreeTablePages().getPageSize());
+        prefs.putInt("result-view-table-page-size", resultPages.getPageSize());
+        prefs.putLong("result-view-page-cache-size", pageCacheMaxSize);
         prefs.put("result-view", resultView.name());
         prefs.putBoolean("display-document-edition-shortcut-hint", displayDocumentEditionShortcutHint);
         prefs.putBoolean("sort-documents-fields", sortFieldsButton.isSelected());
+        prefs.putBoolean("flat-table-fetch-displayed-columns-only", fetchDisplayedColumnsOnly);
         try {
             prefs.flush();
         } catch (BackingStoreException ex) {
@@ -959,6 +1259,15 @@ public final class CollectionResultPanel extends javax.swing.JPanel {
     public static interface View {
 
         CollectionResultPages getPages();
+
+        /**
+         * Notifies the view whether it is the displayed one. Page changes are
+         * only rendered by the displayed view, the others render the current
+         * page when they get displayed again.
+         *
+         * @param displayed true if the view is displayed
+         */
+        void setDisplayed(boolean displayed);
     }
 
     abstract class PropertyNodeAction extends AbstractAction {
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.components;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.util.concurrent.TimeUnit;
+import javax.swing.BorderFactory;
+import javax.swing.JEditorPane;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import lombok.Builder;
+import lombok.Value;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.netbeans.modules.mongodb.bson.Bsons;
+import org.netbeans.modules.mongodb.ui.util.JsonUIUtils;
+import org.openide.DialogDescriptor;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Displays the query plan of a find query, as explained by the server, along
+ * with the time spent by the client on each phase of the first page display.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "TTL_queryPlan=Query plan",
+    "LBL_queryPlanServer=Server",
+    "LBL_queryPlanClient=Client (first page)",
+    "LBL_winningPlan=Winning plan:",
+    "LBL_documentsReturned=Documents returned:",
+    "LBL_keysExamined=Keys examined:",
+    "LBL_documentsExamined=Documents examined:",
+    "LBL_serverExecutionTime=Execution time:",
+    "LBL_countPhase=Count:",
+    "LBL_firstBatchPhase=First batch:",
+    "LBL_decodePhase=Decode:",
+    "LBL_formatPhase=Format:",
+    "LBL_explainOutput=Explain output:",
+    "# {0} - duration in milliseconds",
+    "durationMillis={0} ms",
+    "# {0} - duration in milliseconds",
+    "# {1} - documents count",
+    "countTiming={0} ms ({1} documents)",
+    "# {0} - duration in milliseconds",
+    "# {1} - documents count",
+    "# {2} - size in bytes",
+    "firstBatchTiming={0} ms ({1} documents, {2} bytes)",
+    "unknownValue=-"
+})
+public final class QueryPlanPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The time spent by the client on each phase of the first page display.
+     * A phase which didn't run has a negative duration.
+     */
+    @Value
+    @Builder
+    public static class ClientTimings {
+
+        long countNanos;
+
+        long count;
+
+        long firstBatchNanos;
+
+        int firstBatchSize;
+
+        long firstBatchBytes;
+
+        long decodeNanos;
+
+        long formatNanos;
+    }
+
+    private final GridBagConstraints constraints = new GridBagConstraints();
+
+    public QueryPlanPanel(BsonDocument explain, ClientTimings timings) {
+        super(new BorderLayout(0, 6));
+        final BsonDocument stats = explain.containsKey("executionStats") && explain.get("executionStats").isDocument()
+            ? explain.getDocument("executionStats")
+            : new BsonDocument();
+
+        final JPanel summaryPanel = new JPanel(new GridBagLayout());
+        constraints.anchor = GridBagConstraints.LINE_START;
+        constraints.insets = new Insets(2, 4, 2, 4);
+        addSection(summaryPanel, Bundle.LBL_queryPlanServer());
+        addRow(summaryPanel, Bundle.LBL_winningPlan(), describeWinningPlan(explain));
+        addRow(summaryPanel, Bundle.LBL_documentsReturned(), number(stats, "nReturned"));
+        addRow(summaryPanel, Bundle.LBL_keysExamined(), number(stats, "totalKeysExamined"));
+        addRow(summaryPanel, Bundle.LBL_documentsExamined(), number(stats, "totalDocsExamined"));
+        final String executionTime = number(stats, "executionTimeMillis");
+        addRow(summaryPanel, Bundle.LBL_serverExecutionTime(), stats.containsKey("executionTimeMillis")
+            ? Bundle.durationMillis(executionTime)
+            : executionTime);
+        addSection(summaryPanel, Bundle.LBL_queryPlanClient());
+        // a count exceeding its time budget is negative
+        addRow(summaryPanel, Bundle.LBL_countPhase(), timings.getCountNanos() >= 0
+            ? Bundle.countTiming(millis(timings.getCountNanos()), timings.getCount() >= 0 ? timings.getCount() : Bundle.unknownValue())
+            : Bundle.unknownValue());
+        addRow(summaryPanel, Bundle.LBL_firstBatchPhase(), timings.getFirstBatchNanos() >= 0
+            ? Bundle.firstBatchTiming(millis(timings.getFirstBatchNanos()), timings.getFirstBatchSize(), timings.getFirstBatchBytes())
+            : Bundle.unknownValue());
+        addRow(summaryPanel, Bundle.LBL_decodePhase(), duration(timings.getDecodeNanos()));
+        addRow(summaryPanel, Bundle.LBL_formatPhase(), duration(timings.getFormatNanos()));
+        add(summaryPanel, BorderLayout.PAGE_START);
+
+        final JEditorPane explainEditor = new JEditorPane();
+        JsonUIUtils.setJsonEditorKit(explainEditor);
+        explainEditor.setText(explain.toJson(Bsons.SHELL_PRETTY));
+        explainEditor.setEditable(false);
+        explainEditor.setCaretPosition(0);
+        final JPanel explainPanel = new JPanel(new BorderLayout());
+        explainPanel.add(new JLabel(Bundle.LBL_explainOutput()), BorderLayout.PAGE_START);
+        explainPanel.add(new JScrollPane(explainEditor), BorderLayout.CENTER);
+        add(explainPanel, BorderLayout.CENTER);
+
+        setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+        setPreferredSize(new Dimension(640, 560));
+    }
+
+    public static void show(BsonDocument explain, ClientTimings timings) {
+        final DialogDescriptor desc = new DialogDescriptor(new QueryPlanPanel(explain, timings), Bundle.TTL_queryPlan(), true, NotifyDescriptor.PLAIN_MESSAGE, NotifyDescriptor.OK_OPTION, null);
+        DialogDisplayer.getDefault().createDialog(desc).setVisible(true);
+    }
+
+    private void addSection(JPanel panel, String title) {
+        constraints.gridx = 0;
+        constraints.gridy++;
+        constraints.gridwidth = 2;
+        constraints.weightx = 1;
+        final JLabel label = new JLabel(title);
+        label.setFont(label.getFont().deriveFont(Font.BOLD));
+        panel.add(label, constraints);
+    }
+
+    private void addRow(JPanel panel, String name, String value) {
+        constraints.gridy++;
+        constraints.gridwidth = 1;
+        constraints.gridx = 0;
+        constraints.weightx = 0;
+        panel.add(new JLabel(name), constraints);
+        constraints.gridx = 1;
+        constraints.weightx = 1;
+        panel.add(new JLabel(value), constraints);
+    }
+
+    /**
+     * Describes the winning plan as its stages chain, from the root stage to
+     * the leaf one, the index scans showing the index used.
+     */
+    private static String describeWinningPlan(BsonDocument explain) {
+        BsonValue planner = explain.get("queryPlanner");
+        if (planner == null || planner.isDocument() == false) {
+            return Bundle.unknownValue();
+        }
+        BsonValue stage = planner.asDocument().get("winningPlan");
+        final StringBuilder description = new StringBuilder();
+        while (stage != null && stage.isDocument()) {
+            final BsonDocument stageDocument = stage.asDocument();
+            if (description.length() > 0) {
+                description.append(" \u2190 ");
+            }
+            description.append(stageDocument.containsKey("stage")
+                ? stageDocument.getString("stage").getValue()
+                : Bundle.unknownValue());
+            if (stageDocument.containsKey("indexName")) {
+                description.append(" (").append(stageDocument.getString("indexName").getValue()).append(')');
+            }
+            stage = stageDocument.get("inputStage");
+            if (stage == null && stageDocument.containsKey("inputStages")) {
+                // several input stages (OR): follow the first one
+                final BsonValue inputStages = stageDocument.get("inputStages");
+                stage = inputStages.isArray() && inputStages.asArray().isEmpty() == false
+                    ? inputStages.asArray().get(0)
+                    : null;
+            }
+        }
+        return description.length() > 0 ? description.toString() : Bundle.unknownValue();
+    }
+
+    private static String number(BsonDocument document, String key) {
+        final BsonValue value = document.get(key);
+        return value != null && value.isNumber()
+            ? String.valueOf(value.asNumber().longValue())
+            : Bundle.unknownValue();
+    }
+
+    private static String duration(long nanos) {
+        return nanos >= 0 ? Bundle.durationMillis(millis(nanos)) : Bundle.unknownValue();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -67,14 +67,56 @@ public final class SearchableTextComponent extends JPanel {
     @Getter
     private MessageDisplayer messagesDisplayer;
 
+    private final Searcher searcher;
+
+    /**
+     * Searches the text of the text component.
+     */
+    private final Searcher textSearcher = new Searcher() {
+
+        @Override
+        public void searchNext(String search, SearchCallback callback) {
+            int index = textComponent.getText().indexOf(search, lastSearchIndex);
+            if (index == -1 && lastSearchIndex > 0) {
+                lastSearchIndex = 0;
+                index = textComponent.getText().indexOf(search);
+            }
+            if (index > -1) {
+                textComponent.setCaretPosition(index);
+                textComponent.setSelectionStart(index);
+                lastSearchIndex = index + search.length();
+                textComponent.setSelectionEnd(lastSearchIndex);
+                callback.searchDone(true);
+            } else {
+                textComponent.setSelectionEnd(textComponent.getSelectionStart());
+                callback.searchDone(false);
+            }
+        }
+    };
+
     public SearchableTextComponent(final JTextComponent textComponent) {
         this(textComponent, MessageDisplayer.DUMMY);
     }
 
     public SearchableTextComponent(final JTextComponent textComponent, MessageDisplayer messagesDisplayer) {
+        this(textComponent, messagesDisplayer, null);
+    }
+
+    /**
+     * Creates a searchable text component which search is done by the
+     * specified searcher, for components displaying only a part of the
+     * searchable text.
+     *
+     * @param textComponent the text component
+     * @param messagesDisplayer the search messages displayer
+     * @param searcher the searcher, {@code null} to search the text of the
+     * text component
+     */
+    public SearchableTextComponent(final JTextComponent textComponent, MessageDisplayer messagesDisplayer, Searcher searcher) {
         super(new BorderLayout(0, 2));
         this.textComponent = textComponent;
         this.messagesDisplayer = messagesDisplayer;
+        this.searcher = searcher != null ? searcher : textSearcher;
         initComponent();
     }
 
@@ -126,21 +168,15 @@ public final class SearchableTextComponent extends JPanel {
                     return;
                 }
                 messagesDisplayer.clearMessage();
-                int index = textComponent.getText().indexOf(search, lastSearchIndex);
-                if (index == -1 && lastSearchIndex > 0) {
-                    lastSearchIndex = 0;
-                    index = textComponent.getText().indexOf(search);
-                }
-                if (index > -1) {
-                    textComponent.setCaretPosition(index);
-                    textComponent.setSelectionStart(index);
-                    lastSearchIndex = index + search.length();
-                    textComponent.setSelectionEnd(lastSearchIndex);
-                    messagesDisplayer.infoMessage(Bundle.HINT_nextResult());
-                } else {
-                    messagesDisplayer.infoMessage(Bundle.HINT_noResultFound());
-                    textComponent.setSelectionEnd(textComponent.getSelectionStart());
-                }
+                searcher.searchNext(search, new SearchCallback() {
+
+                    @Override
+                    public void searchDone(boolean found) {
+                        messagesDisplayer.infoMessage(found
+                            ? Bundle.HINT_nextResult()
+                            : Bundle.HINT_noResultFound());
+                    }
+                });
             }
         });
         searchField.getDocument().addDocumentListener(new DocumentListener() {
@@ -172,6 +208,27 @@ public final class SearchableTextComponent extends JPanel {
         messagesDisplayer.infoMessage(Bundle.HINT_search());
     }
 
+    /**
+     * Searches the text occurrences.
+     */
+    public static interface Searcher {
+
+        /**
+         * Searches the next occurrence of the specified text and selects it
+         * in the text component. The search may be asynchronous.
+         *
+         * @param search the searched text
+         * @param callback the callback to notify in the EDT when the search is
+         * done
+         */
+        void searchNext(String search, SearchCallback callback);
+    }
+
+    public static interface SearchCallback {
+
+        void searchDone(boolean found);
+    }
+
     public static interface MessageDisplayer {
 
         void infoMessage(String text);
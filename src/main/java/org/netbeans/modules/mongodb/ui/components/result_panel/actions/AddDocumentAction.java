@@ -27,6 +27,7 @@ import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.ui.util.BsonDocumentEditor;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.Task;
 import org.openide.util.TaskListener;
@@ -59,7 +60,7 @@ public final class AddDocumentAction extends QueryResultPanelAction {
                 Bundle.addDocumentTitle(),
                 null);
         if (document != null) {
-            Tasks.create(Bundle.TASK_addDocument(), new Runnable() {
+            Tasks.create(getResultPanel().getLookup(), Priority.INTERACTIVE, Bundle.TASK_addDocument(), new Runnable() {
 
                 @Override
                 public void run() {
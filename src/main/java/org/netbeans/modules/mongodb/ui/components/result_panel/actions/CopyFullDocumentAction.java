@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.components.result_panel.actions;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import static com.mongodb.client.model.Filters.eq;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
+import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Copies a document to the clipboard after loading it from the collection
+ * by its {@code _id}, for documents of the result only holding some fields.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "ACTION_copyFullDocument=Copy full document",
+    "TASK_loadFullDocument=loading full document"
+})
+public final class CopyFullDocumentAction extends QueryResultPanelAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BsonDocument document;
+
+    public CopyFullDocumentAction(CollectionResultPanel resultPanel, BsonDocument document) {
+        super(resultPanel, Bundle.ACTION_copyFullDocument());
+        this.document = document;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        final BsonValue id = document.get("_id");
+        if (id == null) {
+            return;
+        }
+        Tasks.create(getResultPanel().getLookup(), Priority.INTERACTIVE, Bundle.TASK_loadFullDocument(), new Runnable() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void run() {
+                try {
+                    final MongoCollection<BsonDocument> collection = getResultPanel().getLookup().lookup(MongoCollection.class);
+                    final BsonDocument fullDocument = collection.find(eq("_id", id)).limit(1).first();
+                    if (fullDocument == null) {
+                        DialogNotification.error("no document found with _id: " + id);
+                        return;
+                    }
+                    Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(fullDocument.toJson()), null);
+                } catch (MongoException ex) {
+                    DialogNotification.error(ex);
+                }
+            }
+        }).execute();
+    }
+}
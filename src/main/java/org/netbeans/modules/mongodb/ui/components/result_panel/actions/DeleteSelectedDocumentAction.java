@@ -27,6 +27,7 @@ import org.netbeans.modules.mongodb.resources.Images;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.Task;
 import org.openide.util.TaskListener;
@@ -56,7 +57,7 @@ public final class DeleteSelectedDocumentAction extends QueryResultPanelAction {
     @SuppressWarnings("unchecked")
     public void actionPerformed(ActionEvent e) {
         if (DialogNotification.confirm(Bundle.confirmDocumentDeletionText())) {
-            Tasks.create(Bundle.TASK_deleteDocument(), new Runnable() {
+            Tasks.create(getResultPanel().getLookup(), Priority.INTERACTIVE, Bundle.TASK_deleteDocument(), new Runnable() {
 
                 @Override
                 public void run() {
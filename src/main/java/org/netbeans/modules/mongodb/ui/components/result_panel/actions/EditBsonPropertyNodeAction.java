@@ -29,6 +29,7 @@ import org.netbeans.modules.mongodb.ui.util.BsonPropertyEditor;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable.BsonPropertyNode;
+import org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable.BsonValueNode;
 import org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable.RootNode;
 import org.netbeans.modules.mongodb.util.BsonProperty;
 import org.openide.util.NbBundle.Messages;
@@ -79,6 +80,7 @@ public final class EditBsonPropertyNodeAction extends QueryResultPanelAction {
         try {
             final MongoCollection<BsonDocument> collection = getResultPanel().getLookup().lookup(MongoCollection.class);
             collection.replaceOne(Filters.eq("_id", document.get("_id")), document);
+            getResultPanel().documentNodeEdited((BsonValueNode) parentNode);
 
         } catch (MongoException ex) {
             DialogNotification.error(ex);
@@ -78,6 +78,7 @@ public final class EditBsonValueNodeAction extends QueryResultPanelAction {
             MongoCollection<BsonDocument> collection = getResultPanel().getLookup().lookup(MongoCollection.class);
             BsonDocument document = (BsonDocument) parentNode.getUserObject();
             collection.replaceOne(eq("_id", document.get("_id")), document);
+            getResultPanel().documentNodeEdited((BsonValueNode) parentNode);
         } catch (MongoException ex) {
             DialogNotification.error(ex);
         }
@@ -22,6 +22,7 @@ import com.mongodb.client.MongoCollection;
 import static com.mongodb.client.model.Filters.eq;
 import java.awt.event.ActionEvent;
 import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
 import lombok.Getter;
 import lombok.Setter;
 import org.bson.BsonDocument;
@@ -33,6 +34,7 @@ import org.netbeans.modules.mongodb.ui.util.BsonDocumentEditor;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.util.BsonUtils;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.Task;
 import org.openide.util.TaskListener;
@@ -73,17 +75,41 @@ public class EditDocumentAction extends QueryResultPanelAction {
             // display error ?
             return;
         }
+        final BsonDocument editedDocument = document;
         final Bson idFilter = eq("_id", id);
-        BsonDocument fullDocument = (BsonDocument) getResultPanel().getLookup().lookup(MongoCollection.class).find(idFilter).limit(1).first();
-        if(fullDocument == null) {
-            DialogNotification.error("no document found with _id: " + id);
-            return;
-        }
+        Tasks.create(getResultPanel().getLookup(), Priority.INTERACTIVE, Bundle.TASK_loadFullDocument(), new Runnable() {
+
+            @Override
+            public void run() {
+                final BsonDocument fullDocument;
+                try {
+                    fullDocument = (BsonDocument) getResultPanel().getLookup().lookup(MongoCollection.class).find(idFilter).limit(1).first();
+                } catch (MongoException ex) {
+                    DialogNotification.error(ex);
+                    return;
+                }
+                if (fullDocument == null) {
+                    DialogNotification.error("no document found with _id: " + id);
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        edit(editedDocument, idFilter, fullDocument);
+                    }
+                });
+            }
+        }).execute();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void edit(final BsonDocument document, final Bson idFilter, BsonDocument fullDocument) {
         final BsonDocument modifiedDocument = BsonDocumentEditor.show(
             Bundle.editDocumentTitle(),
             getResultPanel().isDocumentsFieldsSorted() ? BsonUtils.sortDocumentFields(fullDocument) : fullDocument);
         if (modifiedDocument != null) {
-            Tasks.create(Bundle.TASK_updateDocument(), new Runnable() {
+            Tasks.create(getResultPanel().getLookup(), Priority.INTERACTIVE, Bundle.TASK_updateDocument(), new Runnable() {
 
                 @Override
                 public void run() {
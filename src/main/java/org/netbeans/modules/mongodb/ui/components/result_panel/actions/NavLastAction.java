@@ -46,7 +46,7 @@ public final class NavLastAction extends QueryResultPanelAction {
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        REQUEST_PROCESSOR.post(new Runnable() {
+        getResultPanel().postPagesOperation(new Runnable() {
 
             @Override
             public void run() {
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.components.result_panel.views;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Builds a view model snapshot out of the EDT then publishes it to Swing in
+ * steps, each step in its own EDT event so the UI stays responsive.
+ * <p>
+ * Rebuild requests arriving while a build is pending (rapid page flips) are
+ * coalesced into a single build. A build, or the publication of its steps,
+ * is dropped as soon as a newer rebuild is requested.
+ *
+ * @author Yann D'Isanto
+ * @param <T> the model snapshot type
+ */
+public abstract class BackgroundModelBuilder<T> {
+
+    private static final RequestProcessor REQUEST_PROCESSOR = new RequestProcessor(BackgroundModelBuilder.class.getName(), 2);
+
+    /**
+     * The delay within which rebuild requests are coalesced.
+     */
+    private static final int COALESCING_DELAY_MS = 50;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final RequestProcessor.Task task = REQUEST_PROCESSOR.create(new Runnable() {
+
+        @Override
+        public void run() {
+            buildAndPublish();
+        }
+    });
+
+    /**
+     * Requests a build of the model. Can be called from any thread.
+     */
+    public final void rebuild() {
+        generation.incrementAndGet();
+        task.schedule(COALESCING_DELAY_MS);
+    }
+
+    private void buildAndPublish() {
+        final long buildGeneration = generation.get();
+        final T model = build();
+        if (buildGeneration == generation.get()) {
+            SwingUtilities.invokeLater(new PublishStep(model, buildGeneration));
+        }
+    }
+
+    /**
+     * Builds the model snapshot. Called out of the EDT.
+     *
+     * @return the model snapshot
+     */
+    protected abstract T build();
+
+    /**
+     * Publishes a step of the model snapshot to the view. Called in the EDT.
+     *
+     * @param model the model snapshot
+     * @param step the step index, starting at 0
+     * @return {@code true} if there are more steps to publish
+     */
+    protected abstract boolean publish(T model, int step);
+
+    private final class PublishStep implements Runnable {
+
+        private final T model;
+
+        private final long buildGeneration;
+
+        private int step = 0;
+
+        public PublishStep(T model, long buildGeneration) {
+            this.model = model;
+            this.buildGeneration = buildGeneration;
+        }
+
+        @Override
+        public void run() {
+            if (buildGeneration != generation.get()) {
+                return;
+            }
+            if (publish(model, step++)) {
+                SwingUtilities.invokeLater(this);
+            }
+        }
+    }
+}
@@ -21,10 +21,8 @@ import java.awt.Component;
 import javax.swing.JTable;
 import javax.swing.table.DefaultTableCellRenderer;
 import org.bson.BsonValue;
-import org.netbeans.modules.mongodb.bson.Bsons;
 import org.netbeans.modules.mongodb.options.RenderingOptions.PrefsRenderingOptions;
 import org.netbeans.modules.mongodb.options.RenderingOptions.RenderingOptionsItem;
-import org.netbeans.modules.mongodb.util.BsonUtils;
 
 /**
  *
@@ -38,11 +36,8 @@ public final class BsonFlatTableCellRenderer extends DefaultTableCellRenderer {
     public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
         BsonValue bsonValue = (BsonValue) value;
         DocumentsFlatTableModel model = (DocumentsFlatTableModel) table.getModel();
-        if(bsonValue.isDocument() && model != null && model.isSortDocumentsFields()) {
-            bsonValue = BsonUtils.sortDocumentFields(bsonValue.asDocument());
-        }
-        
-        Component component = super.getTableCellRendererComponent(table, Bsons.shell(bsonValue), isSelected, hasFocus, row, column);
+        String text = bsonValue != null ? model.getCellText(bsonValue) : null;
+        Component component = super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
         setToolTipText(getText());
         if (value != null && isSelected == false) {
             RenderingOptionsItem rendering = PrefsRenderingOptions.INSTANCE.get(bsonValue.getBsonType());
@@ -17,9 +17,14 @@
  */
 package org.netbeans.modules.mongodb.ui.components.result_panel.views.flattable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import static java.util.Collections.emptyList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import javax.swing.SwingUtilities;
@@ -29,7 +34,10 @@ import lombok.Setter;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import org.netbeans.modules.mongodb.api.CollectionResultPages;
+import org.netbeans.modules.mongodb.bson.Bsons;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
+import org.netbeans.modules.mongodb.ui.components.result_panel.views.BackgroundModelBuilder;
+import org.netbeans.modules.mongodb.util.BsonUtils;
 
 /**
  *
@@ -39,53 +47,179 @@ public final class DocumentsFlatTableModel extends AbstractTableModel implements
     
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The number of rows added to the table per EDT event.
+     */
+    private static final int ROWS_PUBLISH_INCREMENT = 200;
+
+    /**
+     * The maximum number of characters displayed in a cell.
+     */
+    private static final int CELL_TEXT_MAX_LENGTH = 1000;
+
     @Getter
     private final CollectionResultPages pages;
 
-    private final List<String> columns = new LinkedList<>();
+    /**
+     * The displayed columns. Replaced, never modified, in the EDT.
+     */
+    private volatile List<String> columns = emptyList();
+
+    /**
+     * The documents displayed, i.e. the pages current items when the model
+     * was last built, decoded if they were raw documents.
+     */
+    private volatile List<BsonDocument> rows = emptyList();
+
+    /**
+     * All the rows of the last published snapshot, including the ones not
+     * published yet. Only accessed in the EDT.
+     */
+    private List<BsonDocument> snapshotRows = emptyList();
+
+    /**
+     * The columns the table is restricted to, {@code null} to display all
+     * the documents fields. Replaced, never modified.
+     */
+    @Getter
+    private volatile Set<String> displayedColumns;
 
     @Getter
     @Setter
     private boolean sortDocumentsFields;
 
+    private volatile boolean displayed;
+
+    /**
+     * Whether the page changed while the view wasn't displayed.
+     */
+    private volatile boolean stale;
+
+    /**
+     * The displayed texts of the cells values of the page, by value identity.
+     * Only accessed in the EDT.
+     */
+    private final Map<BsonValue, String> cellTexts = new IdentityHashMap<>();
+
+    private final BackgroundModelBuilder<Snapshot> modelBuilder = new BackgroundModelBuilder<Snapshot>() {
+
+        @Override
+        protected Snapshot build() {
+            return buildSnapshot();
+        }
+
+        @Override
+        protected boolean publish(Snapshot snapshot, int step) {
+            return publishSnapshot(snapshot, step);
+        }
+    };
+
     public DocumentsFlatTableModel(CollectionResultPages pages) {
         this.pages = pages;
         pages.addListener(this);
         buildModelFromCurrentPage();
     }
 
+    /**
+     * Restricts the table to the specified columns. Must be called in the
+     * EDT.
+     *
+     * @param displayedColumns the columns to display or {@code null} to
+     * display all the documents fields
+     */
+    public void setDisplayedColumns(Collection<String> displayedColumns) {
+        this.displayedColumns = displayedColumns != null
+            ? Collections.unmodifiableSet(new LinkedHashSet<>(displayedColumns))
+            : null;
+        if (this.displayedColumns != null) {
+            final List<String> restrictedColumns = new ArrayList<>(columns);
+            restrictedColumns.retainAll(this.displayedColumns);
+            columns = Collections.unmodifiableList(restrictedColumns);
+            fireTableStructureChanged();
+        }
+        buildModelFromCurrentPage();
+    }
+
     private void buildModelFromCurrentPage() {
+        stale = false;
+        modelBuilder.rebuild();
+    }
 
-        Set<String> updatedColumns = sortDocumentsFields ? new TreeSet<>(columns) : new LinkedHashSet<>(columns);
+    /**
+     * Computes the columns of the current page out of the EDT. The columns of
+     * the previous pages are kept. Raw documents are decoded once here as all
+     * their fields are displayed.
+     */
+    private Snapshot buildSnapshot() {
+        final List<BsonDocument> pageItems = new ArrayList<>(pages.getCurrentPageItems());
+        final List<String> currentColumns = columns;
+        final Set<String> restriction = displayedColumns;
+        Set<String> updatedColumns = sortDocumentsFields ? new TreeSet<>(currentColumns) : new LinkedHashSet<>(currentColumns);
         
         // update columns if necessary
         boolean columnsChanged = false;
-        if (pages != null) {
-            for (BsonDocument document : pages.getCurrentPageItems()) {
-                columnsChanged |= updatedColumns.addAll(document.keySet());
+        for (int i = 0; i < pageItems.size(); i++) {
+            final BsonDocument document = Bsons.mutable(pageItems.get(i));
+            pageItems.set(i, document);
+            for (String field : document.keySet()) {
+                if (restriction == null || restriction.contains(field)) {
+                    columnsChanged |= updatedColumns.add(field);
+                }
             }
         }
-        columns.clear();
-        columns.addAll(updatedColumns);
-        int idIndex = columns.indexOf("_id");
+        final List<String> newColumns = new ArrayList<>(updatedColumns);
+        int idIndex = newColumns.indexOf("_id");
         if (idIndex > 0) {
-            columns.remove(idIndex);
-            columns.add(0, "_id");
+            newColumns.remove(idIndex);
+            newColumns.add(0, "_id");
         }
+        return new Snapshot(
+            columnsChanged ? Collections.unmodifiableList(newColumns) : currentColumns,
+            columnsChanged,
+            pageItems);
+    }
 
-        final boolean tableStructureChanged = columnsChanged;
-        SwingUtilities.invokeLater(new Runnable() {
-
-            @Override
-            public void run() {
-                if (tableStructureChanged) {
-                    fireTableStructureChanged();
-                } else {
-                    fireTableDataChanged();
-                }
+    /**
+     * Publishes the columns with the first rows, then the remaining rows by
+     * increments of {@link #ROWS_PUBLISH_INCREMENT}.
+     */
+    private boolean publishSnapshot(Snapshot snapshot, int step) {
+        final int publishedCount = step * ROWS_PUBLISH_INCREMENT;
+        final int count = Math.min(publishedCount + ROWS_PUBLISH_INCREMENT, snapshot.rows.size());
+        rows = snapshot.rows.subList(0, count);
+        if (step == 0) {
+            snapshotRows = snapshot.rows;
+            cellTexts.clear();
+            columns = snapshot.columns;
+            if (snapshot.columnsChanged) {
+                fireTableStructureChanged();
+            } else {
+                fireTableDataChanged();
             }
-        });
+        } else {
+            fireTableRowsInserted(publishedCount, count - 1);
+        }
+        return count < snapshot.rows.size();
+    }
 
+    /**
+     * Returns the text displayed for the specified cell value, computed once
+     * per page. Must be called in the EDT.
+     *
+     * @param value a cell value
+     * @return the displayed text, truncated if too long
+     */
+    String getCellText(BsonValue value) {
+        String text = cellTexts.get(value);
+        if (text == null) {
+            if (value.isDocument() && sortDocumentsFields) {
+                text = Bsons.shell(BsonUtils.sortDocumentFields(value.asDocument()), CELL_TEXT_MAX_LENGTH);
+            } else {
+                text = Bsons.shell(value, CELL_TEXT_MAX_LENGTH);
+            }
+            cellTexts.put(value, text);
+        }
+        return text;
     }
 
     String getFieldName(int column) {
@@ -94,7 +228,7 @@ public final class DocumentsFlatTableModel extends AbstractTableModel implements
     
     @Override
     public int getColumnCount() {
-        return columns != null ? columns.size() : 0;
+        return columns.size();
     }
 
     @Override
@@ -109,7 +243,7 @@ public final class DocumentsFlatTableModel extends AbstractTableModel implements
 
     @Override
     public int getRowCount() {
-        return pages.getCurrentPageItems().size();
+        return rows.size();
     }
 
     @Override
@@ -130,17 +264,63 @@ public final class DocumentsFlatTableModel extends AbstractTableModel implements
         if (rowIndex == -1) {
             return null;
         }
-        return pages.getCurrentPageItems().get(rowIndex);
+        return rows.get(rowIndex);
     }
 
     @Override
     public void pageChanged(CollectionResultPages source, int pageIndex, List<BsonDocument> page) {
-        buildModelFromCurrentPage();
+        if (displayed) {
+            buildModelFromCurrentPage();
+        } else {
+            stale = true;
+        }
+    }
+
+    @Override
+    public void pageObjectUpdated(final int index, BsonDocument oldValue, final BsonDocument newValue) {
+        if (displayed) {
+            SwingUtilities.invokeLater(new Runnable() {
+
+                @Override
+                public void run() {
+                    cellTexts.clear();
+                    if (index < snapshotRows.size()) {
+                        snapshotRows.set(index, Bsons.mutable(newValue));
+                    }
+                    if (index < rows.size()) {
+                        fireTableRowsUpdated(index, index);
+                    }
+                }
+            });
+        } else {
+            stale = true;
+        }
     }
 
     @Override
-    public void pageObjectUpdated(int index, BsonDocument oldValue, BsonDocument newValue) {
-        fireTableRowsUpdated(index, index);
+    public void totalElementsCountChanged(CollectionResultPages source, long count) {
+    }
+
+    @Override
+    public void setDisplayed(boolean displayed) {
+        this.displayed = displayed;
+        if (displayed && stale) {
+            buildModelFromCurrentPage();
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final List<String> columns;
+
+        private final boolean columnsChanged;
+
+        private final List<BsonDocument> rows;
+
+        public Snapshot(List<String> columns, boolean columnsChanged, List<BsonDocument> rows) {
+            this.columns = columns;
+            this.columnsChanged = columnsChanged;
+            this.rows = rows;
+        }
     }
-    
 }
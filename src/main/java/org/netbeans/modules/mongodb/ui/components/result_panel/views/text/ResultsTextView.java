@@ -18,33 +18,66 @@
 package org.netbeans.modules.mongodb.ui.components.result_panel.views.text;
 
 import java.awt.BorderLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.JEditorPane;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.text.BadLocationException;
 import lombok.Getter;
 import lombok.Setter;
 import org.bson.BsonDocument;
 import org.netbeans.modules.mongodb.api.CollectionResultPages;
 import org.netbeans.modules.mongodb.bson.Bsons;
+import org.netbeans.modules.mongodb.bson.JsonEmitter;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.util.BsonUtils;
 import org.netbeans.modules.mongodb.ui.components.SearchableTextComponent;
+import org.netbeans.modules.mongodb.ui.components.result_panel.views.BackgroundModelBuilder;
 import org.netbeans.modules.mongodb.ui.util.JsonUIUtils;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Displays the documents of the current page as JSON text.
+ * <p>
+ * Only a window of consecutive documents is displayed at once. The window
+ * slides when the viewport gets near one of its ends. The documents are
+ * formatted out of the EDT and the formatted texts are cached per page, up
+ * to {@link #CACHE_MAX_LENGTH} characters. The search covers the whole page.
  *
  * @author Yann D'Isanto
  */
 public final class ResultsTextView extends JPanel implements CollectionResultPanel.View, CollectionResultPages.Listener, SearchableTextComponent.MessageDisplayer {
 
     private static final long serialVersionUID = 1L;
-    
+
+    private static final RequestProcessor SEARCH_REQUEST_PROCESSOR = new RequestProcessor(ResultsTextView.class.getName(), 1, true);
+
+    /**
+     * The length of the text displayed at once (the window ends with the
+     * first document reaching it).
+     */
+    private static final int WINDOW_MAX_LENGTH = 256 * 1024;
+
+    /**
+     * The maximum total length of the formatted documents kept in cache.
+     */
+    private static final int CACHE_MAX_LENGTH = 4 * 1024 * 1024;
+
     private final JEditorPane textComponent;
 
     private final JLabel messageLabel = new JLabel();
-    
+
     @Getter
     private final CollectionResultPages pages;
 
@@ -52,26 +85,129 @@ public final class ResultsTextView extends JPanel implements CollectionResultPan
     @Setter
     private boolean sortDocumentsFields;
 
+    private volatile boolean displayed;
+
+    /**
+     * Whether the page changed while the view wasn't displayed.
+     */
+    private volatile boolean stale;
+
+    /**
+     * The formatted documents of the current page.
+     */
+    private volatile PageTexts pageTexts;
+
+    /**
+     * The window to build.
+     */
+    private volatile WindowRequest windowRequest = WindowRequest.TOP;
+
+    /**
+     * The displayed window. Only accessed in the EDT.
+     */
+    private Window window = Window.EMPTY;
+
+    /**
+     * Whether a window is being built. Only accessed in the EDT.
+     */
+    private boolean windowRequested = false;
+
+    private RequestProcessor.Task searchTask;
+
+    private final BackgroundModelBuilder<Window> windowBuilder = new BackgroundModelBuilder<Window>() {
+
+        @Override
+        protected Window build() {
+            return buildWindow(windowRequest);
+        }
+
+        @Override
+        protected boolean publish(Window model, int step) {
+            if (step == 0) {
+                publishWindow(model);
+                return true;
+            }
+            // once the text is laid out
+            positionWindow(model);
+            return false;
+        }
+    };
+
+    private final SearchableTextComponent.Searcher searcher = new SearchableTextComponent.Searcher() {
+
+        @Override
+        public void searchNext(String search, SearchableTextComponent.SearchCallback callback) {
+            search(search, callback);
+        }
+    };
+
     public ResultsTextView(CollectionResultPages pages) {
         super(new BorderLayout(5, 5));
         textComponent = new JEditorPane();
         JsonUIUtils.setJsonEditorKit(textComponent);
         textComponent.setEditable(false);
         this.pages = pages;
-        add(new SearchableTextComponent(textComponent, this), BorderLayout.CENTER);
+        add(new SearchableTextComponent(textComponent, this, searcher), BorderLayout.CENTER);
         add(messageLabel, BorderLayout.SOUTH);
+        getViewport().addChangeListener(new ChangeListener() {
+
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                viewportChanged();
+            }
+        });
         pages.addListener(this);
         refreshTextComponent();
     }
 
+    private JViewport getViewport() {
+        return (JViewport) textComponent.getParent();
+    }
+
     @Override
     public void pageChanged(CollectionResultPages source, int pageIndex, List<BsonDocument> page) {
-        refreshTextComponent();
+        refreshIfDisplayed();
     }
 
     @Override
-    public void pageObjectUpdated(int index, BsonDocument oldValue, BsonDocument newValue) {
-        refreshTextComponent();
+    public void pageObjectUpdated(final int index, BsonDocument oldValue, BsonDocument newValue) {
+        final PageTexts texts = pageTexts;
+        if (texts != null) {
+            texts.invalidate(index);
+        }
+        if (displayed) {
+            SwingUtilities.invokeLater(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (window.isEmpty() == false) {
+                        requestWindow(currentRequest(window.start));
+                    }
+                }
+            });
+        } else {
+            stale = true;
+        }
+    }
+
+    @Override
+    public void totalElementsCountChanged(CollectionResultPages source, long count) {
+    }
+
+    @Override
+    public void setDisplayed(boolean displayed) {
+        this.displayed = displayed;
+        if (displayed && stale) {
+            refreshTextComponent();
+        }
+    }
+
+    private void refreshIfDisplayed() {
+        if (displayed) {
+            refreshTextComponent();
+        } else {
+            stale = true;
+        }
     }
 
     @Override
@@ -85,29 +221,357 @@ public final class ResultsTextView extends JPanel implements CollectionResultPan
         messageLabel.setVisible(false);
     }
 
-    
+
     private void refreshTextComponent() {
-        SwingUtilities.invokeLater(new Runnable() {
+        stale = false;
+        windowRequest = WindowRequest.TOP;
+        windowBuilder.rebuild();
+    }
+
+    private PageTexts getPageTexts(List<BsonDocument> documents) {
+        PageTexts texts = pageTexts;
+        if (texts == null || texts.documents != documents || texts.sortDocumentsFields != sortDocumentsFields) {
+            final long firstIndex = (pages.getPageIndex() - 1) * pages.getPageSize();
+            texts = new PageTexts(documents, firstIndex, sortDocumentsFields);
+            pageTexts = texts;
+        }
+        return texts;
+    }
+
+    /**
+     * Formats the requested window documents. Called out of the EDT.
+     */
+    private Window buildWindow(WindowRequest request) {
+        final PageTexts texts = getPageTexts(pages.getCurrentPageItems());
+        final int count = texts.documents.size();
+        final int start = Math.max(Math.min(request.start, count - 1), 0);
+        final StringBuilder text = new StringBuilder();
+        final List<Integer> offsets = new ArrayList<>();
+        int end = start;
+        while (end < count && (text.length() < WINDOW_MAX_LENGTH || end <= request.anchor)) {
+            offsets.add(text.length());
+            text.append(texts.get(end));
+            end++;
+        }
+        final int[] offsetsArray = new int[offsets.size()];
+        for (int i = 0; i < offsetsArray.length; i++) {
+            offsetsArray[i] = offsets.get(i);
+        }
+        return new Window(texts, start, end, offsetsArray, text.toString(), request);
+    }
+
+    private void publishWindow(Window newWindow) {
+        window = newWindow;
+        textComponent.setText(newWindow.text);
+    }
+
+    /**
+     * Scrolls the window so the anchor document is where it was in the
+     * previous window and applies the requested selection.
+     */
+    private void positionWindow(Window newWindow) {
+        final WindowRequest request = newWindow.request;
+        if (newWindow.isEmpty()) {
+            windowRequested = false;
+            return;
+        }
+        final int anchor = newWindow.contains(request.anchor) ? request.anchor : newWindow.start;
+        final int anchorOffset = newWindow.offsetOf(anchor);
+        if (request.selectionStart >= 0) {
+            final int selectionStart = anchorOffset + request.selectionStart;
+            textComponent.setCaretPosition(selectionStart);
+            textComponent.moveCaretPosition(selectionStart + request.selectionLength);
+        } else {
+            textComponent.setCaretPosition(anchorOffset);
+        }
+        try {
+            final Rectangle anchorBounds = textComponent.modelToView(anchorOffset);
+            if (anchorBounds != null) {
+                getViewport().setViewPosition(new Point(0, Math.max(anchorBounds.y + request.anchorDelta, 0)));
+            }
+        } catch (BadLocationException ex) {
+            // the text was replaced meanwhile
+        }
+        windowRequested = false;
+    }
+
+    private void requestWindow(WindowRequest request) {
+        windowRequested = true;
+        windowRequest = request;
+        windowBuilder.rebuild();
+    }
+
+    /**
+     * Returns a request of a window starting at the specified document and
+     * keeping the viewport at the same position.
+     */
+    private WindowRequest currentRequest(int start) {
+        final Rectangle visible = getViewport().getViewRect();
+        int anchor = window.documentAt(textComponent.viewToModel(visible.getLocation()));
+        int anchorDelta = 0;
+        if (anchor < start) {
+            anchor = start;
+        } else {
+            try {
+                final Rectangle anchorBounds = textComponent.modelToView(window.offsetOf(anchor));
+                anchorDelta = anchorBounds != null ? visible.y - anchorBounds.y : 0;
+            } catch (BadLocationException ex) {
+                anchorDelta = 0;
+            }
+        }
+        return new WindowRequest(start, anchor, anchorDelta, -1, 0);
+    }
+
+    /**
+     * Slides the window when the viewport is within one screen of one of its
+     * ends and there are more documents beyond.
+     */
+    private void viewportChanged() {
+        if (windowRequested || window.isEmpty()) {
+            return;
+        }
+        final Rectangle visible = getViewport().getViewRect();
+        final int margin = visible.height;
+        final int documentsCount = window.texts.documents.size();
+        if (window.end < documentsCount && visible.y + visible.height >= textComponent.getHeight() - margin) {
+            // keep about a quarter of the window above the visible documents
+            final int top = textComponent.viewToModel(visible.getLocation());
+            int start = window.documentAt(Math.max(top - WINDOW_MAX_LENGTH / 4, 0));
+            if (start <= window.start) {
+                start = window.start + 1;
+            }
+            requestWindow(currentRequest(start));
+        } else if (window.start > 0 && visible.y <= margin) {
+            final int averageLength = Math.max(window.text.length() / (window.end - window.start), 1);
+            final int start = Math.max(window.start - Math.max(WINDOW_MAX_LENGTH / 2 / averageLength, 1), 0);
+            requestWindow(currentRequest(start));
+        }
+    }
+
+    /**
+     * Searches the page documents from the caret, out of the EDT, then
+     * selects the found occurrence, sliding the window if needed.
+     */
+    private void search(final String search, final SearchableTextComponent.SearchCallback callback) {
+        final Window current = window;
+        if (current.isEmpty()) {
+            callback.searchDone(false);
+            return;
+        }
+        final int caret = textComponent.getSelectionEnd();
+        final int fromDocument = current.documentAt(caret);
+        final int fromOffset = caret - current.offsetOf(fromDocument);
+        if (searchTask != null) {
+            searchTask.cancel();
+        }
+        searchTask = SEARCH_REQUEST_PROCESSOR.post(new Runnable() {
 
             @Override
             public void run() {
-                long index = (pages.getPageIndex() - 1) * pages.getPageSize();
-                StringBuilder textBuilder = new StringBuilder();
-                for (BsonDocument document : pages.getCurrentPageItems()) {
-                    if (sortDocumentsFields) {
-                        document = BsonUtils.sortDocumentFields(document);
+                final PageTexts texts = current.texts;
+                final int count = texts.documents.size();
+                int foundDocument = -1;
+                int foundIndex = -1;
+                // ends with the beginning of the first searched document
+                for (int i = 0; i <= count && foundDocument == -1; i++) {
+                    if (Thread.interrupted()) {
+                        return;
+                    }
+                    final int document = (fromDocument + i) % count;
+                    final String text = texts.get(document);
+                    final int index = text.indexOf(search, i == 0 ? fromOffset : 0);
+                    if (index > -1 && (i < count || index < fromOffset)) {
+                        foundDocument = document;
+                        foundIndex = index;
                     }
-                    textBuilder
-                        .append("\n")
-                        .append("/* ").append(index++).append(" */")
-                        .append("\n")
-                        .append(document.toJson(Bsons.SHELL_PRETTY))
-                        .append("\n");
                 }
-                textComponent.setText(textBuilder.toString());
-                textComponent.setCaretPosition(0);
+                final int document = foundDocument;
+                final int index = foundIndex;
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (window.texts != current.texts) {
+                            // the page changed meanwhile
+                            return;
+                        }
+                        if (document == -1) {
+                            textComponent.setSelectionEnd(textComponent.getSelectionStart());
+                            callback.searchDone(false);
+                        } else {
+                            select(document, index, search.length());
+                            callback.searchDone(true);
+                        }
+                    }
+                });
             }
         });
     }
-    
+
+    private void select(int document, int index, int length) {
+        if (window.contains(document)) {
+            final int selectionStart = window.offsetOf(document) + index;
+            textComponent.setCaretPosition(selectionStart);
+            textComponent.moveCaretPosition(selectionStart + length);
+        } else {
+            requestWindow(new WindowRequest(document, document, 0, index, length));
+        }
+    }
+
+    /**
+     * The formatted documents of a page, the least recently used ones being
+     * dropped when they exceed {@link #CACHE_MAX_LENGTH} characters.
+     */
+    private static final class PageTexts {
+
+        private final List<BsonDocument> documents;
+
+        private final long firstIndex;
+
+        private final boolean sortDocumentsFields;
+
+        private final Map<Integer, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long cachedLength = 0;
+
+        public PageTexts(List<BsonDocument> documents, long firstIndex, boolean sortDocumentsFields) {
+            this.documents = documents;
+            this.firstIndex = firstIndex;
+            this.sortDocumentsFields = sortDocumentsFields;
+        }
+
+        public String get(int index) {
+            synchronized (this) {
+                final String text = cache.get(index);
+                if (text != null) {
+                    return text;
+                }
+            }
+            final String text = format(index);
+            synchronized (this) {
+                if (cache.put(index, text) == null) {
+                    cachedLength += text.length();
+                }
+                final Iterator<String> texts = cache.values().iterator();
+                while (cachedLength > CACHE_MAX_LENGTH && cache.size() > 1) {
+                    cachedLength -= texts.next().length();
+                    texts.remove();
+                }
+            }
+            return text;
+        }
+
+        public synchronized void invalidate(int index) {
+            final String text = cache.remove(index);
+            if (text != null) {
+                cachedLength -= text.length();
+            }
+        }
+
+        private String format(int index) {
+            BsonDocument document = documents.get(index);
+            if (sortDocumentsFields) {
+                document = BsonUtils.sortDocumentFields(document);
+            }
+            final StringBuilder text = new StringBuilder()
+                .append("\n")
+                .append("/* ").append(firstIndex + index).append(" */")
+                .append("\n");
+            return JsonEmitter.get().append(text, document, Bsons.SHELL_PRETTY)
+                .append("\n")
+                .toString();
+        }
+    }
+
+    private static final class WindowRequest {
+
+        private static final WindowRequest TOP = new WindowRequest(0, 0, 0, -1, 0);
+
+        /**
+         * The index of the first document of the window.
+         */
+        private final int start;
+
+        /**
+         * The index of the document to keep at the same place in the viewport.
+         */
+        private final int anchor;
+
+        /**
+         * The vertical distance between the viewport top and the anchor
+         * document top.
+         */
+        private final int anchorDelta;
+
+        /**
+         * The start of the text to select, relative to the anchor document
+         * text, or -1 for no selection.
+         */
+        private final int selectionStart;
+
+        private final int selectionLength;
+
+        public WindowRequest(int start, int anchor, int anchorDelta, int selectionStart, int selectionLength) {
+            this.start = start;
+            this.anchor = anchor;
+            this.anchorDelta = anchorDelta;
+            this.selectionStart = selectionStart;
+            this.selectionLength = selectionLength;
+        }
+    }
+
+    /**
+     * The text of consecutive documents of the page.
+     */
+    private static final class Window {
+
+        private static final Window EMPTY = new Window(null, 0, 0, new int[0], "", WindowRequest.TOP);
+
+        private final PageTexts texts;
+
+        private final int start;
+
+        private final int end;
+
+        /**
+         * The offsets of the documents in the text.
+         */
+        private final int[] offsets;
+
+        private final String text;
+
+        private final WindowRequest request;
+
+        public Window(PageTexts texts, int start, int end, int[] offsets, String text, WindowRequest request) {
+            this.texts = texts;
+            this.start = start;
+            this.end = end;
+            this.offsets = offsets;
+            this.text = text;
+            this.request = request;
+        }
+
+        public boolean isEmpty() {
+            return start == end;
+        }
+
+        public boolean contains(int document) {
+            return document >= start && document < end;
+        }
+
+        public int offsetOf(int document) {
+            return offsets[document - start];
+        }
+
+        /**
+         * Returns the index of the document at the specified text offset.
+         */
+        public int documentAt(int offset) {
+            int i = Arrays.binarySearch(offsets, offset);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return start + Math.max(i, 0);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2015 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable;
+
+import lombok.Getter;
+import org.bson.BsonArray;
+
+/**
+ * A range of the elements of a large array. Its value is the whole array so
+ * the actions on the elements nodes work the same as without chunks.
+ *
+ * @author Yann D'Isanto
+ */
+public class ArrayChunkNode extends BsonValueNode {
+
+    /**
+     * The index of the first element of the chunk in the array.
+     */
+    @Getter
+    private final int start;
+
+    /**
+     * The index after the last element of the chunk in the array.
+     */
+    @Getter
+    private final int end;
+
+    public ArrayChunkNode(BsonArray array, int start, int end, boolean sortDocumentsFields) {
+        super(array, sortDocumentsFields);
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void loadChildren() {
+        BsonArray array = getValue().asArray();
+        for (int i = start; i < end; i++) {
+            add(new BsonValueNode(array.get(i), isSortDocumentsFields()));
+        }
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+}
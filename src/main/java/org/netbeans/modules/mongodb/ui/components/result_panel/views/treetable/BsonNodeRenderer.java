@@ -49,6 +49,11 @@ import org.netbeans.modules.mongodb.options.RenderingOptions.RenderingOptionsIte
  */
 public class BsonNodeRenderer extends JPanel implements TreeCellRenderer {
 
+    /**
+     * The maximum number of characters displayed for a value.
+     */
+    private static final int VALUE_TEXT_MAX_LENGTH = 1000;
+
     final JLabel indexLabel = new JLabel();
 
     final JLabel keyLabel = new JLabel();
@@ -127,9 +132,13 @@ public class BsonNodeRenderer extends JPanel implements TreeCellRenderer {
         BsonValueNode bsonNode = (BsonValueNode) node;
         TreeTableNode parent = (TreeTableNode) bsonNode.getParent();
         boolean noIndex = true;
-        if (parent instanceof BsonValueNode && ((BsonValueNode) parent).getValue().isArray()) {
+        if (parent instanceof BsonValueNode && ((BsonValueNode) parent).getValue().isArray()
+                && (node instanceof ArrayChunkNode) == false) {
             int index = parent.getIndex((TreeNode) node);
             if (index > -1) {
+                if (parent instanceof ArrayChunkNode) {
+                    index += ((ArrayChunkNode) parent).getStart();
+                }
                 indexLabel.setText(String.format("%d -", index));
                 noIndex = false;
             }
@@ -150,28 +159,16 @@ public class BsonNodeRenderer extends JPanel implements TreeCellRenderer {
         RenderingOptionsItem keyRendering = renderingOptions.key();
         RenderingOptionsItem valueRendering = renderingOptions.get(value.getBsonType());
         if (value.isDocument() && parent instanceof RootNode) {
-            BsonDocument document = value.asDocument();
-            BsonValue id = document.get("_id");
-            if(id != null) {
-                valueLabel.setText(stringifyValue(id));
-            } else if(document.isEmpty()) {
-                valueLabel.setText("{ }");
-            } else {
-                Entry<String, BsonValue> field = document.entrySet().iterator().next();
-                valueLabel.setText(
-                        new StringBuilder(field.getKey())
-                                .append(":")
-                                .append(stringifyValue(field.getValue()))
-                                .toString()
-                );
-            }
             valueRendering = renderingOptions.documentRoot();
-        } else {
-            if (idNode) {
-                valueRendering = renderingOptions.documentId();
-            }
-            valueLabel.setText(stringifyValue(value));
+        } else if (idNode) {
+            valueRendering = renderingOptions.documentId();
+        }
+        String valueText = bsonNode.getDisplayText();
+        if (valueText == null) {
+            valueText = buildValueText(bsonNode);
+            bsonNode.setDisplayText(valueText);
         }
+        valueLabel.setText(valueText);
 
         keyLabel.setFont(keyRendering.getFont());
         valueLabel.setFont(valueRendering.getFont());
@@ -197,6 +194,30 @@ public class BsonNodeRenderer extends JPanel implements TreeCellRenderer {
         return this;
     }
 
+    private String buildValueText(BsonValueNode node) {
+        BsonValue value = node.getValue();
+        if (value.isDocument() && node.getParent() instanceof RootNode) {
+            BsonDocument document = value.asDocument();
+            BsonValue id = document.get("_id");
+            if(id != null) {
+                return stringifyValue(id);
+            } else if(document.isEmpty()) {
+                return "{ }";
+            } else {
+                Entry<String, BsonValue> field = document.entrySet().iterator().next();
+                return new StringBuilder(field.getKey())
+                        .append(":")
+                        .append(stringifyValue(field.getValue()))
+                        .toString();
+            }
+        }
+        if (node instanceof ArrayChunkNode) {
+            ArrayChunkNode chunkNode = (ArrayChunkNode) node;
+            return String.format("[%d..%d]", chunkNode.getStart(), chunkNode.getEnd() - 1);
+        }
+        return stringifyValue(value);
+    }
+
     private String buildJsonKey(Object value) {
         return new StringBuilder().append(value).append(":").toString();
     }
@@ -293,7 +314,7 @@ public class BsonNodeRenderer extends JPanel implements TreeCellRenderer {
 
         @Override
         public String stringify(BsonValue value) {
-            return Bsons.shell(value);
+            return Bsons.shell(value, VALUE_TEXT_MAX_LENGTH);
         }
     };
 
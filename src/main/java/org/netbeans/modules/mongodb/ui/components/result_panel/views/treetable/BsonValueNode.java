@@ -20,34 +20,72 @@ package org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import javax.swing.tree.TreeNode;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonType;
 import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
 import org.jdesktop.swingx.treetable.DefaultMutableTreeTableNode;
+import org.jdesktop.swingx.treetable.MutableTreeTableNode;
+import org.jdesktop.swingx.treetable.TreeTableNode;
+import org.netbeans.modules.mongodb.bson.Bsons;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 
 /**
+ * A tree table node of a BSON value. The children nodes are only created
+ * when first needed (typically when the node is expanded) and arrays larger
+ * than {@link #ARRAY_CHUNK_SIZE} are split into {@link ArrayChunkNode}s.
  *
  * @author Yann D'Isanto
  */
 public class BsonValueNode extends DefaultMutableTreeTableNode {
 
+    /**
+     * The maximum number of array elements shown directly under an array
+     * node.
+     */
+    public static final int ARRAY_CHUNK_SIZE = 1000;
+
     private final boolean sortDocumentsFields;
+
+    private boolean childrenLoaded = false;
+
+    /**
+     * The text displayed for the value, computed by the renderer on first
+     * paint.
+     */
+    private String displayText;
     
     public BsonValueNode(BsonValue value, boolean sortDocumentsFields) {
         super(value);
         this.sortDocumentsFields = sortDocumentsFields;
-        refreshChildren();
     }
 
-    private void refreshChildren() {
-        children.clear();
+    protected boolean isSortDocumentsFields() {
+        return sortDocumentsFields;
+    }
+
+    private void ensureChildrenLoaded() {
+        if (childrenLoaded == false) {
+            childrenLoaded = true;
+            loadChildren();
+        }
+    }
+
+    protected void loadChildren() {
         BsonValue value = getValue();
         if (value.isDocument()) {
             BsonDocument document = value.asDocument();
+            if (document instanceof RawBsonDocument) {
+                // all fields are needed: decode once, the node value can then
+                // be edited in place
+                document = Bsons.mutable(document);
+                super.setUserObject(document);
+            }
             // let's put _id as first child if it exists
             BsonValue _id = document.get("_id");
             if (_id != null) {
@@ -66,17 +104,80 @@ public class BsonValueNode extends DefaultMutableTreeTableNode {
             }
         } else if (value.isArray()) {
             BsonArray array = value.asArray();
-            for (BsonValue item : array) {
-                add(new BsonValueNode(item, sortDocumentsFields));
+            if (array.size() > ARRAY_CHUNK_SIZE) {
+                for (int start = 0; start < array.size(); start += ARRAY_CHUNK_SIZE) {
+                    int end = Math.min(start + ARRAY_CHUNK_SIZE, array.size());
+                    add(new ArrayChunkNode(array, start, end, sortDocumentsFields));
+                }
+            } else {
+                for (BsonValue item : array) {
+                    add(new BsonValueNode(item, sortDocumentsFields));
+                }
             }
         }
     }
 
+    @Override
+    public TreeTableNode getChildAt(int childIndex) {
+        ensureChildrenLoaded();
+        return super.getChildAt(childIndex);
+    }
+
+    @Override
+    public int getChildCount() {
+        ensureChildrenLoaded();
+        return super.getChildCount();
+    }
+
+    @Override
+    public int getIndex(TreeNode node) {
+        ensureChildrenLoaded();
+        return super.getIndex(node);
+    }
+
+    @Override
+    public Enumeration<? extends MutableTreeTableNode> children() {
+        ensureChildrenLoaded();
+        return super.children();
+    }
+
+    @Override
+    public void insert(MutableTreeTableNode child, int index) {
+        ensureChildrenLoaded();
+        super.insert(child, index);
+    }
+
+    /**
+     * Tells whether the value has no children without creating the children
+     * nodes.
+     */
+    @Override
+    public boolean isLeaf() {
+        BsonValue value = getValue();
+        if (value.isDocument()) {
+            return value.asDocument().isEmpty();
+        }
+        if (value.isArray()) {
+            return value.asArray().isEmpty();
+        }
+        return true;
+    }
+
+    String getDisplayText() {
+        return displayText;
+    }
+
+    void setDisplayText(String displayText) {
+        this.displayText = displayText;
+    }
+
     @Override
     public void setUserObject(Object object) {
         if (object instanceof BsonValue) {
             super.setUserObject(object);
-            refreshChildren();
+            children.clear();
+            childrenLoaded = false;
+            displayText = null;
         } else {
             throw new IllegalArgumentException("not a BsonValue object");
         }
@@ -17,8 +17,8 @@
  */
 package org.netbeans.modules.mongodb.ui.components.result_panel.views.treetable;
 
+import java.util.ArrayList;
 import java.util.List;
-import javax.swing.SwingUtilities;
 import javax.swing.tree.TreePath;
 import lombok.Getter;
 import lombok.Setter;
@@ -26,6 +26,7 @@ import org.bson.BsonDocument;
 import org.jdesktop.swingx.treetable.DefaultTreeTableModel;
 import org.netbeans.modules.mongodb.api.CollectionResultPages;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
+import org.netbeans.modules.mongodb.ui.components.result_panel.views.BackgroundModelBuilder;
 
 /**
  *
@@ -33,6 +34,11 @@ import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
  */
 public final class DocumentsTreeTableModel extends DefaultTreeTableModel implements CollectionResultPanel.View, CollectionResultPages.Listener {
 
+    /**
+     * The number of document nodes added to the tree per EDT event.
+     */
+    private static final int NODES_PUBLISH_INCREMENT = 100;
+
     @Getter
     private final CollectionResultPages pages;
     
@@ -40,6 +46,31 @@ public final class DocumentsTreeTableModel extends DefaultTreeTableModel impleme
     @Setter
     private boolean sortDocumentsFields;
 
+    private volatile boolean displayed;
+
+    /**
+     * Whether the page changed while the view wasn't displayed.
+     */
+    private volatile boolean stale;
+
+    private final BackgroundModelBuilder<List<BsonValueNode>> modelBuilder = new BackgroundModelBuilder<List<BsonValueNode>>() {
+
+        @Override
+        protected List<BsonValueNode> build() {
+            final List<BsonDocument> documents = pages.getCurrentPageItems();
+            final List<BsonValueNode> nodes = new ArrayList<>(documents.size());
+            for (BsonDocument document : documents) {
+                nodes.add(new BsonValueNode(document, sortDocumentsFields));
+            }
+            return nodes;
+        }
+
+        @Override
+        protected boolean publish(List<BsonValueNode> nodes, int step) {
+            return publishNodes(nodes, step);
+        }
+    };
+
     public DocumentsTreeTableModel(CollectionResultPages pages) {
         this.pages = pages;
         pages.addListener(this);
@@ -48,27 +79,74 @@ public final class DocumentsTreeTableModel extends DefaultTreeTableModel impleme
 
     @Override
     public void pageChanged(CollectionResultPages source, int pageIndex, List<BsonDocument> page) {
-        buildModelFromCurrentPage();
+        if (displayed) {
+            buildModelFromCurrentPage();
+        } else {
+            stale = true;
+        }
     }
 
     @Override
     public void pageObjectUpdated(int index, BsonDocument oldValue, BsonDocument newValue) {
-        documentUpdated(newValue, index);
+        if (displayed) {
+            documentUpdated(newValue, index);
+        } else {
+            stale = true;
+        }
+    }
+
+    @Override
+    public void totalElementsCountChanged(CollectionResultPages source, long count) {
+    }
+
+    @Override
+    public void setDisplayed(boolean displayed) {
+        this.displayed = displayed;
+        if (displayed && stale) {
+            buildModelFromCurrentPage();
+        }
     }
 
     private void buildModelFromCurrentPage() {
-        final RootNode rootNode = new RootNode(pages.getCurrentPageItems(), sortDocumentsFields);
-        SwingUtilities.invokeLater(new Runnable() {
+        stale = false;
+        modelBuilder.rebuild();
+    }
 
-            @Override
-            public void run() {
-                setRoot(rootNode);
+    /**
+     * Sets a new root with the first document nodes, then adds the remaining
+     * nodes by increments of {@link #NODES_PUBLISH_INCREMENT}.
+     */
+    private boolean publishNodes(List<BsonValueNode> nodes, int step) {
+        final int publishedCount = step * NODES_PUBLISH_INCREMENT;
+        final int count = Math.min(publishedCount + NODES_PUBLISH_INCREMENT, nodes.size());
+        if (step == 0) {
+            final RootNode rootNode = new RootNode();
+            for (BsonValueNode node : nodes.subList(0, count)) {
+                rootNode.add(node);
+            }
+            setRoot(rootNode);
+        } else {
+            final RootNode rootNode = (RootNode) getRoot();
+            final int[] indices = new int[count - publishedCount];
+            for (int i = publishedCount; i < count; i++) {
+                rootNode.add(nodes.get(i));
+                indices[i - publishedCount] = i;
             }
-        });
+            modelSupport.fireChildrenAdded(new TreePath(rootNode), indices, nodes.subList(publishedCount, count).toArray());
+        }
+        return count < nodes.size();
     }
 
     public void documentUpdated(BsonDocument document, int index) {
+        if (getRoot() == null || index >= getRoot().getChildCount()) {
+            // not published yet
+            return;
+        }
         BsonValueNode node = (BsonValueNode) getRoot().getChildAt(index);
+        if (node.getUserObject() == document) {
+            // the node value itself has been edited
+            return;
+        }
         setUserObject(node, document);
         TreePath path = new TreePath(getPathToRoot(node));
         modelSupport.fireTreeStructureChanged(path);
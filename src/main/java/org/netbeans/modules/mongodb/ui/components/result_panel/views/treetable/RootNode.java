@@ -27,6 +27,9 @@ import org.jdesktop.swingx.treetable.DefaultMutableTreeTableNode;
  */
 public class RootNode extends DefaultMutableTreeTableNode {
 
+    public RootNode() {
+    }
+
     public RootNode(Collection<BsonDocument> documents, boolean sortDocumentsFields) {
         for (BsonDocument document : documents) {
             add(new BsonValueNode(document, sortDocumentsFields));
@@ -23,6 +23,7 @@
  */
 package org.netbeans.modules.mongodb.ui.explorer;
 
+import org.netbeans.modules.mongodb.properties.LoadingProperty;
 import org.netbeans.modules.mongodb.properties.LocalizedProperties;
 import com.mongodb.BasicDBObject;
 import org.netbeans.modules.mongodb.resources.Images;
@@ -30,6 +31,7 @@ import com.mongodb.MongoException;
 import com.mongodb.MongoNamespace;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import org.netbeans.modules.mongodb.ui.windows.AggregationTopComponent;
 import org.netbeans.modules.mongodb.ui.windows.MapReduceTopComponent;
 import org.netbeans.modules.mongodb.ui.util.TopComponentUtils;
 import java.awt.event.ActionEvent;
@@ -40,16 +42,19 @@ import java.util.List;
 import java.util.Map;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import javax.swing.SwingUtilities;
 import lombok.AllArgsConstructor;
 import org.bson.BsonDocument;
-import org.bson.BsonString;
 import org.bson.Document;
 import org.netbeans.modules.mongodb.CollectionInfo;
-import org.netbeans.modules.mongodb.api.MongoErrorCode;
+import org.netbeans.modules.mongodb.DbInfo;
+import org.netbeans.modules.mongodb.MongoConnection;
+import org.netbeans.modules.mongodb.StatsCache;
 import org.netbeans.modules.mongodb.indexes.CreateIndexPanel;
 import org.netbeans.modules.mongodb.indexes.Index;
 import org.netbeans.modules.mongodb.native_tools.MongoNativeToolsAction;
 import org.netbeans.modules.mongodb.ui.actions.OpenMapReduceWindowAction;
+import org.netbeans.modules.mongodb.ui.actions.OpenAggregationWindowAction;
 import org.netbeans.modules.mongodb.ui.util.CollectionNameValidator;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.ui.windows.CollectionView;
@@ -57,6 +62,7 @@ import org.netbeans.modules.mongodb.ui.wizards.ExportWizardAction;
 import org.netbeans.modules.mongodb.ui.wizards.ImportWizardAction;
 import org.netbeans.modules.mongodb.util.SystemCollectionPredicate;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.actions.OpenAction;
 import org.openide.cookies.OpenCookie;
 import org.openide.nodes.AbstractNode;
@@ -99,6 +105,23 @@ final class CollectionNode extends AbstractNode {
 
     private final CollectionInfo collection;
 
+    /**
+     * Creates the sheet again once the statistics are loaded.
+     */
+    private final Runnable sheetRefresher = new Runnable() {
+
+        @Override
+        public void run() {
+            SwingUtilities.invokeLater(new Runnable() {
+
+                @Override
+                public void run() {
+                    setSheet(createSheet());
+                }
+            });
+        }
+    };
+
     CollectionNode(CollectionInfo connection) {
         this(connection, new InstanceContent());
     }
@@ -141,24 +164,35 @@ final class CollectionNode extends AbstractNode {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     protected Sheet createSheet() {
         Sheet sheet = Sheet.createDefault();
         Sheet.Set set = Sheet.createPropertiesSet();
-        MongoDatabase db = getLookup().lookup(MongoDatabase.class);
-        BsonDocument commandDocument = new BsonDocument("collStats", new BsonString(collection.getName()));
-        try {
-            Document result = db.runCommand(commandDocument);
-            set.put(new LocalizedProperties(CollectionNode.class).fromDocument(result).toArray());
+        Document stats = getStatsCache().getCollectionStats(getNamespace(), sheetRefresher);
+        if (stats == null) {
+            set.put(new LoadingProperty());
+            sheet.put(set);
+        } else if (stats.isEmpty() == false) {
+            set.put(new LocalizedProperties(CollectionNode.class).fromDocument(stats).toArray());
             sheet.put(set);
-        } catch (MongoException ex) {
-            if (MongoErrorCode.of(ex) != MongoErrorCode.Unauthorized) {
-                DialogNotification.error(ex);
-            }
         }
         return sheet;
     }
 
+    @Override
+    public PropertySet[] getPropertySets() {
+        // reloads the expired statistics
+        getStatsCache().getCollectionStats(getNamespace(), sheetRefresher);
+        return super.getPropertySets();
+    }
+
+    private StatsCache getStatsCache() {
+        return getLookup().lookup(MongoConnection.class).getStatsCache();
+    }
+
+    private MongoNamespace getNamespace() {
+        return new MongoNamespace(getLookup().lookup(DbInfo.class).getDbName(), collection.getName());
+    }
+
     @Override
     public Action[] getActions(boolean ignored) {
         final Map<String, Object> properties = new HashMap<>();
@@ -178,6 +212,7 @@ final class CollectionNode extends AbstractNode {
         actions.add(SystemAction.get(OpenAction.class));
         actions.add(new OpenCollectionInNewTabAction());
         actions.add(new OpenMapReduceWindowAction(getLookup()));
+        actions.add(new OpenAggregationWindowAction(getLookup()));
         actions.add(null);
         actions.add(new RefreshChildrenAction(Bundle.ACTION_RefreshIndexes(), childFactory));
         actions.add(new CreateIndexAction());
@@ -260,7 +295,7 @@ final class CollectionNode extends AbstractNode {
                 try {
                     getLookup().lookup(MongoCollection.class).drop();
                     ((DBNode) getParentNode()).refreshChildren();
-                    for (TopComponent topComponent : TopComponentUtils.findAll(ci, CollectionView.class, MapReduceTopComponent.class)) {
+                    for (TopComponent topComponent : TopComponentUtils.findAll(ci, CollectionView.class, MapReduceTopComponent.class, AggregationTopComponent.class)) {
                         topComponent.close();
                     }
                 } catch (MongoException ex) {
@@ -306,6 +341,12 @@ final class CollectionNode extends AbstractNode {
                             mapReduceComponent.updateCollectionLabel();
                         }
                     }
+                    for (AggregationTopComponent aggregationComponent : TopComponentUtils.findAll(AggregationTopComponent.class, collection)) {
+                        if (lookup != null) {
+                            aggregationComponent.setLookup(lookup);
+                            aggregationComponent.updateCollectionLabel();
+                        }
+                    }
                 }
             } catch (MongoException ex) {
                 DialogNotification.error(ex);
@@ -323,7 +364,7 @@ final class CollectionNode extends AbstractNode {
         public void actionPerformed(ActionEvent e) {
             final CollectionInfo ci = getLookup().lookup(CollectionInfo.class);
             if (DialogNotification.confirm(Bundle.clearCollectionConfirmText(ci.getName()))) {
-                Tasks.create(Bundle.TASK_clearCollection(ci.getName()), new Runnable() {
+                Tasks.create(getLookup(), Priority.EXPLORER, Bundle.TASK_clearCollection(ci.getName()), new Runnable() {
 
                     @Override
                     public void run() {
@@ -350,6 +391,8 @@ final class CollectionNode extends AbstractNode {
             index = CreateIndexPanel.showDialog(index);
             if (index != null) {
                 Tasks.create(
+                        getLookup(),
+                        Priority.EXPLORER,
                         Bundle.TASK_createIndex(index.getName()), 
                         new IndexCreation(index)
                 ).execute();
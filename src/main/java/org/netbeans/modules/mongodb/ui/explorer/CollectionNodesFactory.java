@@ -24,8 +24,9 @@
 package org.netbeans.modules.mongodb.ui.explorer;
 
 import com.mongodb.MongoSocketException;
-import com.mongodb.client.MongoDatabase;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import org.netbeans.modules.mongodb.CollectionInfo;
 import org.netbeans.modules.mongodb.DbInfo;
@@ -33,31 +34,82 @@ import org.netbeans.modules.mongodb.MongoConnection;
 import org.openide.util.Lookup;
 
 /**
+ * Creates the collection nodes of a database. The first time the nodes are
+ * created, they are added by pages so that the first collections of a very
+ * large database are displayed without waiting for all the nodes.
+ *
  * @author Tim Boudreau
  * @author Yann D'Isanto
  */
 class CollectionNodesFactory extends RefreshableChildFactory<CollectionInfo> {
 
+    private static final int PAGE_SIZE = 200;
+
     private final Lookup lookup;
 
+    /**
+     * The keys remaining to add while paging. The list given to the keys
+     * creation accumulates the pages and is empty for the first one.
+     */
+    private Iterator<CollectionInfo> pendingKeys;
+
+    /**
+     * Whether the keys were created since the node has been expanded. The
+     * later keys creations replace all the keys at once, so that the nodes of
+     * the unchanged keys are kept.
+     */
+    private volatile boolean populated = false;
+
     public CollectionNodesFactory(Lookup lookup) {
         this.lookup = lookup;
     }
 
     @Override
     protected boolean createKeys(final List<CollectionInfo> list) {
-        MongoConnection connection = lookup.lookup(MongoConnection.class);
-        DbInfo info = lookup.lookup(DbInfo.class);
+        if (list.isEmpty() || pendingKeys == null) {
+            final List<CollectionInfo> keys = loadKeys();
+            if (populated) {
+                list.addAll(keys);
+                return true;
+            }
+            pendingKeys = keys.iterator();
+        }
+        for (int i = 0; i < PAGE_SIZE && pendingKeys.hasNext(); i++) {
+            list.add(pendingKeys.next());
+        }
+        if (pendingKeys.hasNext()) {
+            return false;
+        }
+        pendingKeys = null;
+        populated = true;
+        return true;
+    }
+
+    private List<CollectionInfo> loadKeys() {
+        final MongoConnection connection = lookup.lookup(MongoConnection.class);
+        final DbInfo info = lookup.lookup(DbInfo.class);
+        final List<CollectionInfo> keys = new ArrayList<>();
         try {
-            final MongoDatabase db = connection.getClient().getDatabase(info.getDbName());
-            for (String name : db.listCollectionNames()) {
-                list.add(new CollectionInfo(name, lookup));
+            for (String name : connection.getMetadataCache().getCollectionNames(info.getDbName(), keysRefresher())) {
+                keys.add(new CollectionInfo(name, lookup));
             }
         } catch (MongoSocketException ex) {
-            lookup.lookup(MongoConnection.class).disconnect();
+            connection.disconnect();
         }
-        Collections.sort(list);
-        return true;
+        Collections.sort(keys);
+        return keys;
+    }
+
+    @Override
+    protected void invalidate() {
+        final DbInfo info = lookup.lookup(DbInfo.class);
+        lookup.lookup(MongoConnection.class).getMetadataCache().invalidateCollections(info.getDbName());
+    }
+
+    @Override
+    protected void removeNotify() {
+        populated = false;
+        super.removeNotify();
     }
 
     @Override
@@ -25,12 +25,15 @@ package org.netbeans.modules.mongodb.ui.explorer;
 
 import org.netbeans.modules.mongodb.properties.ConnectionNameProperty;
 import org.netbeans.modules.mongodb.properties.MongoClientURIProperty;
+import org.netbeans.modules.mongodb.properties.ServerHealthProperty;
 import org.netbeans.modules.mongodb.resources.Images;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.CreateCollectionOptions;
+import org.netbeans.modules.mongodb.ui.windows.AggregationTopComponent;
+import org.netbeans.modules.mongodb.ui.windows.ServerMetricsTopComponent;
 import org.netbeans.modules.mongodb.ui.windows.MapReduceTopComponent;
 import org.netbeans.modules.mongodb.ui.util.TopComponentUtils;
 import java.awt.Image;
@@ -42,15 +45,18 @@ import java.util.LinkedList;
 import java.util.List;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import javax.swing.SwingUtilities;
 import org.netbeans.modules.mongodb.api.connections.ConnectionInfo;
 import org.netbeans.modules.mongodb.MongoConnection;
 import org.netbeans.modules.mongodb.MongoConnection.ConnectionState;
 import org.netbeans.modules.mongodb.native_tools.MongoNativeToolsAction;
+import org.netbeans.modules.mongodb.ui.actions.OpenServerMetricsWindowAction;
 import org.netbeans.modules.mongodb.properties.MongoClientURIPropertyEditor;
 import org.netbeans.modules.mongodb.ui.util.DatabaseNameValidator;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.ui.windows.CollectionView;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.nodes.AbstractNode;
 import org.openide.nodes.Children;
 import org.openide.nodes.PropertySupport;
@@ -89,6 +95,17 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
 
     private DBNodesFactory childFactory;
 
+    /**
+     * Updates the sheet once the server health is checked.
+     */
+    private final Runnable sheetRefresher = new Runnable() {
+
+        @Override
+        public void run() {
+            updateSheet();
+        }
+    };
+
     ConnectionNode(ConnectionInfo connection) {
         this(connection, new InstanceContent());
     }
@@ -116,9 +133,16 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
                 childFactory.refresh();
                 updateSheet();
                 if (newState == ConnectionState.DISCONNECTED) {
-                    for (TopComponent topComponent : TopComponentUtils.findAll(connection, CollectionView.class, MapReduceTopComponent.class)) {
-                        topComponent.close();
-                    }
+                    // the connection state changes are fired from the connection tasks
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            for (TopComponent topComponent : TopComponentUtils.findAll(connection, CollectionView.class, MapReduceTopComponent.class, AggregationTopComponent.class, ServerMetricsTopComponent.class)) {
+                                topComponent.close();
+                            }
+                        }
+                    });
                 }
             }
         });
@@ -154,10 +178,12 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
         final Action disconnectAction = new DisconnectAction();
         final Action createDatabaseAction = new CreateDatabaseAction();
         final Action refreshAction = new RefreshChildrenAction(childFactory);
+        final Action serverMetricsAction = new OpenServerMetricsWindowAction(getLookup());
         refreshAction.setEnabled(isConnected());
+        serverMetricsAction.setEnabled(isConnected());
         createDatabaseAction.setEnabled(isConnected());
-        connectAction.setEnabled(isConnected() == false);
-        disconnectAction.setEnabled(isConnected());
+        connectAction.setEnabled(connectionHandler.getConnectionState() == ConnectionState.DISCONNECTED);
+        disconnectAction.setEnabled(connectionHandler.getConnectionState() != ConnectionState.DISCONNECTED);
 
         final List<Action> actions = new LinkedList<>();
         actions.add(connectAction);
@@ -167,6 +193,7 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
         actions.add(refreshAction);
         actions.add(new DeleteAction());
         actions.add(null);
+        actions.add(serverMetricsAction);
         actions.add(new MongoNativeToolsAction(getLookup()));
         final Action[] orig = super.getActions(ignored);
         if (orig.length > 0) {
@@ -178,7 +205,7 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
 
     @Override
     public Action getPreferredAction() {
-        return isConnected() ? null : new ConnectAction();
+        return connectionHandler.getConnectionState() == ConnectionState.DISCONNECTED ? new ConnectAction() : null;
     }
 
     public void refreshChildren() {
@@ -197,6 +224,7 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
         set.put(new ConnectionNameProperty(getLookup()));
         if (isConnected()) {
             set.put(new MongoClientURIProperty(getLookup()));
+            set.put(new ServerHealthProperty(getLookup()));
         } else {
             final ConnectionInfo connection = getLookup().lookup(ConnectionInfo.class);
             try {
@@ -217,6 +245,15 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
         getSheet().put(buildSheetSet());
     }
 
+    @Override
+    public PropertySet[] getPropertySets() {
+        // pings the server again when the displayed health is stale
+        if (connectionHandler.isHealthExpired()) {
+            connectionHandler.checkHealth(sheetRefresher);
+        }
+        return super.getPropertySets();
+    }
+
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         switch (evt.getPropertyName()) {
@@ -309,7 +346,7 @@ class ConnectionNode extends AbstractNode implements PropertyChangeListener {
                     new DatabaseNameValidator(getLookup()));
             if (input != null) {
                 final String dbName = input.trim();
-                Tasks.create(Bundle.TASK_createDatabase(dbName), new Runnable() {
+                Tasks.create(getLookup(), Priority.EXPLORER, Bundle.TASK_createDatabase(dbName), new Runnable() {
 
                     @Override
                     public void run() {
@@ -23,11 +23,13 @@
  */
 package org.netbeans.modules.mongodb.ui.explorer;
 
+import org.netbeans.modules.mongodb.properties.LoadingProperty;
 import org.netbeans.modules.mongodb.properties.LocalizedProperties;
 import org.netbeans.modules.mongodb.resources.Images;
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.CreateCollectionOptions;
+import org.netbeans.modules.mongodb.ui.windows.AggregationTopComponent;
 import org.netbeans.modules.mongodb.ui.windows.MapReduceTopComponent;
 import java.awt.event.ActionEvent;
 import java.util.Arrays;
@@ -35,12 +37,11 @@ import java.util.LinkedList;
 import java.util.List;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
-import org.bson.BsonDocument;
-import org.bson.BsonInt32;
+import javax.swing.SwingUtilities;
 import org.bson.Document;
 import org.netbeans.modules.mongodb.DbInfo;
 import org.netbeans.modules.mongodb.MongoConnection;
-import org.netbeans.modules.mongodb.api.MongoErrorCode;
+import org.netbeans.modules.mongodb.StatsCache;
 import org.netbeans.modules.mongodb.native_tools.MongoNativeToolsAction;
 import org.netbeans.modules.mongodb.ui.util.CollectionNameValidator;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
@@ -49,6 +50,7 @@ import org.netbeans.modules.mongodb.ui.windows.CollectionView;
 import org.netbeans.modules.mongodb.ui.wizards.ExportWizardAction;
 import org.netbeans.modules.mongodb.ui.wizards.ImportWizardAction;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.nodes.AbstractNode;
 import org.openide.nodes.Children;
 import org.openide.nodes.Sheet;
@@ -85,6 +87,23 @@ final class DBNode extends AbstractNode {
 
     private final CollectionNodesFactory childFactory;
 
+    /**
+     * Creates the sheet again once the statistics are loaded.
+     */
+    private final Runnable sheetRefresher = new Runnable() {
+
+        @Override
+        public void run() {
+            SwingUtilities.invokeLater(new Runnable() {
+
+                @Override
+                public void run() {
+                    setSheet(createSheet());
+                }
+            });
+        }
+    };
+
     DBNode(DbInfo info) {
         this(info, new InstanceContent());
     }
@@ -114,20 +133,28 @@ final class DBNode extends AbstractNode {
     protected Sheet createSheet() {
         Sheet sheet = Sheet.createDefault();
         Sheet.Set set = Sheet.createPropertiesSet();
-        MongoDatabase db = getLookup().lookup(MongoDatabase.class);
-        BsonDocument commandDocument = new BsonDocument("dbStats", new BsonInt32(1)).append("scale", new BsonInt32(1));
-        try {
-            Document result = db.runCommand(commandDocument);
-            set.put(new LocalizedProperties(DBNode.class).fromDocument(result).toArray());
+        Document stats = getStatsCache().getDbStats(getName(), sheetRefresher);
+        if (stats == null) {
+            set.put(new LoadingProperty());
+            sheet.put(set);
+        } else if (stats.isEmpty() == false) {
+            set.put(new LocalizedProperties(DBNode.class).fromDocument(stats).toArray());
             sheet.put(set);
-        } catch (MongoException ex) {
-            if (MongoErrorCode.of(ex) != MongoErrorCode.Unauthorized) {
-                DialogNotification.error(ex);
-            }
         }
         return sheet;
     }
 
+    @Override
+    public PropertySet[] getPropertySets() {
+        // reloads the expired statistics
+        getStatsCache().getDbStats(getName(), sheetRefresher);
+        return super.getPropertySets();
+    }
+
+    private StatsCache getStatsCache() {
+        return getLookup().lookup(MongoConnection.class).getStatsCache();
+    }
+
     @Override
     public Action[] getActions(boolean ignored) {
         final List<Action> actions = new LinkedList<>();
@@ -196,7 +223,7 @@ final class DBNode extends AbstractNode {
                     new CollectionNameValidator(getLookup()));
             if (input != null) {
                 final String collectionName = input.trim();
-                Tasks.create(Bundle.TASK_addCollection(collectionName), new Runnable() {
+                Tasks.create(getLookup(), Priority.EXPLORER, Bundle.TASK_addCollection(collectionName), new Runnable() {
 
                     @Override
                     public void run() {
@@ -229,7 +256,7 @@ final class DBNode extends AbstractNode {
         public void actionPerformed(ActionEvent e) {
             final MongoDatabase db = getLookup().lookup(MongoDatabase.class);
             if (DialogNotification.confirm(Bundle.dropDatabaseConfirmText(db.getName()))) {
-                Tasks.create(Bundle.TASK_dropDatabase(db.getName()), new Runnable() {
+                Tasks.create(getLookup(), Priority.EXPLORER, Bundle.TASK_dropDatabase(db.getName()), new Runnable() {
 
                     @Override
                     public void run() {
@@ -245,7 +272,7 @@ final class DBNode extends AbstractNode {
                     public void taskFinished(Task task) {
                         ((ConnectionNode) getParentNode()).refreshChildren();
                         DbInfo dbInfo = getLookup().lookup(DbInfo.class);
-                        for (TopComponent topComponent : TopComponentUtils.findAll(dbInfo, CollectionView.class, MapReduceTopComponent.class)) {
+                        for (TopComponent topComponent : TopComponentUtils.findAll(dbInfo, CollectionView.class, MapReduceTopComponent.class, AggregationTopComponent.class)) {
                             topComponent.close();
                         }
                     }
@@ -23,7 +23,6 @@
  */
 package org.netbeans.modules.mongodb.ui.explorer;
 
-import com.mongodb.MongoClient;
 import com.mongodb.MongoSocketException;
 import java.util.Collections;
 import java.util.List;
@@ -49,12 +48,11 @@ final class DBNodesFactory extends RefreshableChildFactory<DbInfo> {
         MongoConnection connection = lookup.lookup(MongoConnection.class);
         try {
             if (connection.isConnected()) {
-                MongoClient mongo = connection.getClient();
                 final String connectionDBName = connectionInfo.getMongoURI().getDatabase();
                 if (connectionDBName != null) {
                     list.add(new DbInfo(connectionDBName, lookup));
                 } else {
-                    for (String dbName : mongo.listDatabaseNames()) {
+                    for (String dbName : connection.getMetadataCache().getDatabaseNames(keysRefresher())) {
                         list.add(new DbInfo(dbName, lookup));
                     }
                 }
@@ -66,6 +64,11 @@ final class DBNodesFactory extends RefreshableChildFactory<DbInfo> {
         return true;
     }
 
+    @Override
+    protected void invalidate() {
+        lookup.lookup(MongoConnection.class).getMetadataCache().invalidateDatabases();
+    }
+
     @Override
     protected DBNode createNodeForKey(DbInfo key) {
         return new DBNode(key);
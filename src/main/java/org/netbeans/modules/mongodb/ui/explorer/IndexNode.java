@@ -32,6 +32,7 @@ import org.netbeans.modules.mongodb.indexes.Index;
 import org.netbeans.modules.mongodb.resources.Images;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
 import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.nodes.AbstractNode;
 import org.openide.nodes.Children;
 import org.openide.nodes.Sheet;
@@ -183,7 +184,7 @@ class IndexNode extends AbstractNode {
         public void actionPerformed(ActionEvent e) {
             final MongoCollection<Document> collection = getLookup().lookup(MongoCollection.class);
             if (DialogNotification.confirm(Bundle.dropIndexConfirmText(index.getName()))) {
-                Tasks.create(Bundle.TASK_dropIndex(index.getName()), new Runnable() {
+                Tasks.create(getLookup(), Priority.EXPLORER, Bundle.TASK_dropIndex(index.getName()), new Runnable() {
 
                     @Override
                     public void run() {
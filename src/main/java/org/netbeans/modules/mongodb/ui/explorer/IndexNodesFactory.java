@@ -24,6 +24,8 @@ import java.util.List;
 import lombok.AllArgsConstructor;
 import org.bson.BsonDocument;
 import org.bson.Document;
+import org.netbeans.modules.mongodb.MetadataCache;
+import org.netbeans.modules.mongodb.MongoConnection;
 import org.netbeans.modules.mongodb.indexes.Index;
 import org.netbeans.modules.mongodb.indexes.IndexComparator;
 import org.openide.util.Lookup;
@@ -41,8 +43,9 @@ class IndexNodesFactory extends RefreshableChildFactory<Index> {
     @SuppressWarnings("unchecked")
     protected boolean createKeys(List<Index> list) {
         MongoCollection<BsonDocument> collection = lookup.lookup(MongoCollection.class);
+        MetadataCache cache = lookup.lookup(MongoConnection.class).getMetadataCache();
         List<Index> indexes = new ArrayList<>();
-        for (Document indexObj : collection.listIndexes()) {
+        for (Document indexObj : cache.getIndexes(collection.getNamespace(), keysRefresher())) {
             Index index = Index.fromJson(indexObj);
             indexes.add(index);
         }
@@ -51,6 +54,13 @@ class IndexNodesFactory extends RefreshableChildFactory<Index> {
         return true;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void invalidate() {
+        MongoCollection<BsonDocument> collection = lookup.lookup(MongoCollection.class);
+        lookup.lookup(MongoConnection.class).getMetadataCache().invalidateIndexes(collection.getNamespace());
+    }
+
     @Override
     protected IndexNode createNodeForKey(Index index) {
         return new IndexNode(index, lookup);
@@ -26,7 +26,19 @@ import org.openide.nodes.ChildFactory;
  */
 abstract class RefreshableChildFactory<T> extends ChildFactory.Detachable<T> {
     
+    /**
+     * Creates the keys again, reading them from the server.
+     */
     public final void refresh() {
+        invalidate();
+        refreshKeys();
+    }
+
+    /**
+     * Creates the keys again, reading them from the cache if any. The nodes
+     * of the keys which didn't change are kept.
+     */
+    final void refreshKeys() {
         if(SwingUtilities.isEventDispatchThread()) {
             refresh(false);
         } else {
@@ -39,4 +51,23 @@ abstract class RefreshableChildFactory<T> extends ChildFactory.Detachable<T> {
             });
         }
     }
+
+    /**
+     * Invalidates the cached keys, if any, before a {@link #refresh()}.
+     */
+    protected void invalidate() {
+    }
+
+    /**
+     * Returns a callback which {@link #refreshKeys() refreshes the keys}.
+     */
+    final Runnable keysRefresher() {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                refreshKeys();
+            }
+        };
+    }
 }
@@ -47,7 +47,14 @@ public final class DialogNotification {
     }
     
     public static String validatingInput(String text, String title, InputValidator validator) {
+        return validatingInput(text, title, null, validator);
+    }
+
+    public static String validatingInput(String text, String title, String initialValue, InputValidator validator) {
         InputLine input = new ValidatingInputLine(text, title, validator);
+        if (initialValue != null) {
+            input.setInputText(initialValue);
+        }
         if(notify(input) == NotifyDescriptor.OK_OPTION) {
             return input.getInputText();
         }
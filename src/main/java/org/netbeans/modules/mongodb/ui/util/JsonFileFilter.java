@@ -19,18 +19,27 @@ package org.netbeans.modules.mongodb.ui.util;
 
 import java.io.File;
 import javax.swing.filechooser.FileFilter;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.openide.util.NbBundle.Messages;
 
 /**
  *
  * @author Yann D'Isanto
  */
-@Messages({"jsonFileFilter=JSON files (*.json)"})
+@Messages({"jsonFileFilter=JSON and BSON files (*.json, *.json.gz, *.bson, *.bson.gz)"})
 public final class JsonFileFilter extends FileFilter {
 
     @Override
     public boolean accept(File f) {
-        return f.isDirectory() || f.getName().endsWith(".json");
+        if (f.isDirectory()) {
+            return true;
+        }
+        for (DataFormat format : DataFormat.values()) {
+            if (f.getName().endsWith(format.getExtension())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
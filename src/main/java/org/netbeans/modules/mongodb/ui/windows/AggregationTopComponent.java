@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractAction;
+import javax.swing.ImageIcon;
+import javax.swing.JCheckBox;
+import javax.swing.JEditorPane;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JSplitPane;
+import javax.swing.JToolBar;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import lombok.Getter;
+import lombok.Setter;
+import org.bson.BsonDocument;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.netbeans.modules.mongodb.api.AggregateResult;
+import org.netbeans.modules.mongodb.api.CollectionResult;
+import org.netbeans.modules.mongodb.resources.Images;
+import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
+import org.netbeans.modules.mongodb.ui.util.BsonDocumentEditor;
+import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.ui.util.JsonUIUtils;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+import org.openide.windows.Mode;
+import org.openide.windows.TopComponent;
+import org.openide.windows.WindowManager;
+
+/**
+ * Top component which displays an editor to enter an aggregation pipeline and
+ * a result panel paging through the aggregation output.
+ *
+ * @author Yann D'Isanto
+ */
+@TopComponent.Description(
+        preferredID = "AggregationTopComponent",
+        persistenceType = TopComponent.PERSISTENCE_NEVER)
+@TopComponent.Registration(mode = "editor", openAtStartup = false)
+@Messages({
+    "CTL_AggregationTopComponent=Aggregation Window",
+    "HINT_AggregationTopComponent=This is an Aggregation window",
+    "# {0} - aggregation top component id",
+    "AggregationTopComponent_title=MongoDB Aggregation {0}",
+    "LBL_aggregationPipeline=Pipeline (array of stages):",
+    "LBL_aggregationAllowDiskUse=allow disk use",
+    "LBL_aggregationBatchSize=batch size:",
+    "LBL_aggregationMaxTimeMS=max time (ms):",
+    "ACTION_runAggregation=Run aggregation",
+    "ACTION_explainAggregation=Explain aggregation",
+    "TASK_runAggregation=running aggregation",
+    "TASK_explainAggregation=explaining aggregation",
+    "aggregationExplainTitle=Aggregation explain",
+    "aggregationInvalidPipeline=The pipeline must be an array of stage documents"
+})
+public final class AggregationTopComponent extends TopComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String DEFAULT_PIPELINE = "[\n    { \"$match\": { } }\n]";
+
+    @Getter
+    private final CollectionResultPanel resultPanel;
+
+    @Getter
+    @Setter
+    private Lookup lookup;
+
+    private final JLabel lblCollection = new JLabel();
+
+    private final JEditorPane epPipeline = new JEditorPane();
+
+    private final JCheckBox chkAllowDiskUse = new JCheckBox(Bundle.LBL_aggregationAllowDiskUse());
+
+    private final JSpinner spnBatchSize = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 100));
+
+    private final JSpinner spnMaxTimeMS = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1000));
+
+    public AggregationTopComponent(Lookup lookup) {
+        super();
+        setLookup(lookup);
+        setName(Bundle.CTL_AggregationTopComponent());
+        setToolTipText(Bundle.HINT_AggregationTopComponent());
+        resultPanel = new CollectionResultPanel(lookup, true);
+        initComponents();
+    }
+
+    @SuppressWarnings("unchecked")
+    public MongoCollection<BsonDocument> getCollection() {
+        return getLookup().lookup(MongoCollection.class);
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout());
+
+        final JToolBar toolBar = new JToolBar();
+        toolBar.setRollover(true);
+        toolBar.setFloatable(false);
+        toolBar.add(lblCollection);
+        toolBar.addSeparator();
+        toolBar.add(new AbstractAction(null, new ImageIcon(getClass().getResource("/org/netbeans/modules/mongodb/images/media-playback-start.png"))) {
+
+            private static final long serialVersionUID = 1L;
+
+            {
+                putValue(SHORT_DESCRIPTION, Bundle.ACTION_runAggregation());
+            }
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                runAggregation();
+            }
+        });
+        toolBar.add(new AbstractAction(null, new ImageIcon(Images.MAP_MAGNIFY_ICON)) {
+
+            private static final long serialVersionUID = 1L;
+
+            {
+                putValue(SHORT_DESCRIPTION, Bundle.ACTION_explainAggregation());
+            }
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                explainAggregation();
+            }
+        });
+        toolBar.addSeparator();
+        toolBar.add(chkAllowDiskUse);
+        toolBar.addSeparator();
+        toolBar.add(new JLabel(Bundle.LBL_aggregationBatchSize()));
+        toolBar.add(spnBatchSize);
+        toolBar.addSeparator();
+        toolBar.add(new JLabel(Bundle.LBL_aggregationMaxTimeMS()));
+        toolBar.add(spnMaxTimeMS);
+        add(toolBar, BorderLayout.PAGE_START);
+
+        JsonUIUtils.setJsonEditorKit(epPipeline);
+        epPipeline.setText(DEFAULT_PIPELINE);
+        final JPanel pnlPipeline = new JPanel(new BorderLayout());
+        pnlPipeline.add(new JLabel(Bundle.LBL_aggregationPipeline()), BorderLayout.PAGE_START);
+        pnlPipeline.add(new JScrollPane(epPipeline), BorderLayout.CENTER);
+
+        final JSplitPane spltInputOutput = new JSplitPane(JSplitPane.VERTICAL_SPLIT, pnlPipeline, resultPanel);
+        spltInputOutput.setDividerLocation(150);
+        add(spltInputOutput, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void componentOpened() {
+        initWindowName();
+        updateCollectionLabel();
+    }
+
+    @Override
+    public void componentClosed() {
+        // releases the aggregation cursor and its spill file
+        resultPanel.setResult(CollectionResult.EMPTY);
+    }
+
+    public void updateCollectionLabel() {
+        lblCollection.setText(getCollection().getNamespace().getFullName());
+    }
+
+    private void initWindowName() {
+        Mode editorMode = WindowManager.getDefault().findMode("editor");
+        TopComponent[] openedTopComponents = WindowManager.getDefault().getOpenedTopComponents(editorMode);
+        String name = "";
+        int counter = 0;
+        boolean found = true;
+        while (found) {
+            found = false;
+            name = Bundle.AggregationTopComponent_title(++counter);
+            for (TopComponent tc : openedTopComponents) {
+                if (name.equals(tc.getName())) {
+                    found = true;
+                    break;
+                }
+            }
+        }
+        setName(name);
+    }
+
+    /**
+     * Creates the aggregation from the editor content and options.
+     *
+     * @return the aggregation or {@code null} if the pipeline is invalid
+     */
+    private AggregateResult createAggregation() {
+        final List<BsonDocument> pipeline = new ArrayList<>();
+        try {
+            for (BsonValue stage : BsonDocument.parse("{ \"pipeline\": " + epPipeline.getText() + " }").getArray("pipeline")) {
+                if (stage.isDocument() == false) {
+                    DialogNotification.error(Bundle.aggregationInvalidPipeline());
+                    return null;
+                }
+                pipeline.add(stage.asDocument());
+            }
+        } catch (JsonParseException | BsonInvalidOperationException ex) {
+            DialogNotification.error(Bundle.aggregationInvalidPipeline());
+            return null;
+        }
+        final AggregateResult aggregation = new AggregateResult(getCollection(), pipeline);
+        aggregation.setAllowDiskUse(chkAllowDiskUse.isSelected());
+        aggregation.setBatchSize((Integer) spnBatchSize.getValue());
+        aggregation.setMaxTimeMS((Integer) spnMaxTimeMS.getValue());
+        return aggregation;
+    }
+
+    private void runAggregation() {
+        final AggregateResult aggregation = createAggregation();
+        if (aggregation == null) {
+            return;
+        }
+        Tasks.create(getLookup(), Priority.INTERACTIVE, Bundle.TASK_runAggregation(), new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    aggregation.execute();
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            resultPanel.setResult(aggregation);
+                        }
+                    });
+                } catch (MongoException ex) {
+                    aggregation.close();
+                    DialogNotification.error(ex);
+                }
+            }
+        }).execute();
+    }
+
+    private void explainAggregation() {
+        final AggregateResult aggregation = createAggregation();
+        final MongoDatabase database = getLookup().lookup(MongoDatabase.class);
+        if (aggregation == null || database == null) {
+            return;
+        }
+        Tasks.create(getLookup(), Priority.INTERACTIVE, Bundle.TASK_explainAggregation(), new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    final BsonDocument explain = aggregation.explain(database);
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            BsonDocumentEditor.showReadOnly(Bundle.aggregationExplainTitle(), explain);
+                        }
+                    });
+                } catch (MongoException ex) {
+                    DialogNotification.error(ex);
+                }
+            }
+        }).execute();
+    }
+}
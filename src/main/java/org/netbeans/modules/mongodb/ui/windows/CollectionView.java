@@ -30,6 +30,7 @@ import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.ui.components.FindCriteriaEditor;
 import org.netbeans.modules.mongodb.ui.windows.collectionview.actions.ClearQueryAction;
 import org.netbeans.modules.mongodb.ui.windows.collectionview.actions.EditQueryAction;
+import org.netbeans.modules.mongodb.ui.windows.collectionview.actions.ExplainQueryAction;
 import org.netbeans.modules.mongodb.util.SystemCollectionPredicate;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle.Messages;
@@ -74,6 +75,9 @@ public final class CollectionView extends TopComponent /*implements QueryResultW
     @Getter
     private final Action clearQueryAction = new ClearQueryAction(this);
 
+    @Getter
+    private final Action explainQueryAction = new ExplainQueryAction(this);
+
     public CollectionView(CollectionInfo collectionInfo, Lookup lookup) {
         this(collectionInfo, lookup, FindCriteria.EMPTY);
     }
@@ -161,6 +165,7 @@ public final class CollectionView extends TopComponent /*implements QueryResultW
         sortField = new javax.swing.JTextField();
         editQueryButton = new javax.swing.JButton();
         clearQueryButton = new javax.swing.JButton();
+        explainQueryButton = new javax.swing.JButton();
         resultPanel = new CollectionResultPanel(lookup, isSystemCollection);
 
         queryPanel.setBorder(javax.swing.BorderFactory.createTitledBorder(org.openide.util.NbBundle.getMessage(CollectionView.class, "CollectionView.queryPanel.border.title"))); // NOI18N
@@ -184,6 +189,8 @@ public final class CollectionView extends TopComponent /*implements QueryResultW
 
         clearQueryButton.setAction(getClearQueryAction());
 
+        explainQueryButton.setAction(getExplainQueryAction());
+
         javax.swing.GroupLayout queryPanelLayout = new javax.swing.GroupLayout(queryPanel);
         queryPanel.setLayout(queryPanelLayout);
         queryPanelLayout.setHorizontalGroup(
@@ -195,7 +202,9 @@ public final class CollectionView extends TopComponent /*implements QueryResultW
                         .addComponent(editQueryButton)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(clearQueryButton)
-                        .addContainerGap(329, Short.MAX_VALUE))
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(explainQueryButton)
+                        .addContainerGap(248, Short.MAX_VALUE))
                     .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, queryPanelLayout.createSequentialGroup()
                         .addComponent(filterLabel)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -229,7 +238,8 @@ public final class CollectionView extends TopComponent /*implements QueryResultW
                 .addGap(12, 12, 12)
                 .addGroup(queryPanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(editQueryButton)
-                    .addComponent(clearQueryButton)))
+                    .addComponent(clearQueryButton)
+                    .addComponent(explainQueryButton)))
         );
 
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
@@ -257,6 +267,7 @@ public final class CollectionView extends TopComponent /*implements QueryResultW
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton clearQueryButton;
     private javax.swing.JButton editQueryButton;
+    private javax.swing.JButton explainQueryButton;
     private javax.swing.JTextField filterField;
     private javax.swing.JLabel filterLabel;
     private javax.swing.JTextField projectionField;
@@ -33,17 +33,22 @@ import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.ListCellRenderer;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
 import org.netbeans.api.editor.DialogBinding;
+import org.netbeans.modules.mongodb.api.CollectionResult;
 import org.netbeans.modules.mongodb.api.MongoCursorResult;
 import org.netbeans.modules.mongodb.ui.QueryHistory;
 import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
@@ -66,7 +71,8 @@ import org.openide.windows.WindowManager;
     "CTL_MapReduceTopComponent=MapReduce Window",
     "HINT_MapReduceTopComponent=This is a MapReduce window",
     "# {0} - map reduce top component id",
-    "MapReduceTopComponent_title=MongoDB Map Reduce {0}"
+    "MapReduceTopComponent_title=MongoDB Map Reduce {0}",
+    "TASK_runMapReduce=running map/reduce"
 })
 public final class MapReduceTopComponent extends TopComponent /*implements QueryResultWorkerFactory, QueryResultPanelContainer*/ {
 
@@ -195,18 +201,30 @@ public final class MapReduceTopComponent extends TopComponent /*implements Query
     }// </editor-fold>//GEN-END:initComponents
 
     private void btnRunActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRunActionPerformed
-        String mapFunction = epMap.getText();
-        String reduceFunction = epReduce.getText();
-        try {
-            resultPanel.setResult(new MongoCursorResult(
-                    getCollection()
-                    .mapReduce(mapFunction, reduceFunction)
-                    .limit(MongoCursorResult.DEFAULT_MAX_SIZE)
-                    .iterator()
-            ));
-        } catch(MongoCommandException ex) {
-            DialogNotification.error(ex);
-        }
+        final String mapFunction = epMap.getText();
+        final String reduceFunction = epReduce.getText();
+        final MongoCollection<BsonDocument> collection = getCollection();
+        Tasks.create(getLookup(), Priority.INTERACTIVE, Bundle.TASK_runMapReduce(), new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    final MongoCursorResult result = new MongoCursorResult(
+                        collection
+                        .mapReduce(mapFunction, reduceFunction, RawBsonDocument.class)
+                        .iterator());
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            resultPanel.setResult(result);
+                        }
+                    });
+                } catch (MongoCommandException ex) {
+                    DialogNotification.error(ex);
+                }
+            }
+        }).execute();
     }//GEN-LAST:event_btnRunActionPerformed
 
     private void cmbHistoryActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cmbHistoryActionPerformed
@@ -245,6 +263,12 @@ public final class MapReduceTopComponent extends TopComponent /*implements Query
         updateCollectionLabel();
     }
 
+    @Override
+    public void componentClosed() {
+        // releases the map reduce cursor and its spill file
+        resultPanel.setResult(CollectionResult.EMPTY);
+    }
+
     public void updateCollectionLabel() {
         String collectionFullName = getLookup().lookup(MongoCollection.class).getNamespace().getFullName();
         lblCollection.setText(collectionFullName);
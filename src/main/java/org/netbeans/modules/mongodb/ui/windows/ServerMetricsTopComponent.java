@@ -0,0 +1,466 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JSplitPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.JToggleButton;
+import javax.swing.JToolBar;
+import javax.swing.ListSelectionModel;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.table.DefaultTableModel;
+import lombok.Getter;
+import lombok.Setter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.netbeans.modules.mongodb.MongoConnection;
+import org.netbeans.modules.mongodb.api.connections.ConnectionInfo;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.HistogramChart;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.ServerMetricsSample;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.ServerMetricsSample.CollectionTime;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.ServerMetricsSampler;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.TimeSeries;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.TimeSeriesChart;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
+import org.openide.windows.TopComponent;
+
+/**
+ * Top component which polls the server metrics of a connection, through its
+ * client, and charts them. The charts display the last samples, the newest
+ * on the right.
+ *
+ * @author Yann D'Isanto
+ */
+@TopComponent.Description(
+        preferredID = "ServerMetricsTopComponent",
+        persistenceType = TopComponent.PERSISTENCE_NEVER)
+@TopComponent.Registration(mode = "editor", openAtStartup = false)
+@Messages({
+    "CTL_ServerMetricsTopComponent=Server Metrics Window",
+    "HINT_ServerMetricsTopComponent=This is a Server Metrics window",
+    "# {0} - connection name",
+    "ServerMetricsTopComponent_title=Server metrics - {0}",
+    "LBL_metricsInterval=interval (s):",
+    "LBL_metricsPause=Pause",
+    "LBL_metricsOverview=Overview",
+    "LBL_metricsLatency=Latency",
+    "LBL_metricsCollections=Collections",
+    "LBL_metricsCurrentOps=Current operations",
+    "LBL_opsChart=Operations",
+    "LBL_latencyChart=Average latency",
+    "LBL_cacheChart=WiredTiger cache",
+    "LBL_connectionsChart=Connections",
+    "LBL_collectionChart=Selected collection time",
+    "LBL_cacheUsed=used",
+    "LBL_cacheDirty=dirty",
+    "LBL_currentConnections=current",
+    "LBL_readTime=read",
+    "LBL_writeTime=write",
+    "UNIT_opsPerSecond=ops/s",
+    "UNIT_millis=ms",
+    "UNIT_percent=%",
+    "UNIT_connections=connections",
+    "COLUMN_namespace=Namespace",
+    "COLUMN_totalTime=Total (ms)",
+    "COLUMN_readTime=Read (ms)",
+    "COLUMN_writeTime=Write (ms)",
+    "COLUMN_opid=Op id",
+    "COLUMN_op=Operation",
+    "COLUMN_ns=Namespace",
+    "COLUMN_secsRunning=Running (s)",
+    "COLUMN_client=Client",
+    "COLUMN_desc=Description",
+    "# {0} - sample time",
+    "lastSample=last sample: {0}",
+    "# {0} - sample time",
+    "# {1} - errors",
+    "lastSampleWithErrors=last sample: {0} - {1}",
+    "# {0} - error message",
+    "samplingError=sampling failed: {0}"
+})
+public final class ServerMetricsTopComponent extends TopComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of samples kept by each time series.
+     */
+    private static final int CAPACITY = 300;
+
+    private static final int DEFAULT_INTERVAL = 1;
+
+    @Getter
+    @Setter
+    private Lookup lookup;
+
+    private final ServerMetricsSampler sampler = new ServerMetricsSampler();
+
+    private final RequestProcessor.Task pollTask;
+
+    private volatile boolean polling = false;
+
+    private volatile int intervalMillis = DEFAULT_INTERVAL * 1000;
+
+    private final Map<String, TimeSeries> opsSeries = new LinkedHashMap<>();
+
+    private final Map<String, TimeSeries> latencySeries = new LinkedHashMap<>();
+
+    private final TimeSeries cacheUsedSeries = new TimeSeries(Bundle.LBL_cacheUsed(), CAPACITY);
+
+    private final TimeSeries cacheDirtySeries = new TimeSeries(Bundle.LBL_cacheDirty(), CAPACITY);
+
+    private final TimeSeries connectionsSeries = new TimeSeries(Bundle.LBL_currentConnections(), CAPACITY);
+
+    /**
+     * The read and write time series by namespace. Only the namespaces which
+     * have been active have series.
+     */
+    private final Map<String, TimeSeries[]> collectionSeries = new HashMap<>();
+
+    private final Map<String, HistogramChart> histogramCharts = new LinkedHashMap<>();
+
+    private final TimeSeriesChart collectionChart = new TimeSeriesChart(Bundle.LBL_collectionChart(), Bundle.UNIT_millis());
+
+    private final JLabel lblStatus = new JLabel();
+
+    private final JToggleButton btnPause = new JToggleButton(Bundle.LBL_metricsPause());
+
+    private final JSpinner spnInterval = new JSpinner(new SpinnerNumberModel(DEFAULT_INTERVAL, 1, 3600, 1));
+
+    private final DefaultTableModel collectionsModel = new ReadOnlyTableModel(
+        Bundle.COLUMN_namespace(), Bundle.COLUMN_totalTime(), Bundle.COLUMN_readTime(), Bundle.COLUMN_writeTime());
+
+    private final JTable collectionsTable = new JTable(collectionsModel);
+
+    private final DefaultTableModel currentOpsModel = new ReadOnlyTableModel(
+        Bundle.COLUMN_opid(), Bundle.COLUMN_op(), Bundle.COLUMN_ns(), Bundle.COLUMN_secsRunning(), Bundle.COLUMN_client(), Bundle.COLUMN_desc());
+
+    private String selectedNamespace;
+
+    public ServerMetricsTopComponent(Lookup lookup) {
+        super();
+        setLookup(lookup);
+        setName(Bundle.CTL_ServerMetricsTopComponent());
+        setToolTipText(Bundle.HINT_ServerMetricsTopComponent());
+        for (String opcounter : ServerMetricsSampler.OPCOUNTERS) {
+            opsSeries.put(opcounter, new TimeSeries(opcounter, CAPACITY));
+        }
+        for (String type : ServerMetricsSampler.LATENCY_TYPES) {
+            latencySeries.put(type, new TimeSeries(type, CAPACITY));
+            histogramCharts.put(type, new HistogramChart(type));
+        }
+        // the sampling is background work, it runs with the lowest priority of the explorer lane
+        pollTask = Tasks.getRequestProcessor(lookup, Priority.EXPLORER).create(new Runnable() {
+
+            @Override
+            public void run() {
+                poll();
+            }
+        });
+        initComponents();
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout());
+
+        final JToolBar toolBar = new JToolBar();
+        toolBar.setRollover(true);
+        toolBar.setFloatable(false);
+        toolBar.add(new JLabel(Bundle.LBL_metricsInterval()));
+        toolBar.add(spnInterval);
+        toolBar.addSeparator();
+        toolBar.add(btnPause);
+        toolBar.addSeparator();
+        toolBar.add(lblStatus);
+        spnInterval.addChangeListener(new ChangeListener() {
+
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                intervalMillis = (Integer) spnInterval.getValue() * 1000;
+            }
+        });
+        btnPause.addActionListener(new ActionListener() {
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (btnPause.isSelected()) {
+                    stopPolling();
+                } else {
+                    startPolling();
+                }
+            }
+        });
+        add(toolBar, BorderLayout.PAGE_START);
+
+        final TimeSeriesChart opsChart = new TimeSeriesChart(Bundle.LBL_opsChart(), Bundle.UNIT_opsPerSecond());
+        for (TimeSeries series : opsSeries.values()) {
+            opsChart.addSeries(series);
+        }
+        final TimeSeriesChart latencyChart = new TimeSeriesChart(Bundle.LBL_latencyChart(), Bundle.UNIT_millis());
+        for (TimeSeries series : latencySeries.values()) {
+            latencyChart.addSeries(series);
+        }
+        final TimeSeriesChart cacheChart = new TimeSeriesChart(Bundle.LBL_cacheChart(), Bundle.UNIT_percent());
+        cacheChart.addSeries(cacheUsedSeries);
+        cacheChart.addSeries(cacheDirtySeries);
+        final TimeSeriesChart connectionsChart = new TimeSeriesChart(Bundle.LBL_connectionsChart(), Bundle.UNIT_connections());
+        connectionsChart.addSeries(connectionsSeries);
+        final JPanel pnlOverview = new JPanel(new GridLayout(2, 2, 6, 6));
+        pnlOverview.add(opsChart);
+        pnlOverview.add(latencyChart);
+        pnlOverview.add(cacheChart);
+        pnlOverview.add(connectionsChart);
+
+        final JPanel pnlLatency = new JPanel(new GridLayout(histogramCharts.size(), 1, 6, 6));
+        for (HistogramChart chart : histogramCharts.values()) {
+            pnlLatency.add(chart);
+        }
+
+        collectionsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        collectionsTable.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                final int row = collectionsTable.getSelectedRow();
+                if (e.getValueIsAdjusting() == false && row >= 0) {
+                    selectNamespace((String) collectionsModel.getValueAt(collectionsTable.convertRowIndexToModel(row), 0));
+                }
+            }
+        });
+        final JSplitPane spltCollections = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(collectionsTable), collectionChart);
+        spltCollections.setResizeWeight(0.5);
+
+        final JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab(Bundle.LBL_metricsOverview(), pnlOverview);
+        tabs.addTab(Bundle.LBL_metricsLatency(), pnlLatency);
+        tabs.addTab(Bundle.LBL_metricsCollections(), spltCollections);
+        tabs.addTab(Bundle.LBL_metricsCurrentOps(), new JScrollPane(new JTable(currentOpsModel)));
+        add(tabs, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void componentOpened() {
+        setName(Bundle.ServerMetricsTopComponent_title(getLookup().lookup(ConnectionInfo.class).getDisplayName()));
+        if (btnPause.isSelected() == false) {
+            startPolling();
+        }
+    }
+
+    @Override
+    public void componentClosed() {
+        stopPolling();
+    }
+
+    private void startPolling() {
+        polling = true;
+        pollTask.schedule(0);
+    }
+
+    private void stopPolling() {
+        polling = false;
+        pollTask.cancel();
+    }
+
+    private void poll() {
+        // the client is read once as the connection may be closed meanwhile
+        final MongoClient client = getLookup().lookup(MongoConnection.class).getClient();
+        try {
+            if (client != null) {
+                final ServerMetricsSample sample = sampler.sample(client.getDatabase("admin"));
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        addSample(sample);
+                    }
+                });
+            }
+        } catch (MongoException ex) {
+            final String message = Bundle.samplingError(ex.getLocalizedMessage());
+            SwingUtilities.invokeLater(new Runnable() {
+
+                @Override
+                public void run() {
+                    lblStatus.setText(message);
+                }
+            });
+        } finally {
+            if (polling) {
+                pollTask.schedule(intervalMillis);
+            }
+        }
+    }
+
+    private void addSample(ServerMetricsSample sample) {
+        for (Map.Entry<String, TimeSeries> entry : opsSeries.entrySet()) {
+            entry.getValue().add(value(sample.getOpcounterRates().get(entry.getKey())));
+        }
+        for (Map.Entry<String, TimeSeries> entry : latencySeries.entrySet()) {
+            entry.getValue().add(value(sample.getLatencies().get(entry.getKey())) / 1000);
+        }
+        for (Map.Entry<String, HistogramChart> entry : histogramCharts.entrySet()) {
+            entry.getValue().setBuckets(sample.getLatencyHistograms().get(entry.getKey()));
+        }
+        cacheUsedSeries.add(sample.getCacheUsedPercent());
+        cacheDirtySeries.add(sample.getCacheDirtyPercent());
+        connectionsSeries.add(sample.getConnections());
+        addCollectionTimes(sample.getCollectionTimes());
+        setCurrentOps(sample.getCurrentOps());
+
+        final String time = DateFormat.getTimeInstance().format(new Date(sample.getTime()));
+        lblStatus.setText(sample.getErrors().isEmpty()
+            ? Bundle.lastSample(time)
+            : Bundle.lastSampleWithErrors(time, join(sample.getErrors())));
+        repaint();
+    }
+
+    private void addCollectionTimes(List<CollectionTime> times) {
+        final Map<String, CollectionTime> timesByNamespace = new HashMap<>();
+        for (CollectionTime time : times) {
+            timesByNamespace.put(time.getNamespace(), time);
+            if (time.getTotalMicros() > 0 && collectionSeries.containsKey(time.getNamespace()) == false) {
+                collectionSeries.put(time.getNamespace(), new TimeSeries[]{
+                    new TimeSeries(Bundle.LBL_readTime(), CAPACITY),
+                    new TimeSeries(Bundle.LBL_writeTime(), CAPACITY)
+                });
+                if (time.getNamespace().equals(selectedNamespace)) {
+                    selectNamespace(selectedNamespace);
+                }
+            }
+        }
+        for (Map.Entry<String, TimeSeries[]> entry : collectionSeries.entrySet()) {
+            final CollectionTime time = timesByNamespace.get(entry.getKey());
+            entry.getValue()[0].add(time != null ? time.getReadMicros() / 1000d : Double.NaN);
+            entry.getValue()[1].add(time != null ? time.getWriteMicros() / 1000d : Double.NaN);
+        }
+        if (times.isEmpty()) {
+            // the top command failed or this is the first sample
+            return;
+        }
+        final String selection = selectedNamespace;
+        collectionsModel.setRowCount(0);
+        int selectedRow = -1;
+        for (CollectionTime time : times) {
+            if (time.getNamespace().equals(selection)) {
+                selectedRow = collectionsModel.getRowCount();
+            }
+            collectionsModel.addRow(new Object[]{
+                time.getNamespace(),
+                Math.round(time.getTotalMicros() / 1000d),
+                Math.round(time.getReadMicros() / 1000d),
+                Math.round(time.getWriteMicros() / 1000d)
+            });
+        }
+        if (selectedRow >= 0) {
+            final int viewRow = collectionsTable.convertRowIndexToView(selectedRow);
+            collectionsTable.getSelectionModel().setSelectionInterval(viewRow, viewRow);
+        }
+    }
+
+    private void selectNamespace(String namespace) {
+        selectedNamespace = namespace;
+        collectionChart.clearSeries();
+        final TimeSeries[] series = collectionSeries.get(namespace);
+        if (series != null) {
+            collectionChart.addSeries(series[0]);
+            collectionChart.addSeries(series[1]);
+        }
+    }
+
+    private void setCurrentOps(List<BsonDocument> operations) {
+        currentOpsModel.setRowCount(0);
+        for (BsonDocument operation : operations) {
+            currentOpsModel.addRow(new Object[]{
+                string(operation.get("opid")),
+                string(operation.get("op")),
+                string(operation.get("ns")),
+                string(operation.get("secs_running")),
+                string(operation.get("client")),
+                string(operation.get("desc"))
+            });
+        }
+    }
+
+    private static double value(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static String string(BsonValue value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.isString()) {
+            return value.asString().getValue();
+        }
+        if (value.isNumber()) {
+            return String.valueOf(value.asNumber().longValue());
+        }
+        return value.toString();
+    }
+
+    private static String join(List<String> strings) {
+        final StringBuilder sb = new StringBuilder();
+        for (String string : strings) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(string);
+        }
+        return sb.toString();
+    }
+
+    private static final class ReadOnlyTableModel extends DefaultTableModel {
+
+        private static final long serialVersionUID = 1L;
+
+        public ReadOnlyTableModel(Object... columnNames) {
+            super(columnNames, 0);
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows.collectionview.actions;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoDatabase;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.netbeans.modules.mongodb.api.CollectionResult;
+import org.netbeans.modules.mongodb.api.FindResult;
+import org.netbeans.modules.mongodb.bson.Bsons;
+import org.netbeans.modules.mongodb.bson.JsonEmitter;
+import org.netbeans.modules.mongodb.ui.components.CollectionResultPanel;
+import org.netbeans.modules.mongodb.ui.components.QueryPlanPanel;
+import org.netbeans.modules.mongodb.ui.components.QueryPlanPanel.ClientTimings;
+import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.ui.windows.CollectionView;
+import org.netbeans.modules.mongodb.util.Tasks;
+import org.netbeans.modules.mongodb.util.Tasks.Priority;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Explains the query of the view and times the client side phases of its
+ * first page display: count, first batch, decode and format. The phases are
+ * replayed with the result of the view, the format phase being the text
+ * formatting of the documents, not their rendering by Swing.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "ACTION_explainQuery=explain",
+    "TASK_explainQuery=explaining query"
+})
+public final class ExplainQueryAction extends CollectionViewAction {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExplainQueryAction(CollectionView view) {
+        super(view,
+            Bundle.ACTION_explainQuery());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        final CollectionResultPanel resultPanel = getView().getResultPanel();
+        final CollectionResult currentResult = resultPanel.getCurrentResult();
+        final MongoDatabase database = getView().getLookup().lookup(MongoDatabase.class);
+        if ((currentResult instanceof FindResult) == false || database == null) {
+            return;
+        }
+        final FindResult result = (FindResult) currentResult;
+        final int pageSize = resultPanel.getResultPages().getPageSize();
+        Tasks.create(getView().getLookup(), Priority.INTERACTIVE, Bundle.TASK_explainQuery(), new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    final ClientTimings timings = time(result, pageSize);
+                    final BsonDocument explain = result.explain(database, pageSize);
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            QueryPlanPanel.show(explain, timings);
+                        }
+                    });
+                } catch (MongoException ex) {
+                    DialogNotification.error(ex);
+                }
+            }
+        }).execute();
+    }
+
+    private static ClientTimings time(FindResult result, int pageSize) {
+        final ClientTimings.ClientTimingsBuilder timings = ClientTimings.builder();
+        long start = System.nanoTime();
+        final long count = result.getTotalElementsCount();
+        timings.countNanos(System.nanoTime() - start).count(count);
+
+        start = System.nanoTime();
+        final List<BsonDocument> page = result.get(0, pageSize);
+        timings.firstBatchNanos(System.nanoTime() - start).firstBatchSize(page.size());
+        long bytes = 0;
+        for (BsonDocument document : page) {
+            if (document instanceof RawBsonDocument) {
+                bytes += ((RawBsonDocument) document).getByteBuffer().remaining();
+            }
+        }
+        timings.firstBatchBytes(bytes);
+
+        start = System.nanoTime();
+        final List<BsonDocument> decoded = new ArrayList<>(page.size());
+        for (BsonDocument document : page) {
+            decoded.add(Bsons.mutable(document));
+        }
+        timings.decodeNanos(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        final StringBuilder text = new StringBuilder();
+        for (BsonDocument document : decoded) {
+            JsonEmitter.get().append(text, document, Bsons.SHELL_PRETTY).append('\n');
+        }
+        timings.formatNanos(System.nanoTime() - start);
+        return timings.build();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows.servermetrics;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.ServerMetricsSample.HistogramBucket;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Bar chart of a latency histogram, one bar per bucket labeled with the
+ * bucket lower bound.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "# {0} - histogram title",
+    "# {1} - operations count",
+    "histogramTitle={0} ({1} operations)",
+    "histogramUnavailable=not supported by the server",
+    "# {0} - duration",
+    "durationMicros={0}\u00b5s",
+    "# {0} - duration",
+    "durationMillisShort={0}ms",
+    "# {0} - duration",
+    "durationSeconds={0}s"
+})
+public final class HistogramChart extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color BAR_COLOR = new Color(0x3366cc);
+
+    private static final int PADDING = 6;
+
+    private final String title;
+
+    private List<HistogramBucket> buckets = Collections.emptyList();
+
+    private boolean available = false;
+
+    public HistogramChart(String title) {
+        this.title = title;
+        setPreferredSize(new Dimension(320, 160));
+        setOpaque(true);
+    }
+
+    /**
+     * @param buckets the histogram buckets, {@code null} if not supported by
+     * the server
+     */
+    public void setBuckets(List<HistogramBucket> buckets) {
+        this.available = buckets != null;
+        this.buckets = buckets != null ? buckets : Collections.<HistogramBucket>emptyList();
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        final Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setColor(UIManager.getColor("TextField.background"));
+            g.fillRect(0, 0, getWidth(), getHeight());
+            final FontMetrics metrics = g.getFontMetrics();
+            final int lineHeight = metrics.getHeight();
+            long total = 0;
+            long max = 0;
+            for (HistogramBucket bucket : buckets) {
+                total += bucket.getCount();
+                max = Math.max(max, bucket.getCount());
+            }
+            g.setColor(UIManager.getColor("Label.foreground"));
+            g.drawString(Bundle.histogramTitle(title, total), PADDING, PADDING + metrics.getAscent());
+            if (available == false) {
+                g.drawString(Bundle.histogramUnavailable(), PADDING, PADDING + lineHeight + metrics.getAscent());
+                return;
+            }
+
+            final int plotTop = PADDING + lineHeight + 2;
+            final int plotBottom = getHeight() - PADDING - lineHeight;
+            final int plotHeight = plotBottom - plotTop;
+            if (buckets.isEmpty() || plotHeight <= 0) {
+                return;
+            }
+            final double barWidth = (double) (getWidth() - 2 * PADDING) / buckets.size();
+            int labelRight = Integer.MIN_VALUE;
+            for (int i = 0; i < buckets.size(); i++) {
+                final HistogramBucket bucket = buckets.get(i);
+                final int x = PADDING + (int) Math.round(i * barWidth);
+                final int width = Math.max(1, (int) Math.round((i + 1) * barWidth) - (x - PADDING) - 1);
+                final int height = max > 0 ? (int) Math.round((double) bucket.getCount() * plotHeight / max) : 0;
+                g.setColor(BAR_COLOR);
+                g.fillRect(x, plotBottom - height, width, height);
+                // the labels which would overlap the previous one are skipped
+                final String label = formatMicros(bucket.getMicros());
+                if (x > labelRight) {
+                    g.setColor(UIManager.getColor("Label.foreground"));
+                    g.drawString(label, x, plotBottom + metrics.getAscent());
+                    labelRight = x + metrics.stringWidth(label) + 4;
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros >= 1000000) {
+            return Bundle.durationSeconds(micros / 1000000);
+        }
+        if (micros >= 1000) {
+            return Bundle.durationMillisShort(micros / 1000);
+        }
+        return Bundle.durationMicros(micros);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows.servermetrics;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+import org.bson.BsonDocument;
+
+/**
+ * The server metrics sampled at a given time. The rates and the collection
+ * times are computed from the previous sample, an unknown value being
+ * {@link Double#NaN}.
+ *
+ * @author Yann D'Isanto
+ */
+@Value
+@Builder
+public class ServerMetricsSample {
+
+    long time;
+
+    /**
+     * The operations per second, by operation type.
+     */
+    Map<String, Double> opcounterRates;
+
+    /**
+     * The average latency of the operations of the interval, in
+     * microseconds, by operation type (reads, writes, commands).
+     */
+    Map<String, Double> latencies;
+
+    /**
+     * The latency histograms since the first sample, by operation type. Only
+     * available if the server supports them.
+     */
+    Map<String, List<HistogramBucket>> latencyHistograms;
+
+    double cacheUsedPercent;
+
+    double cacheDirtyPercent;
+
+    double connections;
+
+    /**
+     * The time spent on each collection during the interval, the busiest
+     * first.
+     */
+    List<CollectionTime> collectionTimes;
+
+    List<BsonDocument> currentOps;
+
+    /**
+     * The errors of the commands which failed, the other metrics being still
+     * available.
+     */
+    List<String> errors;
+
+    @Value
+    public static class HistogramBucket {
+
+        /**
+         * The lower bound of the bucket, in microseconds.
+         */
+        long micros;
+
+        long count;
+    }
+
+    @Value
+    public static class CollectionTime {
+
+        String namespace;
+
+        long totalMicros;
+
+        long readMicros;
+
+        long writeMicros;
+    }
+}
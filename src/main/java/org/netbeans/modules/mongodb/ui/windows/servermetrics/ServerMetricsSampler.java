@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows.servermetrics;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.client.MongoDatabase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.ServerMetricsSample.CollectionTime;
+import org.netbeans.modules.mongodb.ui.windows.servermetrics.ServerMetricsSample.HistogramBucket;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Samples the server metrics through the {@code serverStatus}, {@code top}
+ * and {@code currentOp} commands. The server counters being cumulative, the
+ * sampler keeps the previous results to compute the rates of the interval.
+ * <p>
+ * A sampler is not thread safe: its samples must be taken one at a time.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "# {0} - command name",
+    "# {1} - error message",
+    "commandError={0}: {1}"
+})
+public final class ServerMetricsSampler {
+
+    public static final String[] OPCOUNTERS = {"insert", "query", "update", "delete", "getmore", "command"};
+
+    public static final String[] LATENCY_TYPES = {"reads", "writes", "commands"};
+
+    private static final BsonDocument SERVER_STATUS = new BsonDocument("serverStatus", new BsonInt32(1))
+        .append("opLatencies", new BsonDocument("histograms", BsonBoolean.TRUE));
+
+    private static final BsonDocument TOP = new BsonDocument("top", new BsonInt32(1));
+
+    private static final BsonDocument CURRENT_OP = new BsonDocument("currentOp", new BsonInt32(1))
+        .append("active", BsonBoolean.TRUE);
+
+    private BsonDocument previousStatus;
+
+    private long previousStatusNanos;
+
+    private BsonDocument previousTop;
+
+    /**
+     * The latency histograms of the first sample, by operation type: the
+     * counts by bucket lower bound, zero for the buckets which appeared
+     * later.
+     */
+    private final Map<String, Map<Long, Long>> histogramBaselines = new HashMap<>();
+
+    /**
+     * Runs the metrics commands. A failing command doesn't fail the sample,
+     * its error is added to the sample errors.
+     *
+     * @param admin the admin database
+     * @return the sample
+     * @throws MongoSocketException if the server is not reachable
+     */
+    public ServerMetricsSample sample(MongoDatabase admin) {
+        final ServerMetricsSample.ServerMetricsSampleBuilder sample = ServerMetricsSample.builder()
+            .time(System.currentTimeMillis())
+            .opcounterRates(Collections.<String, Double>emptyMap())
+            .latencies(Collections.<String, Double>emptyMap())
+            .latencyHistograms(Collections.<String, List<HistogramBucket>>emptyMap())
+            .cacheUsedPercent(Double.NaN)
+            .cacheDirtyPercent(Double.NaN)
+            .connections(Double.NaN)
+            .collectionTimes(Collections.<CollectionTime>emptyList())
+            .currentOps(Collections.<BsonDocument>emptyList());
+        final List<String> errors = new ArrayList<>();
+        try {
+            final long nanos = System.nanoTime();
+            final BsonDocument status = admin.runCommand(SERVER_STATUS, BsonDocument.class);
+            sampleStatus(status, nanos, sample);
+        } catch (MongoSocketException ex) {
+            throw ex;
+        } catch (MongoException ex) {
+            errors.add(Bundle.commandError("serverStatus", ex.getLocalizedMessage()));
+        }
+        try {
+            // not supported by mongos
+            final BsonDocument top = admin.runCommand(TOP, BsonDocument.class);
+            sampleTop(top, sample);
+        } catch (MongoSocketException ex) {
+            throw ex;
+        } catch (MongoException ex) {
+            errors.add(Bundle.commandError("top", ex.getLocalizedMessage()));
+        }
+        try {
+            final BsonDocument currentOp = admin.runCommand(CURRENT_OP, BsonDocument.class);
+            sampleCurrentOp(currentOp, sample);
+        } catch (MongoSocketException ex) {
+            throw ex;
+        } catch (MongoException ex) {
+            errors.add(Bundle.commandError("currentOp", ex.getLocalizedMessage()));
+        }
+        return sample.errors(errors).build();
+    }
+
+    private void sampleStatus(BsonDocument status, long nanos, ServerMetricsSample.ServerMetricsSampleBuilder sample) {
+        sample.connections(number(status, "connections", "current"));
+        final double cacheBytes = number(status, "wiredTiger", "cache", "bytes currently in the cache");
+        final double cacheDirtyBytes = number(status, "wiredTiger", "cache", "tracked dirty bytes in the cache");
+        final double cacheMaxBytes = number(status, "wiredTiger", "cache", "maximum bytes configured");
+        if (cacheMaxBytes > 0) {
+            sample.cacheUsedPercent(100 * cacheBytes / cacheMaxBytes);
+            sample.cacheDirtyPercent(100 * cacheDirtyBytes / cacheMaxBytes);
+        }
+        sample.latencyHistograms(histograms(status));
+
+        if (previousStatus != null) {
+            // the server uptime is not skewed by the network latency
+            final double uptimeMillis = number(status, "uptimeMillis") - number(previousStatus, "uptimeMillis");
+            final double seconds = Double.isNaN(uptimeMillis)
+                ? (nanos - previousStatusNanos) / 1e9
+                : uptimeMillis / 1000;
+            if (seconds > 0) {
+                final Map<String, Double> rates = new LinkedHashMap<>();
+                for (String opcounter : OPCOUNTERS) {
+                    final double delta = delta(status, previousStatus, "opcounters", opcounter);
+                    rates.put(opcounter, delta / seconds);
+                }
+                sample.opcounterRates(rates);
+            }
+            final Map<String, Double> latencies = new LinkedHashMap<>();
+            for (String type : LATENCY_TYPES) {
+                final double latency = delta(status, previousStatus, "opLatencies", type, "latency");
+                final double ops = delta(status, previousStatus, "opLatencies", type, "ops");
+                latencies.put(type, ops > 0 ? latency / ops : ops == 0 ? 0 : Double.NaN);
+            }
+            sample.latencies(latencies);
+        }
+        previousStatus = status;
+        previousStatusNanos = nanos;
+    }
+
+    private Map<String, List<HistogramBucket>> histograms(BsonDocument status) {
+        final Map<String, List<HistogramBucket>> histograms = new LinkedHashMap<>();
+        for (String type : LATENCY_TYPES) {
+            final BsonValue histogram = value(status, "opLatencies", type, "histogram");
+            if (histogram == null || histogram.isArray() == false) {
+                continue;
+            }
+            final Map<Long, Long> counts = new LinkedHashMap<>();
+            for (BsonValue bucket : histogram.asArray()) {
+                if (bucket.isDocument()) {
+                    final double micros = number(bucket.asDocument(), "micros");
+                    final double count = number(bucket.asDocument(), "count");
+                    if (Double.isNaN(micros) == false && Double.isNaN(count) == false) {
+                        counts.put((long) micros, (long) count);
+                    }
+                }
+            }
+            Map<Long, Long> baseline = histogramBaselines.get(type);
+            if (baseline == null || isReset(counts, baseline)) {
+                baseline = counts;
+                histogramBaselines.put(type, baseline);
+            }
+            final List<HistogramBucket> buckets = new ArrayList<>();
+            for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+                Long baselineCount = baseline.get(entry.getKey());
+                if (baselineCount == null) {
+                    // the server omits the empty buckets: the bucket was empty
+                    // when the window opened
+                    baselineCount = 0L;
+                    baseline.put(entry.getKey(), baselineCount);
+                }
+                buckets.add(new HistogramBucket(entry.getKey(), entry.getValue() - baselineCount));
+            }
+            histograms.put(type, buckets);
+        }
+        return histograms;
+    }
+
+    /**
+     * Whether the server counters have been reset (restart) since the
+     * baseline.
+     */
+    private static boolean isReset(Map<Long, Long> counts, Map<Long, Long> baseline) {
+        for (Map.Entry<Long, Long> entry : baseline.entrySet()) {
+            final Long count = counts.get(entry.getKey());
+            if (count == null || count < entry.getValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sampleTop(BsonDocument top, ServerMetricsSample.ServerMetricsSampleBuilder sample) {
+        final BsonValue totals = top.get("totals");
+        if (totals == null || totals.isDocument() == false) {
+            return;
+        }
+        if (previousTop != null) {
+            final List<CollectionTime> times = new ArrayList<>();
+            for (Map.Entry<String, BsonValue> entry : totals.asDocument().entrySet()) {
+                final String namespace = entry.getKey();
+                if (entry.getValue().isDocument() == false || previousTop.containsKey(namespace) == false) {
+                    continue;
+                }
+                final BsonDocument current = entry.getValue().asDocument();
+                final BsonDocument previous = previousTop.getDocument(namespace);
+                final double total = delta(current, previous, "total", "time");
+                final double read = delta(current, previous, "readLock", "time");
+                final double write = delta(current, previous, "writeLock", "time");
+                if (total >= 0 && read >= 0 && write >= 0) {
+                    times.add(new CollectionTime(namespace, (long) total, (long) read, (long) write));
+                }
+            }
+            Collections.sort(times, new Comparator<CollectionTime>() {
+
+                @Override
+                public int compare(CollectionTime o1, CollectionTime o2) {
+                    final int compare = Long.compare(o2.getTotalMicros(), o1.getTotalMicros());
+                    return compare != 0 ? compare : o1.getNamespace().compareTo(o2.getNamespace());
+                }
+            });
+            sample.collectionTimes(times);
+        }
+        previousTop = totals.asDocument();
+    }
+
+    private void sampleCurrentOp(BsonDocument currentOp, ServerMetricsSample.ServerMetricsSampleBuilder sample) {
+        final BsonValue inprog = currentOp.get("inprog");
+        if (inprog == null || inprog.isArray() == false) {
+            return;
+        }
+        final List<BsonDocument> operations = new ArrayList<>();
+        for (BsonValue operation : inprog.asArray()) {
+            if (operation.isDocument()) {
+                operations.add(operation.asDocument());
+            }
+        }
+        sample.currentOps(operations);
+    }
+
+    /**
+     * Returns the difference of a counter between two documents, a negative
+     * difference (counter reset) being unknown.
+     */
+    private static double delta(BsonDocument current, BsonDocument previous, String... path) {
+        final double delta = number(current, path) - number(previous, path);
+        return delta >= 0 ? delta : Double.NaN;
+    }
+
+    private static double number(BsonDocument document, String... path) {
+        final BsonValue value = value(document, path);
+        return value != null && value.isNumber() ? value.asNumber().doubleValue() : Double.NaN;
+    }
+
+    private static BsonValue value(BsonDocument document, String... path) {
+        BsonValue value = document;
+        for (String key : path) {
+            if (value == null || value.isDocument() == false) {
+                return null;
+            }
+            value = value.asDocument().get(key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows.servermetrics;
+
+import lombok.Getter;
+
+/**
+ * A fixed capacity series of values, the oldest value being overwritten once
+ * the series is full. An unknown value is stored as {@link Double#NaN}.
+ *
+ * @author Yann D'Isanto
+ */
+public final class TimeSeries {
+
+    @Getter
+    private final String name;
+
+    private final double[] values;
+
+    /**
+     * The index of the next value to write.
+     */
+    private int next = 0;
+
+    @Getter
+    private int size = 0;
+
+    public TimeSeries(String name, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.name = name;
+        this.values = new double[capacity];
+    }
+
+    public int getCapacity() {
+        return values.length;
+    }
+
+    public void add(double value) {
+        values[next] = value;
+        next = (next + 1) % values.length;
+        if (size < values.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns the value at the specified index, 0 being the oldest value.
+     *
+     * @param index the value index
+     * @return the value
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return values[(next - size + index + values.length) % values.length];
+    }
+
+    /**
+     * Returns the newest value.
+     *
+     * @return the newest value or {@link Double#NaN} if the series is empty
+     */
+    public double getLast() {
+        return size > 0 ? get(size - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the greatest known value.
+     *
+     * @return the greatest value or {@link Double#NaN} if no value is known
+     */
+    public double getMax() {
+        double max = Double.NaN;
+        for (int i = 0; i < size; i++) {
+            final double value = values[i];
+            if (Double.isNaN(value) == false && (Double.isNaN(max) || value > max)) {
+                max = value;
+            }
+        }
+        return max;
+    }
+}
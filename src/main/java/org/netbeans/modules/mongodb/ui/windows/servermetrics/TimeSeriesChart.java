@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.ui.windows.servermetrics;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Line chart of time series, the newest values on the right. The vertical
+ * scale fits the greatest value of the displayed series.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "# {0} - series name",
+    "# {1} - last value",
+    "# {2} - unit",
+    "seriesLegend={0}: {1} {2}",
+    "unknownMetric=-"
+})
+public final class TimeSeriesChart extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color[] COLORS = {
+        new Color(0x3366cc), new Color(0xdc3912), new Color(0xff9900),
+        new Color(0x109618), new Color(0x990099), new Color(0x0099c6)
+    };
+
+    private static final int PADDING = 6;
+
+    private final String title;
+
+    private final String unit;
+
+    private final List<TimeSeries> series = new ArrayList<>();
+
+    private final NumberFormat format = NumberFormat.getNumberInstance();
+
+    public TimeSeriesChart(String title, String unit) {
+        this.title = title;
+        this.unit = unit;
+        format.setMaximumFractionDigits(1);
+        setPreferredSize(new Dimension(320, 160));
+        setOpaque(true);
+    }
+
+    public void addSeries(TimeSeries timeSeries) {
+        series.add(timeSeries);
+        repaint();
+    }
+
+    public void clearSeries() {
+        series.clear();
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        final Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(UIManager.getColor("TextField.background"));
+            g.fillRect(0, 0, getWidth(), getHeight());
+            final FontMetrics metrics = g.getFontMetrics();
+            final int lineHeight = metrics.getHeight();
+
+            g.setColor(UIManager.getColor("Label.foreground"));
+            g.drawString(title, PADDING, PADDING + metrics.getAscent());
+            double max = 0;
+            for (TimeSeries timeSeries : series) {
+                final double seriesMax = timeSeries.getMax();
+                if (Double.isNaN(seriesMax) == false) {
+                    max = Math.max(max, seriesMax);
+                }
+            }
+            final String maxLabel = format.format(max);
+            g.drawString(maxLabel, getWidth() - PADDING - metrics.stringWidth(maxLabel), PADDING + metrics.getAscent());
+
+            final int legendTop = getHeight() - PADDING - lineHeight * series.size();
+            final int plotTop = PADDING + lineHeight + 2;
+            final int plotHeight = legendTop - plotTop - 2;
+            final int plotWidth = getWidth() - 2 * PADDING;
+            if (plotHeight <= 0 || plotWidth <= 0) {
+                return;
+            }
+            g.setColor(UIManager.getColor("Separator.foreground"));
+            g.drawRect(PADDING, plotTop, plotWidth, plotHeight);
+
+            for (int i = 0; i < series.size(); i++) {
+                final TimeSeries timeSeries = series.get(i);
+                g.setColor(COLORS[i % COLORS.length]);
+                paintSeries(g, timeSeries, max, plotTop, plotWidth, plotHeight);
+                final double last = timeSeries.getLast();
+                final String legend = Bundle.seriesLegend(timeSeries.getName(),
+                    Double.isNaN(last) ? Bundle.unknownMetric() : format.format(last), unit);
+                g.fillRect(PADDING, legendTop + i * lineHeight + (lineHeight - 8) / 2, 8, 8);
+                g.setColor(UIManager.getColor("Label.foreground"));
+                g.drawString(legend, PADDING + 12, legendTop + i * lineHeight + metrics.getAscent());
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static void paintSeries(Graphics2D g, TimeSeries timeSeries, double max, int plotTop, int plotWidth, int plotHeight) {
+        final int capacity = timeSeries.getCapacity();
+        final int size = timeSeries.getSize();
+        // the newest value is on the right edge
+        final int offset = capacity - size;
+        int previousX = -1;
+        int previousY = -1;
+        for (int i = 0; i < size; i++) {
+            final double value = timeSeries.get(i);
+            if (Double.isNaN(value)) {
+                previousX = -1;
+                continue;
+            }
+            final int x = PADDING + (int) Math.round((double) (offset + i) * plotWidth / Math.max(1, capacity - 1));
+            final int y = plotTop + plotHeight - (max > 0 ? (int) Math.round(value * plotHeight / max) : 0);
+            if (previousX >= 0) {
+                g.drawLine(previousX, previousY, x, y);
+            } else {
+                g.fillRect(x - 1, y - 1, 2, 2);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+}
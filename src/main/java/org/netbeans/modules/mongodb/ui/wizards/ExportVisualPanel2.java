@@ -26,6 +26,7 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.event.ChangeListener;
 import org.netbeans.modules.mongodb.ui.util.JsonFileFilter;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.openide.WizardDescriptor;
 import org.openide.filesystems.FileChooserBuilder;
 import org.openide.util.ChangeSupport;
@@ -56,6 +57,9 @@ public final class ExportVisualPanel2 extends JPanel {
         for (Charset charset : Charset.availableCharsets().values()) {
             encodingComboBox.addItem(charset);
         }
+        for (DataFormat format : DataFormat.values()) {
+            formatComboBox.addItem(format);
+        }
     }
 
     @Override
@@ -79,6 +83,24 @@ public final class ExportVisualPanel2 extends JPanel {
         return jsonArrayCheckBox;
     }
 
+    DataFormat getFormat() {
+        return (DataFormat) formatComboBox.getSelectedItem();
+    }
+
+    void setFormat(DataFormat format) {
+        formatComboBox.setSelectedItem(format);
+        updateFormatOptions();
+    }
+
+    /**
+     * The encoding and the json array option only apply to the JSON formats.
+     */
+    private void updateFormatOptions() {
+        final boolean json = getFormat().isBinary() == false;
+        encodingComboBox.setEnabled(json);
+        jsonArrayCheckBox.setEnabled(json);
+    }
+
     void setWizard(WizardDescriptor wizard) {
         this.wizard = wizard;
     }
@@ -106,6 +128,8 @@ public final class ExportVisualPanel2 extends JPanel {
         encodingLabel = new javax.swing.JLabel();
         encodingComboBox = new javax.swing.JComboBox<Charset>();
         jsonArrayCheckBox = new javax.swing.JCheckBox();
+        formatLabel = new javax.swing.JLabel();
+        formatComboBox = new javax.swing.JComboBox<DataFormat>();
 
         org.openide.awt.Mnemonics.setLocalizedText(fileLabel, org.openide.util.NbBundle.getMessage(ExportVisualPanel2.class, "ExportVisualPanel2.fileLabel.text")); // NOI18N
 
@@ -128,6 +152,14 @@ public final class ExportVisualPanel2 extends JPanel {
             }
         });
 
+        org.openide.awt.Mnemonics.setLocalizedText(formatLabel, org.openide.util.NbBundle.getMessage(ExportVisualPanel2.class, "ExportVisualPanel2.formatLabel.text")); // NOI18N
+
+        formatComboBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                formatComboBoxActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -140,6 +172,10 @@ public final class ExportVisualPanel2 extends JPanel {
                         .addGap(0, 226, Short.MAX_VALUE))
                     .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING)
+                            .addGroup(layout.createSequentialGroup()
+                                .addComponent(formatLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(formatComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                             .addGroup(layout.createSequentialGroup()
                                 .addComponent(encodingLabel)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -161,6 +197,10 @@ public final class ExportVisualPanel2 extends JPanel {
                     .addComponent(fileField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(browseFileButton))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(formatLabel)
+                    .addComponent(formatComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(encodingLabel)
                     .addComponent(encodingComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
@@ -184,12 +224,25 @@ public final class ExportVisualPanel2 extends JPanel {
         changeSupport.fireChange();
     }//GEN-LAST:event_jsonArrayCheckBoxActionPerformed
 
+    private void formatComboBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_formatComboBoxActionPerformed
+        updateFormatOptions();
+        final File file = fileChooser.getSelectedFile();
+        if (file != null) {
+            final File renamed = new File(file.getParentFile(), DataFormat.of(file).stripExtension(file.getName()) + getFormat().getExtension());
+            fileChooser.setSelectedFile(renamed);
+            fileField.setText(renamed.getAbsolutePath());
+        }
+        changeSupport.fireChange();
+    }//GEN-LAST:event_formatComboBoxActionPerformed
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton browseFileButton;
     private javax.swing.JComboBox<Charset> encodingComboBox;
     private javax.swing.JLabel encodingLabel;
     private javax.swing.JTextField fileField;
     private javax.swing.JLabel fileLabel;
+    private javax.swing.JComboBox<DataFormat> formatComboBox;
+    private javax.swing.JLabel formatLabel;
     private javax.swing.JCheckBox jsonArrayCheckBox;
     // End of variables declaration//GEN-END:variables
 }
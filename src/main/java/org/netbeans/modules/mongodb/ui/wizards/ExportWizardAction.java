@@ -31,6 +31,7 @@ import javax.swing.AbstractAction;
 import javax.swing.JComponent;
 import org.bson.BsonDocument;
 import org.netbeans.modules.mongodb.api.CollectionResult;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.netbeans.modules.mongodb.util.ExportProperties;
 import org.netbeans.modules.mongodb.util.ExportTask;
 import org.netbeans.modules.mongodb.util.Exporter;
@@ -52,6 +53,10 @@ public final class ExportWizardAction extends AbstractAction {
 
     public static final String PROP_JSON_ARRAY = "jsonArray";
 
+    public static final String PROP_FORMAT = "format";
+
+    public static final String PROP_RESUME = "resume";
+
     private final Lookup lookup;
 
     private final Map<String, Object> defaultProperties;
@@ -112,8 +117,11 @@ public final class ExportWizardAction extends AbstractAction {
                     .jsonArray((Boolean) wiz.getProperty(PROP_JSON_ARRAY))
                     .file((File) wiz.getProperty(PROP_FILE))
                     .encoding((Charset) wiz.getProperty(PROP_ENCODING))
+                    .format((DataFormat) wiz.getProperty(PROP_FORMAT))
+                    .resume(Boolean.TRUE.equals(wiz.getProperty(PROP_RESUME)))
                     .build();
             new ExportTask(
+                    lookup,
                     new Exporter(properties))
                     .execute();
         }
@@ -19,11 +19,16 @@ package org.netbeans.modules.mongodb.ui.wizards;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Objects;
 import javax.swing.JFileChooser;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import org.netbeans.modules.mongodb.api.CollectionResult;
 import org.netbeans.modules.mongodb.api.FindResult;
+import org.netbeans.modules.mongodb.api.ResumableIterable;
 import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.util.Checkpoint;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.openide.WizardDescriptor;
 import org.openide.WizardValidationException;
 import org.openide.util.ChangeSupport;
@@ -34,8 +39,12 @@ import org.openide.util.NbBundle.Messages;
     "validation_file_missing=specify a file for export",
     "overwrite_file_confirmation_title=Overwrite confirmation",
     "# {0} - file name",
-    "overwrite_file_confirmation=Overwrite \"{0}\" file?"})
-public class ExportWizardPanel2 implements WizardDescriptor.ValidatingPanel<WizardDescriptor>, ChangeListener {
+    "overwrite_file_confirmation=Overwrite \"{0}\" file?",
+    "resume_export_confirmation_title=Resume confirmation",
+    "# {0} - file name",
+    "# {1} - exported documents count",
+    "resume_export_confirmation=\"{0}\" is a partial export of {1} documents. Resume the export?"})
+public class ExportWizardPanel2 implements WizardDescriptor.AsynchronousValidatingPanel<WizardDescriptor>, ChangeListener {
 
     private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
 
@@ -43,6 +52,19 @@ public class ExportWizardPanel2 implements WizardDescriptor.ValidatingPanel<Wiza
 
     private final ChangeSupport changeSupport = new ChangeSupport(this);
 
+    private WizardDescriptor wizard;
+
+    private volatile boolean resume;
+
+    /**
+     * The settings being validated, read on the EDT before the validation.
+     */
+    private File validatedFile;
+
+    private DataFormat validatedFormat;
+
+    private boolean validatedJsonArray;
+
     @Override
     public ExportVisualPanel2 getComponent() {
         if (component == null) {
@@ -56,14 +78,35 @@ public class ExportWizardPanel2 implements WizardDescriptor.ValidatingPanel<Wiza
         return HelpCtx.DEFAULT_HELP;
     }
 
+    @Override
+    public void prepareValidation() {
+        final ExportVisualPanel2 panel = getComponent();
+        validatedFile = panel.getFileChooser().getSelectedFile();
+        validatedFormat = panel.getFormat();
+        validatedJsonArray = panel.getJsonArrayCheckBox().isSelected() && validatedFormat.isBinary() == false;
+    }
+
+    /**
+     * Validates the settings outside of the EDT: checking whether the export
+     * can be resumed queries the exported collection.
+     */
     @Override
     public void validate() throws WizardValidationException {
-        final JFileChooser fileChooser = getComponent().getFileChooser();
-        final File file = fileChooser.getSelectedFile();
+        final File file = validatedFile;
         if (file == null) {
-            throw new WizardValidationException(fileChooser, Bundle.validation_file_missing(), null);
+            throw new WizardValidationException(getComponent().getFileChooser(), Bundle.validation_file_missing(), null);
         }
+        resume = false;
         if (file.exists()) {
+            final Checkpoint checkpoint = resumableCheckpoint(file);
+            if (checkpoint != null) {
+                final String title = Bundle.resume_export_confirmation_title();
+                final String message = Bundle.resume_export_confirmation(file.getName(), checkpoint.getDocumentsCount());
+                if (DialogNotification.confirm(message, title)) {
+                    resume = true;
+                    return;
+                }
+            }
             final String title = Bundle.overwrite_file_confirmation_title();
             final String message = Bundle.overwrite_file_confirmation(file.getName());
             if(DialogNotification.confirm(message, title) == false) {
@@ -72,6 +115,33 @@ public class ExportWizardPanel2 implements WizardDescriptor.ValidatingPanel<Wiza
         }
     }
 
+    /**
+     * Returns the checkpoint of the specified file if the export can be
+     * resumed from it with the current settings.
+     */
+    private Checkpoint resumableCheckpoint(File file) {
+        final Checkpoint checkpoint = Checkpoint.load(file);
+        if (checkpoint == null || checkpoint.getLastId() == null) {
+            return null;
+        }
+        final Object result = wizard.getProperty(ExportWizardAction.PROP_DOCUMENTS);
+        final Object iterable = result instanceof CollectionResult ? ((CollectionResult) result).iterable() : null;
+        if (iterable instanceof ResumableIterable == false) {
+            return null;
+        }
+        final ResumableIterable<?> documents = (ResumableIterable<?>) iterable;
+        final String collection = (String) wizard.getProperty(ExportWizardAction.PROP_COLLECTION);
+        return checkpoint.getFormat() == validatedFormat
+            && checkpoint.isJsonArray() == validatedJsonArray
+            && Objects.equals(checkpoint.getCollection(), collection)
+            && checkpoint.getPosition() <= file.length()
+            && Objects.equals(checkpoint.getFilter(), documents.getFilter())
+            && Objects.equals(checkpoint.getProjection(), documents.getProjection())
+            && documents.isResumableAfter(checkpoint.getLastId())
+            ? checkpoint
+            : null;
+    }
+
     @Override
     public boolean isValid() {
         final File file = getComponent().getFileChooser().getSelectedFile();
@@ -80,15 +150,18 @@ public class ExportWizardPanel2 implements WizardDescriptor.ValidatingPanel<Wiza
 
     @Override
     public void readSettings(WizardDescriptor wiz) {
+        wizard = wiz;
         final ExportVisualPanel2 panel = getComponent();
         panel.setWizard(wiz);
         final JFileChooser fileChooser = panel.getFileChooser();
+        final DataFormat format = (DataFormat) wiz.getProperty(ExportWizardAction.PROP_FORMAT);
+        panel.setFormat(format != null ? format : DataFormat.JSON);
         File file = (File) wiz.getProperty(ExportWizardAction.PROP_FILE);
         if (file == null) {
             Object documents = wiz.getProperty(ExportWizardAction.PROP_DOCUMENTS);
             if(documents instanceof FindResult) {
                 String collection = ((FindResult) documents).getCollection().getNamespace().getCollectionName();
-                file = new File(fileChooser.getCurrentDirectory(), collection + ".json");
+                file = new File(fileChooser.getCurrentDirectory(), collection + panel.getFormat().getExtension());
             }
         }
         fileChooser.setSelectedFile(file);
@@ -108,6 +181,10 @@ public class ExportWizardPanel2 implements WizardDescriptor.ValidatingPanel<Wiza
             panel.getEncodingComboBox().getSelectedItem());
         wiz.putProperty(ExportWizardAction.PROP_JSON_ARRAY, 
             panel.getJsonArrayCheckBox().isSelected());
+        wiz.putProperty(ExportWizardAction.PROP_FORMAT, 
+            panel.getFormat());
+        wiz.putProperty(ExportWizardAction.PROP_RESUME, 
+            resume);
     }
 
     @Override
@@ -30,6 +30,7 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.JTextComponent;
 import org.netbeans.modules.mongodb.ui.util.JsonFileFilter;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.openide.filesystems.FileChooserBuilder;
 import org.openide.util.ChangeSupport;
 import org.openide.util.NbBundle.Messages;
@@ -65,6 +66,9 @@ public final class ImportVisualPanel1 extends JPanel {
         for (Charset charset : Charset.availableCharsets().values()) {
             encodingComboBox.addItem(charset);
         }
+        for (DataFormat format : DataFormat.values()) {
+            formatComboBox.addItem(format);
+        }
         final DocumentListener documentListener = new DocumentListener() {
 
             @Override
@@ -112,6 +116,22 @@ public final class ImportVisualPanel1 extends JPanel {
         return dropCheckBox;
     }
 
+    DataFormat getFormat() {
+        return (DataFormat) formatComboBox.getSelectedItem();
+    }
+
+    void setFormat(DataFormat format) {
+        formatComboBox.setSelectedItem(format);
+        updateFormatOptions();
+    }
+
+    /**
+     * The encoding only applies to the JSON formats.
+     */
+    private void updateFormatOptions() {
+        encodingComboBox.setEnabled(getFormat().isBinary() == false);
+    }
+
     public final void addChangeListener(ChangeListener l) {
         changeSupport.addChangeListener(l);
     }
@@ -134,6 +154,8 @@ public final class ImportVisualPanel1 extends JPanel {
         encodingLabel = new javax.swing.JLabel();
         encodingComboBox = new javax.swing.JComboBox<Charset>();
         collectionComboBox = new javax.swing.JComboBox<String>();
+        formatLabel = new javax.swing.JLabel();
+        formatComboBox = new javax.swing.JComboBox<DataFormat>();
         collectionLabel = new javax.swing.JLabel();
         dropCheckBox = new javax.swing.JCheckBox();
 
@@ -157,6 +179,14 @@ public final class ImportVisualPanel1 extends JPanel {
 
         org.openide.awt.Mnemonics.setLocalizedText(dropCheckBox, org.openide.util.NbBundle.getMessage(ImportVisualPanel1.class, "ImportVisualPanel1.dropCheckBox.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(formatLabel, org.openide.util.NbBundle.getMessage(ImportVisualPanel1.class, "ImportVisualPanel1.formatLabel.text")); // NOI18N
+
+        formatComboBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                formatComboBoxActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -173,6 +203,10 @@ public final class ImportVisualPanel1 extends JPanel {
                                 .addComponent(collectionLabel)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                                 .addComponent(collectionComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, 284, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
+                                .addComponent(formatLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(formatComboBox, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                             .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
                                 .addComponent(encodingLabel)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -194,6 +228,10 @@ public final class ImportVisualPanel1 extends JPanel {
                     .addComponent(fileField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(browseFileButton))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(formatLabel)
+                    .addComponent(formatComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(encodingLabel)
                     .addComponent(encodingComboBox, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
@@ -212,14 +250,20 @@ public final class ImportVisualPanel1 extends JPanel {
             final File file = fileChooser.getSelectedFile();
             if (file != null) {
                 fileField.setText(file.getAbsolutePath());
+                final DataFormat format = DataFormat.of(file);
+                setFormat(format);
                 if (collectionEditor.getText().trim().isEmpty()) {
-                    final String collectionName = file.getName().replaceAll("\\.json$", "");
+                    final String collectionName = format.stripExtension(file.getName());
                     collectionEditor.setText(collectionName);
                 }
             }
         }
     }//GEN-LAST:event_browseFileButtonActionPerformed
 
+    private void formatComboBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_formatComboBoxActionPerformed
+        updateFormatOptions();
+    }//GEN-LAST:event_formatComboBoxActionPerformed
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton browseFileButton;
     private javax.swing.JComboBox<String> collectionComboBox;
@@ -229,5 +273,7 @@ public final class ImportVisualPanel1 extends JPanel {
     private javax.swing.JLabel encodingLabel;
     private javax.swing.JTextField fileField;
     private javax.swing.JLabel fileLabel;
+    private javax.swing.JComboBox<DataFormat> formatComboBox;
+    private javax.swing.JLabel formatLabel;
     // End of variables declaration//GEN-END:variables
 }
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.netbeans.modules.mongodb.util.ImportProperties;
 import org.netbeans.modules.mongodb.util.ImportTask;
 import org.netbeans.modules.mongodb.util.Importer;
@@ -48,6 +49,10 @@ public final class ImportWizardAction extends AbstractAction {
 
     public static final String PROP_DROP = "drop";
 
+    public static final String PROP_FORMAT = "format";
+
+    public static final String PROP_RESUME = "resume";
+
     private final Lookup lookup;
 
     private final Runnable onDone;
@@ -101,8 +106,11 @@ public final class ImportWizardAction extends AbstractAction {
                 .drop((Boolean) wiz.getProperty(PROP_DROP))
                 .file((File) wiz.getProperty(PROP_FILE))
                 .encoding((Charset) wiz.getProperty(PROP_ENCODING))
+                .format((DataFormat) wiz.getProperty(PROP_FORMAT))
+                .resume(Boolean.TRUE.equals(wiz.getProperty(PROP_RESUME)))
                 .build();
             new ImportTask(
+                lookup,
                 new Importer(lookup.lookup(MongoDatabase.class), properties, onDone))
                 .execute();
         }
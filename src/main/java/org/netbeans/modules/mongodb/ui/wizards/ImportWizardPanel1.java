@@ -23,6 +23,9 @@ import java.nio.charset.Charset;
 import javax.swing.JFileChooser;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import org.netbeans.modules.mongodb.ui.util.DialogNotification;
+import org.netbeans.modules.mongodb.util.Checkpoint;
+import org.netbeans.modules.mongodb.util.DataFormat;
 import org.openide.WizardDescriptor;
 import org.openide.WizardValidationException;
 import org.openide.util.ChangeSupport;
@@ -30,7 +33,11 @@ import org.openide.util.HelpCtx;
 import org.openide.util.NbBundle.Messages;
 
 @Messages({
-    "validation_no_collection_specified=no collection specified"})
+    "validation_no_collection_specified=no collection specified",
+    "resume_import_confirmation_title=Resume import",
+    "# {0} - file name",
+    "# {1} - imported documents count",
+    "resume_import_confirmation=The import of \"{0}\" was interrupted after {1} documents. Resume the import?"})
 public class ImportWizardPanel1 implements WizardDescriptor.ValidatingPanel<WizardDescriptor>, ChangeListener {
 
     private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
@@ -41,6 +48,8 @@ public class ImportWizardPanel1 implements WizardDescriptor.ValidatingPanel<Wiza
 
     private final MongoDatabase db;
 
+    private boolean resume;
+
     public ImportWizardPanel1(MongoDatabase db) {
         this.db = db;
     }
@@ -69,6 +78,16 @@ public class ImportWizardPanel1 implements WizardDescriptor.ValidatingPanel<Wiza
         if(panel.getCollectionEditor().getText().trim().isEmpty()) {
             throw new WizardValidationException(null, Bundle.validation_no_collection_specified(), null);
         }
+        final File file = panel.getFileChooser().getSelectedFile();
+        final Checkpoint checkpoint = Checkpoint.load(file);
+        resume = false;
+        if (checkpoint != null
+            && checkpoint.getFormat() == panel.getFormat()
+            && panel.getCollectionEditor().getText().trim().equals(checkpoint.getCollection())) {
+            final String title = Bundle.resume_import_confirmation_title();
+            final String message = Bundle.resume_import_confirmation(file.getName(), checkpoint.getDocumentsCount());
+            resume = DialogNotification.confirm(message, title);
+        }
     }
 
     @Override
@@ -87,13 +106,18 @@ public class ImportWizardPanel1 implements WizardDescriptor.ValidatingPanel<Wiza
         panel.getFileField().setText(file != null ? file.getAbsolutePath() : "");
         final Charset charset = (Charset) wiz.getProperty(ImportWizardAction.PROP_ENCODING);
         panel.getEncodingComboBox().setSelectedItem(charset != null ? charset : DEFAULT_CHARSET);
+        DataFormat format = (DataFormat) wiz.getProperty(ImportWizardAction.PROP_FORMAT);
+        if (format == null) {
+            format = file != null ? DataFormat.of(file) : DataFormat.JSON;
+        }
+        panel.setFormat(format);
         
         String collection = (String) wiz.getProperty(ImportWizardAction.PROP_COLLECTION);
         if(collection == null) {
             collection = "";
         }
         if(collection.isEmpty() && file != null) {
-            collection = file.getName().replaceAll("\\.json$", "");
+            collection = DataFormat.of(file).stripExtension(file.getName());
         }
         if(collection != null) {
             panel.getCollectionEditor().setText(collection);
@@ -109,10 +133,14 @@ public class ImportWizardPanel1 implements WizardDescriptor.ValidatingPanel<Wiza
             panel.getFileChooser().getSelectedFile());
         wiz.putProperty(ImportWizardAction.PROP_ENCODING, 
             panel.getEncodingComboBox().getSelectedItem());
+        wiz.putProperty(ImportWizardAction.PROP_FORMAT, 
+            panel.getFormat());
         wiz.putProperty(ImportWizardAction.PROP_COLLECTION, 
             panel.getCollectionEditor().getText().trim());
         wiz.putProperty(ImportWizardAction.PROP_DROP, 
             panel.getDropCheckBox().isSelected());
+        wiz.putProperty(ImportWizardAction.PROP_RESUME, 
+            resume);
     }
 
     @Override
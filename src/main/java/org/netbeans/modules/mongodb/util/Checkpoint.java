@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import lombok.Getter;
+import lombok.Setter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.netbeans.modules.mongodb.bson.Bsons;
+
+/**
+ * The progress of an export or an import, saved in a sidecar file next to the
+ * exported or imported file so an interrupted task can be resumed.
+ *
+ * @author Yann D'Isanto
+ */
+@Getter
+@Setter
+public final class Checkpoint {
+
+    private static final String SUFFIX = ".checkpoint";
+
+    private static final String COLLECTION = "collection";
+
+    private static final String FORMAT = "format";
+
+    private static final String JSON_ARRAY = "jsonArray";
+
+    private static final String DOCUMENTS_COUNT = "documentsCount";
+
+    private static final String POSITION = "position";
+
+    private static final String LAST_ID = "lastId";
+
+    private static final String FILTER = "filter";
+
+    private static final String PROJECTION = "projection";
+
+    private String collection;
+
+    private DataFormat format;
+
+    private boolean jsonArray;
+
+    /**
+     * The number of documents exported or imported.
+     */
+    private long documentsCount;
+
+    /**
+     * The exported file length (export only).
+     */
+    private long position;
+
+    /**
+     * The {@code _id} of the last exported document (export only).
+     */
+    private BsonValue lastId;
+
+    /**
+     * The filter of the exported documents (export only).
+     */
+    private BsonDocument filter;
+
+    /**
+     * The projection of the exported documents (export only).
+     */
+    private BsonDocument projection;
+
+    /**
+     * Returns the checkpoint file of the specified exported or imported file.
+     *
+     * @param file an exported or imported file
+     * @return the checkpoint file
+     */
+    public static File fileOf(File file) {
+        return new File(file.getParentFile(), file.getName() + SUFFIX);
+    }
+
+    /**
+     * Loads the checkpoint of the specified exported or imported file.
+     *
+     * @param file an exported or imported file
+     * @return the checkpoint or {@code null} if there is none or if it can't
+     * be read
+     */
+    public static Checkpoint load(File file) {
+        final File checkpointFile = fileOf(file);
+        if (checkpointFile.isFile() == false) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(checkpointFile.toPath())) {
+            properties.load(input);
+            final Checkpoint checkpoint = new Checkpoint();
+            checkpoint.collection = properties.getProperty(COLLECTION);
+            checkpoint.format = DataFormat.valueOf(properties.getProperty(FORMAT));
+            checkpoint.jsonArray = Boolean.parseBoolean(properties.getProperty(JSON_ARRAY));
+            checkpoint.documentsCount = Long.parseLong(properties.getProperty(DOCUMENTS_COUNT));
+            checkpoint.position = Long.parseLong(properties.getProperty(POSITION, "0"));
+            final String lastId = properties.getProperty(LAST_ID);
+            if (lastId != null) {
+                checkpoint.lastId = BsonDocument.parse(lastId).get("_id");
+            }
+            final String filter = properties.getProperty(FILTER);
+            if (filter != null) {
+                checkpoint.filter = BsonDocument.parse(filter);
+            }
+            final String projection = properties.getProperty(PROJECTION);
+            if (projection != null) {
+                checkpoint.projection = BsonDocument.parse(projection);
+            }
+            return checkpoint;
+        } catch (IOException | IllegalArgumentException | NullPointerException | JsonParseException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves this checkpoint for the specified exported or imported file. The
+     * checkpoint file is replaced atomically.
+     *
+     * @param file an exported or imported file
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(File file) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(COLLECTION, collection);
+        properties.setProperty(FORMAT, format.name());
+        properties.setProperty(JSON_ARRAY, String.valueOf(jsonArray));
+        properties.setProperty(DOCUMENTS_COUNT, String.valueOf(documentsCount));
+        properties.setProperty(POSITION, String.valueOf(position));
+        if (lastId != null) {
+            properties.setProperty(LAST_ID, Bsons.strict(new BsonDocument("_id", lastId)));
+        }
+        if (filter != null) {
+            properties.setProperty(FILTER, Bsons.strict(filter));
+        }
+        if (projection != null) {
+            properties.setProperty(PROJECTION, Bsons.strict(projection));
+        }
+        final Path checkpointPath = fileOf(file).toPath();
+        final Path tempPath = Files.createTempFile(checkpointPath.getParent(), file.getName(), SUFFIX);
+        try (OutputStream output = Files.newOutputStream(tempPath)) {
+            properties.store(output, null);
+        }
+        Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the checkpoint of the specified exported or imported file.
+     *
+     * @param file an exported or imported file
+     * @throws IOException if an I/O error occurs
+     */
+    public static void delete(File file) throws IOException {
+        Files.deleteIfExists(fileOf(file).toPath());
+    }
+}
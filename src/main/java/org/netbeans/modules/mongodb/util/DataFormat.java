@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * The file formats of the exported and imported documents.
+ *
+ * @author Yann D'Isanto
+ */
+@Messages({
+    "DataFormat_JSON=JSON",
+    "DataFormat_JSON_GZIP=JSON (gzip)",
+    "DataFormat_BSON=BSON (mongodump)",
+    "DataFormat_BSON_GZIP=BSON (mongodump, gzip)"
+})
+public enum DataFormat {
+
+    JSON(".json", false, false),
+    JSON_GZIP(".json.gz", false, true),
+    BSON(".bson", true, false),
+    BSON_GZIP(".bson.gz", true, true);
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    private final boolean binary;
+
+    private final boolean compressed;
+
+    private DataFormat(String extension, boolean binary, boolean compressed) {
+        this.extension = extension;
+        this.binary = binary;
+        this.compressed = compressed;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns whether the documents are written as raw BSON, one after the
+     * other, like in mongodump {@code .bson} files.
+     *
+     * @return {@code true} for BSON, {@code false} for JSON
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public InputStream decode(InputStream input) throws IOException {
+        return compressed ? new GZIPInputStream(input, GZIP_BUFFER_SIZE) : input;
+    }
+
+    /**
+     * Removes this format extension from the specified file name.
+     *
+     * @param fileName a file name
+     * @return the file name without extension
+     */
+    public String stripExtension(String fileName) {
+        return fileName.endsWith(extension)
+            ? fileName.substring(0, fileName.length() - extension.length())
+            : fileName;
+    }
+
+    @Override
+    public String toString() {
+        switch (this) {
+            case JSON_GZIP:
+                return Bundle.DataFormat_JSON_GZIP();
+            case BSON:
+                return Bundle.DataFormat_BSON();
+            case BSON_GZIP:
+                return Bundle.DataFormat_BSON_GZIP();
+            default:
+                return Bundle.DataFormat_JSON();
+        }
+    }
+
+    /**
+     * Guesses the format of the specified file from its extension.
+     *
+     * @param file a file
+     * @return the file format, JSON if it can't be guessed
+     */
+    public static DataFormat of(File file) {
+        final String name = file.getName().toLowerCase();
+        for (DataFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+}
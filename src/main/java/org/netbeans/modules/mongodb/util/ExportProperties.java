@@ -23,6 +23,7 @@ import java.util.Objects;
 import lombok.Builder;
 import lombok.Getter;
 import org.bson.BsonDocument;
+import org.netbeans.modules.mongodb.api.SplittableIterable;
 
 /**
  *
@@ -32,6 +33,8 @@ import org.bson.BsonDocument;
 @Builder
 public final class ExportProperties {
 
+    public static final int DEFAULT_READER_THREADS = 4;
+
     private final String collection;
     
     private final Iterable<BsonDocument> documents;
@@ -42,11 +45,39 @@ public final class ExportProperties {
     
     private final Charset encoding;
 
-    public ExportProperties(String collection, Iterable<BsonDocument> documents, boolean jsonArray, File file, Charset encoding) {
+    /**
+     * The file format, the encoding and the json array option only apply to
+     * the JSON formats.
+     */
+    private final DataFormat format;
+
+    /**
+     * The number of threads reading the documents when they can be read in
+     * parallel (see {@link SplittableIterable}).
+     */
+    private final int readerThreads;
+
+    /**
+     * Whether the documents read in parallel may be written as soon as they
+     * are read rather than part after part.
+     */
+    private final boolean unordered;
+
+    /**
+     * Whether to resume the export from the checkpoint of the file if any
+     * (see {@link Checkpoint}).
+     */
+    private final boolean resume;
+
+    public ExportProperties(String collection, Iterable<BsonDocument> documents, boolean jsonArray, File file, Charset encoding, DataFormat format, int readerThreads, boolean unordered, boolean resume) {
         this.collection = collection;
         this.documents = documents;
         this.jsonArray = jsonArray;
         this.file = Objects.requireNonNull(file);
         this.encoding = Objects.requireNonNull(encoding);
+        this.format = format != null ? format : DataFormat.JSON;
+        this.readerThreads = readerThreads > 0 ? readerThreads : DEFAULT_READER_THREADS;
+        this.unordered = unordered;
+        this.resume = resume;
     }
 }
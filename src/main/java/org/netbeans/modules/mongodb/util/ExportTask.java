@@ -17,8 +17,8 @@
  */
 package org.netbeans.modules.mongodb.util;
 
+import org.openide.util.Lookup;
 import org.openide.util.NbBundle.Messages;
-import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -30,9 +30,12 @@ import org.openide.util.RequestProcessor;
 })
 public final class ExportTask extends Tasks.SimpleTask<Exporter> {
 
-    private static final RequestProcessor REQUEST_PROCESSOR = new RequestProcessor(ExportTask.class.getName(), 1, true);
-
-    public ExportTask(Exporter exporter) {
-        super(REQUEST_PROCESSOR, exporter, Bundle.TASK_export_label(exporter.getProperties().getCollection()), true);
+    /**
+     * Creates a task which readers are run in the bulk lane of the connection
+     * found in the specified lookup.
+     */
+    public ExportTask(Lookup lookup, Exporter exporter) {
+        super(lookup, Tasks.Priority.BULK, exporter, Bundle.TASK_export_label(exporter.getProperties().getCollection()), true);
+        exporter.setReadersRequestProcessor(Tasks.getRequestProcessor(lookup, Tasks.Priority.BULK));
     }
 }
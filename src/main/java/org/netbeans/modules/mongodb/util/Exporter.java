@@ -1,4 +1,4 @@
-/* 
+/*
  * Copyright (C) 2015 Yann D'Isanto
  *
  * This program is free software; you can redistribute it and/or
@@ -17,26 +17,130 @@
  */
 package org.netbeans.modules.mongodb.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import org.bson.BsonBinaryWriter;
 import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.modules.mongodb.api.ResumableIterable;
+import org.netbeans.modules.mongodb.api.SplittableIterable;
+import org.netbeans.modules.mongodb.bson.Bsons;
+import org.netbeans.modules.mongodb.bson.JsonEmitter;
 import org.openide.util.Exceptions;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Exports documents into a JSON or BSON file, compressed or not (see
+ * {@link DataFormat}).
+ * <p>
+ * The documents are read and encoded by reader threads into chunks of bytes
+ * written by the exporting thread. When the documents can be split (see
+ * {@link SplittableIterable}) the parts are read in parallel and written part
+ * after part, or as soon as they are read if the export is unordered. Each
+ * reader owns a fixed number of chunks so the memory used is bounded.
+ * <p>
+ * When the documents are written in {@code _id} order (see
+ * {@link ResumableIterable}) the progress is regularly saved in a
+ * {@link Checkpoint} and an interrupted export can be resumed from it.
  *
  * @author Yann D'Isanto
  */
-public final class Exporter implements Runnable {
+@Messages({
+    "# {0} - exported documents count",
+    "# {1} - documents per second",
+    "TASK_export_progress={0} documents exported ({1} docs/s)"
+})
+public final class Exporter implements Runnable, Tasks.ProgressReporter {
+
+    /**
+     * Runs the readers of the exports not run by a connection task.
+     */
+    private static final RequestProcessor READERS_REQUEST_PROCESSOR = new RequestProcessor(Exporter.class.getName() + ".readers", ExportProperties.DEFAULT_READER_THREADS, true);
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final int CHUNKS_PER_READER = 2;
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of bytes (before compression) written between two
+     * checkpoints.
+     */
+    private static final long CHECKPOINT_INTERVAL = 64 * 1024 * 1024;
+
+    private static final String ID = "_id";
 
     private final ExportProperties properties;
 
+    private final DataFormat format;
+
+    /**
+     * Whether the documents are exported as a json array (JSON formats only).
+     */
+    private final boolean jsonArray;
+
+    private volatile ProgressHandle progressHandle;
+
+    private RequestProcessor readersRequestProcessor = READERS_REQUEST_PROCESSOR;
+
+    private long exportedCount;
+
+    private long startTime;
+
+    private long lastProgressTime;
+
     public Exporter(ExportProperties properties) {
         this.properties = properties;
+        this.format = properties.getFormat();
+        this.jsonArray = properties.isJsonArray() && format.isBinary() == false;
+    }
+
+    @Override
+    public void setProgressHandle(ProgressHandle progressHandle) {
+        this.progressHandle = progressHandle;
+    }
+
+    /**
+     * Sets the request processor running the readers, the bulk lane of the
+     * exported connection. Must be set before the export is run.
+     *
+     * @param readersRequestProcessor the readers request processor
+     */
+    public void setReadersRequestProcessor(RequestProcessor readersRequestProcessor) {
+        this.readersRequestProcessor = readersRequestProcessor;
     }
 
     @Override
@@ -50,18 +154,39 @@ public final class Exporter implements Runnable {
 
     private void exportTo(Path exportPath) throws IOException {
         final File exportFile = exportPath.toFile();
+        final Checkpoint resumed = properties.isResume() ? loadCheckpoint(exportFile) : null;
         Path backupPath = null;
-        if (exportFile.exists()) {
-            backupPath = Files.createTempFile(null, exportFile.getName());
-            Files.move(exportPath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+        if (resumed == null) {
+            Checkpoint.delete(exportFile);
+            if (exportFile.exists()) {
+                backupPath = Files.createTempFile(null, exportFile.getName());
+                Files.move(exportPath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+            }
         }
-        try (Writer writer = new PrintWriter(exportFile, properties.getEncoding().name())) {
-            export(writer);
-        } catch (IOException ex) {
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(exportPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final long position = resumed != null ? resumed.getPosition() : 0;
+            channel.truncate(position);
+            channel.position(position);
+            export(channel, resumed);
+            Checkpoint.delete(exportFile);
+            completed = true;
+        } catch (IOException | RuntimeException ex) {
             Exceptions.printStackTrace(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
-        if (Thread.interrupted()) {
+        if (completed) {
             if (backupPath != null) {
+                Files.delete(backupPath);
+            }
+        } else if (Thread.interrupted()) {
+            if (Checkpoint.fileOf(exportFile).exists()) {
+                // keep the partial export so it can be resumed
+                if (backupPath != null) {
+                    Files.delete(backupPath);
+                }
+            } else if (backupPath != null) {
                 Files.move(backupPath, exportPath, StandardCopyOption.REPLACE_EXISTING);
             } else {
                 Files.delete(exportPath);
@@ -69,36 +194,408 @@ public final class Exporter implements Runnable {
         }
     }
 
-    private void export(Writer writer) {
-        final PrintWriter output = new PrintWriter(writer);
-        if (properties.isJsonArray()) {
-            output.print("[");
+    /**
+     * Loads the checkpoint of the specified file if the export can be resumed
+     * from it.
+     */
+    private Checkpoint loadCheckpoint(File exportFile) {
+        final Checkpoint checkpoint = Checkpoint.load(exportFile);
+        if (checkpoint == null
+            || properties.getDocuments() instanceof ResumableIterable == false
+            || checkpoint.getLastId() == null
+            || checkpoint.getFormat() != format
+            || checkpoint.isJsonArray() != jsonArray
+            || Objects.equals(checkpoint.getCollection(), properties.getCollection()) == false
+            || checkpoint.getPosition() > exportFile.length()) {
+            return null;
         }
-        boolean first = true;
-        for (BsonDocument document : properties.getDocuments()) {
-            if (Thread.interrupted()) {
-                return;
+        final ResumableIterable<?> documents = (ResumableIterable<?>) properties.getDocuments();
+        if (Objects.equals(checkpoint.getFilter(), documents.getFilter()) == false
+            || Objects.equals(checkpoint.getProjection(), documents.getProjection()) == false
+            || documents.isResumableAfter(checkpoint.getLastId()) == false) {
+            return null;
+        }
+        return checkpoint;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void export(FileChannel channel, Checkpoint resumed) throws IOException, InterruptedException {
+        Iterable<BsonDocument> documents = properties.getDocuments();
+        if (resumed != null) {
+            documents = ((ResumableIterable<BsonDocument>) documents).after(resumed.getLastId());
+            exportedCount = resumed.getDocumentsCount();
+        }
+        final List<Iterable<BsonDocument>> parts = documents instanceof SplittableIterable && properties.getReaderThreads() > 1
+            ? ((SplittableIterable<BsonDocument>) documents).split(properties.getReaderThreads())
+            : Collections.singletonList(documents);
+        final boolean unordered = properties.isUnordered() && parts.size() > 1;
+        // the documents are written in _id order unless unordered
+        final boolean checkpoints = properties.getDocuments() instanceof ResumableIterable && unordered == false;
+        final BlockingQueue<Chunk> sharedOutput = unordered
+            ? new ArrayBlockingQueue<Chunk>(parts.size() * CHUNKS_PER_READER)
+            : null;
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final List<PartReader> readers = new ArrayList<>(parts.size());
+        final List<RequestProcessor.Task> tasks = new ArrayList<>(parts.size());
+        for (Iterable<BsonDocument> part : parts) {
+            final PartReader reader = new PartReader(part, unordered ? sharedOutput : new ArrayBlockingQueue<Chunk>(CHUNKS_PER_READER), failure);
+            readers.add(reader);
+            tasks.add(readersRequestProcessor.post(reader));
+        }
+        startTime = System.currentTimeMillis();
+        boolean completed = false;
+        ChunkWriter writer = null;
+        try {
+            writer = new ChunkWriter(channel, checkpoints);
+            if (resumed != null) {
+                writer.documentWritten = resumed.getDocumentsCount() > 0;
+            } else if (jsonArray) {
+                writer.write("[");
+            }
+            if (unordered) {
+                int remaining = readers.size();
+                while (remaining > 0) {
+                    final Chunk chunk = take(sharedOutput, failure);
+                    writer.write(chunk);
+                    if (chunk.last) {
+                        remaining--;
+                    }
+                    chunk.release();
+                }
+            } else {
+                for (PartReader reader : readers) {
+                    boolean last;
+                    do {
+                        final Chunk chunk = take(reader.output, failure);
+                        writer.write(chunk);
+                        last = chunk.last;
+                        chunk.release();
+                    } while (last == false);
+                }
             }
-            if (first) {
-                first = false;
-            } else if (properties.isJsonArray()) {
-                output.print(",");
+            if (jsonArray) {
+                writer.write("]" + LINE_SEPARATOR);
             }
-            final String json = document.toJson();
-            output.print(json);
-            if (properties.isJsonArray() == false) {
-                output.println();
+            writer.finish();
+            completed = true;
+        } finally {
+            if (writer != null) {
+                writer.release();
+            }
+            if (completed == false) {
+                for (RequestProcessor.Task task : tasks) {
+                    task.cancel();
+                }
             }
-            output.flush();
         }
-        if (properties.isJsonArray()) {
-            output.println("]");
+    }
+
+    /**
+     * Takes the next chunk from the specified queue, waiting for it as long as
+     * the readers don't fail.
+     */
+    private Chunk take(BlockingQueue<Chunk> queue, AtomicReference<Exception> failure) throws IOException, InterruptedException {
+        Chunk chunk;
+        do {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final Exception ex = failure.get();
+            if (ex instanceof IOException) {
+                throw (IOException) ex;
+            }
+            if (ex != null) {
+                throw (RuntimeException) ex;
+            }
+            chunk = queue.poll(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } while (chunk == null);
+        return chunk;
+    }
+
+    private void reportProgress() {
+        final ProgressHandle handle = progressHandle;
+        final long now = System.currentTimeMillis();
+        if (handle == null || now - lastProgressTime < PROGRESS_INTERVAL_MS) {
+            return;
         }
-        output.flush();
+        lastProgressTime = now;
+        final long elapsed = Math.max(now - startTime, 1);
+        handle.progress(Bundle.TASK_export_progress(exportedCount, exportedCount * 1000 / elapsed));
     }
 
     public ExportProperties getProperties() {
         return properties;
     }
 
+    /**
+     * Writes the chunks into the export file and saves a checkpoint every
+     * {@link #CHECKPOINT_INTERVAL} bytes (before compression) if enabled. With
+     * compression, each checkpoint ends a gzip member so the file can be
+     * truncated at the checkpoint position.
+     */
+    private final class ChunkWriter {
+
+        private final FileChannel file;
+
+        private final boolean checkpoints;
+
+        private GzipMember gzip;
+
+        private WritableByteChannel channel;
+
+        private boolean documentWritten = false;
+
+        private long writtenSinceCheckpoint = 0;
+
+        public ChunkWriter(FileChannel file, boolean checkpoints) throws IOException {
+            this.file = file;
+            this.checkpoints = checkpoints;
+            startOutput();
+        }
+
+        private void startOutput() throws IOException {
+            if (format.isCompressed()) {
+                gzip = new GzipMember(Channels.newOutputStream(file));
+                channel = Channels.newChannel(gzip);
+            } else {
+                channel = file;
+            }
+        }
+
+        void finish() throws IOException {
+            if (gzip != null) {
+                try {
+                    gzip.finish();
+                } finally {
+                    release();
+                }
+            }
+        }
+
+        /**
+         * Releases the compressor of the current gzip member, if any.
+         */
+        void release() {
+            if (gzip != null) {
+                gzip.release();
+                gzip = null;
+            }
+        }
+
+        private void checkpoint(BsonValue lastId) throws IOException {
+            finish();
+            file.force(false);
+            final Checkpoint checkpoint = new Checkpoint();
+            checkpoint.setCollection(properties.getCollection());
+            checkpoint.setFormat(format);
+            checkpoint.setJsonArray(jsonArray);
+            checkpoint.setDocumentsCount(exportedCount);
+            checkpoint.setPosition(file.position());
+            checkpoint.setLastId(lastId);
+            final ResumableIterable<?> documents = (ResumableIterable<?>) properties.getDocuments();
+            checkpoint.setFilter(documents.getFilter());
+            checkpoint.setProjection(documents.getProjection());
+            checkpoint.save(properties.getFile());
+            writtenSinceCheckpoint = 0;
+            startOutput();
+        }
+
+        void write(String text) throws IOException {
+            write(ByteBuffer.wrap(text.getBytes(properties.getEncoding())));
+        }
+
+        void write(Chunk chunk) throws IOException {
+            if (chunk.documentsCount == 0) {
+                return;
+            }
+            if (jsonArray && chunk.startsPart && documentWritten) {
+                write(",");
+            }
+            write(chunk.toByteBuffer());
+            documentWritten = true;
+            exportedCount += chunk.documentsCount;
+            writtenSinceCheckpoint += chunk.size();
+            if (checkpoints && chunk.lastId != null && writtenSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                checkpoint(chunk.lastId);
+            }
+            reportProgress();
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads the documents of a part and encodes them into chunks. In ordered
+     * mode, a reader waits for the previous parts to be written once its
+     * chunks are filled, which may take longer than the server cursors
+     * timeout: the cursors of the parts don't time out and the reader always
+     * closes its iterator.
+     */
+    private final class PartReader implements Runnable {
+
+        private final Iterable<BsonDocument> documents;
+
+        private final BlockingQueue<Chunk> output;
+
+        private final BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<>(CHUNKS_PER_READER);
+
+        private final AtomicReference<Exception> failure;
+
+        public PartReader(Iterable<BsonDocument> documents, BlockingQueue<Chunk> output, AtomicReference<Exception> failure) {
+            this.documents = documents;
+            this.output = output;
+            this.failure = failure;
+            for (int i = 0; i < CHUNKS_PER_READER; i++) {
+                freeChunks.add(new Chunk(freeChunks));
+            }
+        }
+
+        @Override
+        public void run() {
+            final BsonDocumentCodec codec = new BsonDocumentCodec();
+            final EncoderContext context = EncoderContext.builder().build();
+            final BasicOutputBuffer bsonBuffer = format.isBinary() ? new BasicOutputBuffer() : null;
+            final JsonEmitter jsonEmitter = JsonEmitter.get();
+            Iterator<BsonDocument> iterator = null;
+            try {
+                iterator = documents.iterator();
+                Chunk chunk = freeChunks.take();
+                final ChunkOutputStream stream = new ChunkOutputStream(chunk);
+                final Writer writer = new OutputStreamWriter(stream, properties.getEncoding());
+                boolean first = true;
+                while (iterator.hasNext()) {
+                    final BsonDocument document = iterator.next();
+                    if (Thread.interrupted()) {
+                        return;
+                    }
+                    if (first) {
+                        first = false;
+                        chunk.startsPart = true;
+                    } else if (jsonArray) {
+                        writer.write(',');
+                    }
+                    if (bsonBuffer != null) {
+                        bsonBuffer.truncateToPosition(0);
+                        codec.encode(new BsonBinaryWriter(bsonBuffer), document, context);
+                        bsonBuffer.pipe(stream);
+                    } else {
+                        jsonEmitter.write(document, Bsons.STRICT, writer);
+                        if (jsonArray == false) {
+                            writer.write(LINE_SEPARATOR);
+                        }
+                        writer.flush();
+                    }
+                    chunk.documentsCount++;
+                    chunk.lastId = document.get(ID);
+                    if (chunk.size() >= CHUNK_SIZE) {
+                        output.put(chunk);
+                        chunk = freeChunks.take();
+                        stream.chunk = chunk;
+                    }
+                }
+                chunk.last = true;
+                output.put(chunk);
+            } catch (IOException | RuntimeException ex) {
+                failure.compareAndSet(null, ex);
+            } catch (InterruptedException ex) {
+                // export cancelled
+            } finally {
+                if (iterator instanceof Closeable) {
+                    // kills the server cursor when the export is cancelled,
+                    // the cursors of the parts don't time out
+                    try {
+                        ((Closeable) iterator).close();
+                    } catch (IOException | RuntimeException ex) {
+                        Exceptions.printStackTrace(ex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Encoded documents, given back to their reader once written.
+     */
+    private static final class Chunk extends ByteArrayOutputStream {
+
+        private final BlockingQueue<Chunk> owner;
+
+        /**
+         * The number of documents in this chunk.
+         */
+        int documentsCount;
+
+        /**
+         * Whether this chunk contains the first document of its part.
+         */
+        boolean startsPart;
+
+        /**
+         * Whether this chunk is the last one of its part.
+         */
+        boolean last;
+
+        /**
+         * The {@code _id} of the last document of this chunk.
+         */
+        BsonValue lastId;
+
+        public Chunk(BlockingQueue<Chunk> owner) {
+            super(CHUNK_SIZE + CHUNK_SIZE / 4);
+            this.owner = owner;
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        void release() {
+            reset();
+            documentsCount = 0;
+            startsPart = false;
+            last = false;
+            lastId = null;
+            owner.offer(this);
+        }
+    }
+
+    /**
+     * A gzip member of the export file. Each member has its own deflater which
+     * native memory must be released once the member is finished, the stream
+     * not being closed as it would close the file.
+     */
+    private static final class GzipMember extends GZIPOutputStream {
+
+        public GzipMember(OutputStream output) throws IOException {
+            super(output, GZIP_BUFFER_SIZE);
+        }
+
+        void release() {
+            def.end();
+        }
+    }
+
+    private static final class ChunkOutputStream extends OutputStream {
+
+        Chunk chunk;
+
+        public ChunkOutputStream(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public void write(int b) {
+            chunk.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            chunk.write(b, off, len);
+        }
+    }
+
 }
@@ -30,6 +30,12 @@ import lombok.Getter;
 @Getter
 @Builder
 public final class ImportProperties {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static final int DEFAULT_BATCH_MAX_SIZE = 16 * 1024 * 1024;
+
+    public static final int DEFAULT_WRITER_THREADS = 2;
     
     private final String collection;
     
@@ -39,10 +45,42 @@ public final class ImportProperties {
     
     private final Charset encoding;
 
-    public ImportProperties(String collection, boolean drop, File file, Charset encoding) {
+    /**
+     * The file format, the encoding only applies to the JSON formats.
+     */
+    private final DataFormat format;
+
+    /**
+     * The maximum number of documents sent in a single bulk write.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum size of the documents sent in a single bulk write, in file
+     * stream units: characters for the JSON formats, bytes for the BSON ones.
+     */
+    private final int batchMaxSize;
+
+    /**
+     * The number of threads sending the bulk writes.
+     */
+    private final int writerThreads;
+
+    /**
+     * Whether to resume the import from the checkpoint of the file if any
+     * (see {@link Checkpoint}).
+     */
+    private final boolean resume;
+
+    public ImportProperties(String collection, boolean drop, File file, Charset encoding, DataFormat format, int batchSize, int batchMaxSize, int writerThreads, boolean resume) {
         this.collection = Objects.requireNonNull(collection);
         this.drop = drop;
         this.file = Objects.requireNonNull(file);
         this.encoding = Objects.requireNonNull(encoding);
+        this.format = format != null ? format : DataFormat.JSON;
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        this.batchMaxSize = batchMaxSize > 0 ? batchMaxSize : DEFAULT_BATCH_MAX_SIZE;
+        this.writerThreads = writerThreads > 0 ? writerThreads : DEFAULT_WRITER_THREADS;
+        this.resume = resume;
     }
 }
@@ -17,8 +17,8 @@
  */
 package org.netbeans.modules.mongodb.util;
 
+import org.openide.util.Lookup;
 import org.openide.util.NbBundle.Messages;
-import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -30,9 +30,12 @@ import org.openide.util.RequestProcessor;
 })
 public final class ImportTask extends Tasks.SimpleTask<Importer> {
 
-    private static final RequestProcessor REQUEST_PROCESSOR = new RequestProcessor(ImportTask.class.getName(), 1, true);
-
-    public ImportTask(Importer importer) {
-        super(REQUEST_PROCESSOR, importer, Bundle.TASK_import_label(importer.getProperties().getCollection()), true);
+    /**
+     * Creates a task which writers are run in the bulk lane of the connection
+     * found in the specified lookup.
+     */
+    public ImportTask(Lookup lookup, Importer importer) {
+        super(lookup, Tasks.Priority.BULK, importer, Bundle.TASK_import_label(importer.getProperties().getCollection()), true);
+        importer.setWritersRequestProcessor(Tasks.getRequestProcessor(lookup, Tasks.Priority.BULK));
     }
 }
@@ -1,4 +1,4 @@
-/* 
+/*
  * Copyright (C) 2015 Yann D'Isanto
  *
  * This program is free software; you can redistribute it and/or
@@ -17,28 +17,84 @@
  */
 package org.netbeans.modules.mongodb.util;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.InsertOneModel;
 import com.mongodb.client.model.WriteModel;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.bson.BsonDocument;
-import org.bson.BsonType;
-import org.netbeans.modules.mongodb.bson.Bsons;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.modules.mongodb.api.MongoErrorCode;
+import org.netbeans.modules.mongodb.bson.BsonDocumentReader;
+import org.netbeans.modules.mongodb.bson.DocumentReader;
+import org.netbeans.modules.mongodb.bson.JsonDocumentReader;
 import org.openide.util.Exceptions;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Imports a file into a collection. A JSON file either contains a sequence of
+ * documents or an array of documents (see {@link JsonDocumentReader}), a BSON
+ * file contains raw documents one after the other. Both may be compressed
+ * (see {@link DataFormat}).
+ * <p>
+ * The file is streamed: the documents are parsed and queued in batches by the
+ * importing thread while writer threads send the queued batches as unordered
+ * bulk writes. The queue is bounded so the memory used doesn't depend on the
+ * file size.
+ * <p>
+ * The number of imported documents is regularly saved in a {@link Checkpoint}
+ * so an interrupted import can be resumed: the documents already imported are
+ * then skipped.
  *
  * @author Yann D'Isanto
  */
-public final class Importer implements Runnable {
+@Messages({
+    "# {0} - imported documents count",
+    "# {1} - documents per second",
+    "# {2} - kilobytes per second",
+    "TASK_import_progress={0} documents imported ({1} docs/s, {2} KB/s)"
+})
+public final class Importer implements Runnable, Tasks.ProgressReporter {
+
+    /**
+     * Runs the writers of the imports not run by a connection task.
+     */
+    private static final RequestProcessor WRITERS_REQUEST_PROCESSOR = new RequestProcessor(Importer.class.getName() + ".writers", ImportProperties.DEFAULT_WRITER_THREADS, true);
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The minimum time between two checkpoints.
+     */
+    private static final long CHECKPOINT_INTERVAL_MS = 10000;
+
+    /**
+     * Queued to tell a writer there are no more batches.
+     */
+    private static final Batch END_OF_INPUT = new Batch(-1, new ArrayList<WriteModel<BsonDocument>>(0), 0);
 
     private final MongoDatabase db;
 
@@ -46,6 +102,40 @@ public final class Importer implements Runnable {
 
     private final Runnable onDone;
 
+    private volatile ProgressHandle progressHandle;
+
+    private RequestProcessor writersRequestProcessor = WRITERS_REQUEST_PROCESSOR;
+
+    private final AtomicLong importedCount = new AtomicLong();
+
+    private volatile long startTime;
+
+    private long lastProgressTime;
+
+    private long fileLength;
+
+    private CountingInputStream input;
+
+    /**
+     * Whether the import resumes from a checkpoint.
+     */
+    private boolean resumed;
+
+    /**
+     * The documents count at the end of the written batches which previous
+     * batches are not all written yet, by batch sequence number.
+     */
+    private final NavigableMap<Long, Long> writtenBatches = new TreeMap<>();
+
+    /**
+     * The sequence number of the first batch not written yet.
+     */
+    private long nextBatchToCheckpoint = 0;
+
+    private long lastCheckpointTime;
+
+    private boolean checkpointFailed = false;
+
     public Importer(MongoDatabase db, ImportProperties properties) {
         this(db, properties, null);
     }
@@ -56,43 +146,194 @@ public final class Importer implements Runnable {
         this.onDone = onDone;
     }
 
+    @Override
+    public void setProgressHandle(ProgressHandle progressHandle) {
+        this.progressHandle = progressHandle;
+    }
+
+    /**
+     * Sets the request processor running the writers, the bulk lane of the
+     * imported connection. Must be set before the import is run.
+     *
+     * @param writersRequestProcessor the writers request processor
+     */
+    public void setWritersRequestProcessor(RequestProcessor writersRequestProcessor) {
+        this.writersRequestProcessor = writersRequestProcessor;
+    }
+
     @Override
     public void run() {
-        try (InputStream input = new FileInputStream(properties.getFile())) {
-            importFrom(new InputStreamReader(input, properties.getEncoding().name()));
-        } catch (IOException ex) {
+        fileLength = properties.getFile().length();
+        try (CountingInputStream in = new CountingInputStream(new FileInputStream(properties.getFile()));
+            DocumentReader documents = openReader(in)) {
+            input = in;
+            importFrom(documents);
+        } catch (IOException | MongoException ex) {
             Exceptions.printStackTrace(ex);
+        } catch (InterruptedException ex) {
+            // import cancelled
         }
         if (onDone != null) {
             onDone.run();
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void importFrom(Reader reader) throws IOException {
+    private DocumentReader openReader(InputStream in) throws IOException {
+        final DataFormat format = properties.getFormat();
+        final InputStream decoded = format.decode(new BufferedInputStream(in, BUFFER_SIZE));
+        if (format.isBinary()) {
+            return new BsonDocumentReader(new BufferedInputStream(decoded, BUFFER_SIZE));
+        }
+        return new JsonDocumentReader(new InputStreamReader(decoded, properties.getEncoding()));
+    }
+
+    private void importFrom(DocumentReader documents) throws IOException, InterruptedException {
         final MongoCollection<BsonDocument> collection = db.getCollection(properties.getCollection(), BsonDocument.class);
-        final BufferedReader br = new BufferedReader(reader);
-        String line;
-        List<WriteModel<BsonDocument>> requests = new ArrayList<>();
-        while ((line = br.readLine()) != null) {
-            if (Thread.interrupted()) {
-                return;
+        final int writersCount = properties.getWriterThreads();
+        final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(writersCount * 2);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final CountDownLatch writersDone = new CountDownLatch(writersCount);
+        final List<RequestProcessor.Task> writers = new ArrayList<>(writersCount);
+        startTime = System.currentTimeMillis();
+        if (progressHandle != null && fileLength > 0) {
+            progressHandle.switchToDeterminate(100);
+        }
+        for (int i = 0; i < writersCount; i++) {
+            writers.add(writersRequestProcessor.post(new BatchWriter(collection, queue, failure, writersDone)));
+        }
+        boolean completed = false;
+        try {
+            long readCount = resume(documents);
+            final int batchSize = properties.getBatchSize();
+            final int batchMaxSize = properties.getBatchMaxSize();
+            long sequence = 0;
+            List<WriteModel<BsonDocument>> batch = new ArrayList<>(batchSize);
+            long batchStart = documents.getPosition();
+            BsonDocument document;
+            while ((document = documents.read()) != null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                batch.add(new InsertOneModel<>(document));
+                readCount++;
+                if (batch.size() >= batchSize || documents.getPosition() - batchStart >= batchMaxSize) {
+                    enqueue(queue, new Batch(sequence++, batch, readCount), failure);
+                    batch = new ArrayList<>(batchSize);
+                    batchStart = documents.getPosition();
+                }
             }
-            line = line.trim();
-            if (line.isEmpty()) {
-                continue;
+            if (batch.isEmpty() == false) {
+                enqueue(queue, new Batch(sequence, batch, readCount), failure);
             }
-            if (line.charAt(0) == '[') {
-                List<BsonDocument> array = (List<BsonDocument>) Bsons.fromJson(line, BsonType.ARRAY);
-                for (BsonDocument document : array) {
-                    requests.add(new InsertOneModel<>(document));
+            for (int i = 0; i < writersCount; i++) {
+                enqueue(queue, END_OF_INPUT, failure);
+            }
+            writersDone.await();
+            checkFailure(failure);
+            Checkpoint.delete(properties.getFile());
+            completed = true;
+        } finally {
+            if (completed == false) {
+                queue.clear();
+                for (RequestProcessor.Task writer : writers) {
+                    writer.cancel();
                 }
-            } else {
-                requests.add(new InsertOneModel<>(BsonDocument.parse(line)));
             }
         }
-        if (requests.isEmpty() == false) {
-            collection.bulkWrite(requests);
+    }
+
+    /**
+     * Skips the documents already imported according to the file checkpoint
+     * if the import is resumed, otherwise discards the checkpoint.
+     *
+     * @return the number of skipped documents
+     */
+    private long resume(DocumentReader documents) throws IOException, InterruptedException {
+        final File file = properties.getFile();
+        final Checkpoint checkpoint = properties.isResume() ? Checkpoint.load(file) : null;
+        if (checkpoint == null
+            || checkpoint.getFormat() != properties.getFormat()
+            || properties.getCollection().equals(checkpoint.getCollection()) == false) {
+            Checkpoint.delete(file);
+            return 0;
+        }
+        resumed = true;
+        long skipped = 0;
+        while (skipped < checkpoint.getDocumentsCount() && documents.skip()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            skipped++;
+        }
+        importedCount.set(skipped);
+        return skipped;
+    }
+
+    /**
+     * Saves a checkpoint if the batches up to the written one are all written
+     * and the last checkpoint is old enough. Batches are written out of order
+     * so the checkpoint is the end of the longest sequence of written batches.
+     */
+    private synchronized void batchWritten(Batch batch) {
+        writtenBatches.put(batch.sequence, batch.endCount);
+        Long checkpointCount = null;
+        while (writtenBatches.isEmpty() == false && writtenBatches.firstKey() == nextBatchToCheckpoint) {
+            checkpointCount = writtenBatches.pollFirstEntry().getValue();
+            nextBatchToCheckpoint++;
+        }
+        final long now = System.currentTimeMillis();
+        if (checkpointCount == null || checkpointFailed || now - lastCheckpointTime < CHECKPOINT_INTERVAL_MS) {
+            return;
+        }
+        lastCheckpointTime = now;
+        final Checkpoint checkpoint = new Checkpoint();
+        checkpoint.setCollection(properties.getCollection());
+        checkpoint.setFormat(properties.getFormat());
+        checkpoint.setDocumentsCount(checkpointCount);
+        try {
+            checkpoint.save(properties.getFile());
+        } catch (IOException ex) {
+            // the import goes on without checkpoints (read-only folder for instance)
+            checkpointFailed = true;
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    /**
+     * Queues the specified batch, waiting for room in the queue as long as the
+     * writers don't fail.
+     */
+    private void enqueue(BlockingQueue<Batch> queue, Batch batch, AtomicReference<RuntimeException> failure) throws InterruptedException {
+        do {
+            checkFailure(failure);
+        } while (queue.offer(batch, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS) == false);
+    }
+
+    private void checkFailure(AtomicReference<RuntimeException> failure) {
+        final RuntimeException ex = failure.get();
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    private synchronized void reportProgress() {
+        final ProgressHandle handle = progressHandle;
+        final long now = System.currentTimeMillis();
+        if (handle == null || now - lastProgressTime < PROGRESS_INTERVAL_MS) {
+            return;
+        }
+        lastProgressTime = now;
+        final long bytesRead = input.getCount();
+        final long elapsed = Math.max(now - startTime, 1);
+        final long imported = importedCount.get();
+        final String message = Bundle.TASK_import_progress(
+            imported,
+            imported * 1000 / elapsed,
+            bytesRead * 1000 / 1024 / elapsed);
+        if (fileLength > 0) {
+            handle.progress(message, (int) Math.min(100, bytesRead * 100 / fileLength));
+        } else {
+            handle.progress(message);
         }
     }
 
@@ -100,4 +341,126 @@ public final class Importer implements Runnable {
         return properties;
     }
 
+    private static final class Batch {
+
+        private final long sequence;
+
+        private final List<WriteModel<BsonDocument>> requests;
+
+        /**
+         * The number of documents read from the file up to the end of this
+         * batch.
+         */
+        private final long endCount;
+
+        public Batch(long sequence, List<WriteModel<BsonDocument>> requests, long endCount) {
+            this.sequence = sequence;
+            this.requests = requests;
+            this.endCount = endCount;
+        }
+    }
+
+    private final class BatchWriter implements Runnable {
+
+        private final BulkWriteOptions options = new BulkWriteOptions().ordered(false);
+
+        private final MongoCollection<BsonDocument> collection;
+
+        private final BlockingQueue<Batch> queue;
+
+        private final AtomicReference<RuntimeException> failure;
+
+        private final CountDownLatch done;
+
+        public BatchWriter(MongoCollection<BsonDocument> collection, BlockingQueue<Batch> queue, AtomicReference<RuntimeException> failure, CountDownLatch done) {
+            this.collection = collection;
+            this.queue = queue;
+            this.failure = failure;
+            this.done = done;
+        }
+
+        private void write(Batch batch) {
+            try {
+                collection.bulkWrite(batch.requests, options);
+            } catch (MongoBulkWriteException ex) {
+                // a resumed import may write again documents written after the checkpoint
+                if (resumed == false || onlyDuplicateKeyErrors(ex) == false) {
+                    throw ex;
+                }
+            }
+        }
+
+        private boolean onlyDuplicateKeyErrors(MongoBulkWriteException ex) {
+            if (ex.getWriteConcernError() != null) {
+                return false;
+            }
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                if (MongoErrorCode.valueOf(error.getCode()) != MongoErrorCode.DuplicateKey) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Batch batch;
+                while ((batch = queue.take()) != END_OF_INPUT) {
+                    write(batch);
+                    importedCount.addAndGet(batch.requests.size());
+                    batchWritten(batch);
+                    reportProgress();
+                }
+            } catch (RuntimeException ex) {
+                failure.compareAndSet(null, ex);
+            } catch (InterruptedException ex) {
+                // import cancelled
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from the file to report the progress.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count = 0;
+
+        public CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
 }
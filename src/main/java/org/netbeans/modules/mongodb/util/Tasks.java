@@ -17,19 +17,122 @@
  */
 package org.netbeans.modules.mongodb.util;
 
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lombok.Getter;
 import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.modules.mongodb.api.connections.ConnectionInfo;
+import org.openide.util.Cancellable;
+import org.openide.util.Lookup;
 import org.openide.util.RequestProcessor;
 import org.openide.util.TaskListener;
 
 /**
+ * Creates the background tasks displaying their progress.
+ * <p>
+ * The database work of a connection is run by the connection scheduler, in
+ * {@link Priority priority} lanes, so the bulk work can't starve the
+ * interactive one. The concurrency of a connection is capped by
+ * {@link #MAX_CONCURRENCY}, and by the size of its driver connections pool if
+ * smaller: the bulk lane is given a quarter of it, the other lanes share the
+ * rest and the pending interactive work is started before the pending
+ * explorer work.
  *
  * @author Yann D'Isanto
  */
 public final class Tasks {
 
-    private static final RequestProcessor DEFAULT_REQUEST_PROCESSOR = new RequestProcessor(Tasks.class);
-    
+    /**
+     * The maximum number of operations run at once on a connection. The
+     * driver pool is usually much larger (100 connections by default) but
+     * more concurrent operations only queue up on the server, and the lanes
+     * priorities would never apply.
+     */
+    public static final int MAX_CONCURRENCY = 16;
+
+    private static final RequestProcessor DEFAULT_REQUEST_PROCESSOR = new RequestProcessor(Tasks.class.getName(), 1, true);
+
+    /**
+     * Runs the bulk tasks, which mostly wait for the work they post to the
+     * bulk lane: they would otherwise hold the lane threads their work needs.
+     */
+    private static final RequestProcessor BULK_TASKS_REQUEST_PROCESSOR = new RequestProcessor(Tasks.class.getName() + ".bulk", 4, true);
+
+    private static final ConcurrentMap<UUID, ConnectionScheduler> SCHEDULERS = new ConcurrentHashMap<>();
+
+    /**
+     * The lanes of the connection schedulers.
+     */
+    public static enum Priority {
+
+        /**
+         * Work the user is waiting for: result pages, document edition.
+         */
+        INTERACTIVE(Thread.MAX_PRIORITY),
+        /**
+         * Explorer refresh and database administration.
+         */
+        EXPLORER(Thread.NORM_PRIORITY),
+        /**
+         * Import and export. The bulk tasks themselves run outside the lane,
+         * only the work they post to the lane processor is run by it.
+         */
+        BULK(Thread.MIN_PRIORITY);
+
+        private final int taskPriority;
+
+        private Priority(int taskPriority) {
+            this.taskPriority = taskPriority;
+        }
+    }
+
+    /**
+     * Returns the request processor running the work of the specified lane of
+     * the connection found in the specified lookup. The tasks posted to it
+     * directly have the lowest priority of the processor.
+     *
+     * @param lookup a lookup holding a {@link ConnectionInfo}
+     * @param priority the lane
+     * @return the lane request processor, a default one if the lookup holds
+     * no connection
+     */
+    public static RequestProcessor getRequestProcessor(Lookup lookup, Priority priority) {
+        final ConnectionInfo connection = lookup.lookup(ConnectionInfo.class);
+        return connection != null
+            ? getScheduler(connection).getRequestProcessor(priority)
+            : DEFAULT_REQUEST_PROCESSOR;
+    }
+
+    private static ConnectionScheduler getScheduler(ConnectionInfo connection) {
+        final int poolSize = connection.getMongoURI().getOptions().getConnectionsPerHost();
+        final int concurrency = Math.max(1, Math.min(poolSize, MAX_CONCURRENCY));
+        ConnectionScheduler scheduler = SCHEDULERS.get(connection.getId());
+        if (scheduler == null || scheduler.concurrency != concurrency) {
+            // created again when the connection pool is resized
+            final ConnectionScheduler newScheduler = new ConnectionScheduler(connection, concurrency);
+            if (scheduler == null) {
+                scheduler = SCHEDULERS.putIfAbsent(connection.getId(), newScheduler);
+                if (scheduler == null) {
+                    scheduler = newScheduler;
+                }
+            } else if (SCHEDULERS.replace(connection.getId(), scheduler, newScheduler)) {
+                scheduler = newScheduler;
+            } else {
+                scheduler = SCHEDULERS.get(connection.getId());
+            }
+        }
+        return scheduler;
+    }
+
+    public static <T extends Runnable> NbTask<T> create(Lookup lookup, Priority priority, String label, T runnable) {
+        return create(lookup, priority, label, runnable, false);
+    }
+
+    public static <T extends Runnable> NbTask<T> create(Lookup lookup, Priority priority, String label, T runnable, boolean cancellable) {
+        return new SimpleTask<>(lookup, priority, runnable, label, cancellable);
+    }
+
     public static <T extends Runnable> NbTask<T> create(String label, T runnable) {
         return create(DEFAULT_REQUEST_PROCESSOR, label, runnable, false);
     }
@@ -54,19 +157,55 @@ public final class Tasks {
         
         private final boolean cancellable;
 
+        /**
+         * The lane of the task, {@code null} if not run by a connection
+         * scheduler.
+         */
+        private final Priority priority;
+
         public NbTask(RequestProcessor requestProcessor, T runnable, boolean cancellable) {
             this.requestProcessor = requestProcessor;
             this.runnable = runnable;
             this.cancellable = cancellable;
+            this.priority = null;
+        }
+
+        /**
+         * Creates a task run in the specified lane of the scheduler of the
+         * connection found in the specified lookup. A bulk task is run
+         * outside the lane, it must post its database work to the lane
+         * processor.
+         */
+        public NbTask(Lookup lookup, Priority priority, T runnable, boolean cancellable) {
+            this.requestProcessor = priority == Priority.BULK
+                ? BULK_TASKS_REQUEST_PROCESSOR
+                : getRequestProcessor(lookup, priority);
+            this.runnable = runnable;
+            this.cancellable = cancellable;
+            this.priority = priority;
         }
 
         public abstract String getLabel();
 
         public final RequestProcessor.Task execute() {
             final RequestProcessor.Task task = requestProcessor.create(runnable);
+            if (priority != null) {
+                task.setPriority(priority.taskPriority);
+            }
             final ProgressHandle progressHandle = cancellable 
-                    ? ProgressHandle.createHandle(getLabel(), task)
+                    ? ProgressHandle.createHandle(getLabel(), new Cancellable() {
+
+                        @Override
+                        public boolean cancel() {
+                            // interrupts the task, the runnable releases its
+                            // server side resources when interrupted
+                            return task.cancel();
+                        }
+                    })
                     : ProgressHandle.createHandle(getLabel());
+            if (runnable instanceof ProgressReporter) {
+                ((ProgressReporter) runnable).setProgressHandle(progressHandle);
+            }
             task.addTaskListener(new TaskListener() {
                 @Override
                 public void taskFinished(org.openide.util.Task task) {
@@ -84,6 +223,15 @@ public final class Tasks {
 
     }
     
+    /**
+     * Implemented by the task runnables reporting their progress. The progress
+     * handle is set before the task is scheduled.
+     */
+    public static interface ProgressReporter {
+
+        void setProgressHandle(ProgressHandle progressHandle);
+    }
+
     public static class SimpleTask<T extends Runnable> extends NbTask<T> {
 
         @Getter
@@ -93,9 +241,35 @@ public final class Tasks {
             super(requestProcessor, runnable, cancellable);
             this.label = label;
         }
+
+        public SimpleTask(Lookup lookup, Priority priority, T runnable, String label, boolean cancellable) {
+            super(lookup, priority, runnable, cancellable);
+            this.label = label;
+        }
     
     }
 
+    private static final class ConnectionScheduler {
+
+        private final int concurrency;
+
+        private final RequestProcessor requestProcessor;
+
+        private final RequestProcessor bulkRequestProcessor;
+
+        public ConnectionScheduler(ConnectionInfo connection, int concurrency) {
+            this.concurrency = concurrency;
+            final int bulkThroughput = Math.max(1, concurrency / 4);
+            final String name = Tasks.class.getName() + "." + connection.getId();
+            requestProcessor = new RequestProcessor(name, Math.max(1, concurrency - bulkThroughput), true);
+            bulkRequestProcessor = new RequestProcessor(name + ".bulk", bulkThroughput, true);
+        }
+
+        public RequestProcessor getRequestProcessor(Priority priority) {
+            return priority == Priority.BULK ? bulkRequestProcessor : requestProcessor;
+        }
+    }
+
     private Tasks() {
     }
 
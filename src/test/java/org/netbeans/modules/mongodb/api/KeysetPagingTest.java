@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016 Yann D'Isanto
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.netbeans.modules.mongodb.api;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the pages of a find result cover every document exactly once,
+ * whatever the types of the sort keys values. The paging tests need a server,
+ * given by the {@code mongodb.test.uri} system property, and are skipped
+ * without it.
+ *
+ * @author Yann D'Isanto
+ */
+public class KeysetPagingTest {
+
+    private static final String URI_PROPERTY = "mongodb.test.uri";
+
+    private static final int PAGE_SIZE = 7;
+
+    private MongoClient client;
+
+    private MongoCollection<BsonDocument> collection;
+
+    @Before
+    public void setUp() {
+        final String uri = System.getProperty(URI_PROPERTY);
+        if (uri != null) {
+            client = new MongoClient(new MongoClientURI(uri));
+            collection = client.getDatabase("nbmongo_test").getCollection("keysetPaging", BsonDocument.class);
+            collection.drop();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            collection.drop();
+            client.close();
+        }
+    }
+
+    @Test
+    public void sameTypeComparesNumbersTogether() {
+        assertTrue(KeysetPaging.sameType(new BsonInt32(1), new BsonInt64(2)));
+        assertTrue(KeysetPaging.sameType(new BsonInt32(1), new BsonDouble(2.5)));
+        assertTrue(KeysetPaging.sameType(new BsonObjectId(), new BsonObjectId()));
+        assertFalse(KeysetPaging.sameType(new BsonObjectId(), new BsonString("a")));
+        assertFalse(KeysetPaging.sameType(new BsonInt32(1), new BsonString("1")));
+        assertFalse(KeysetPaging.sameType(BsonNull.VALUE, new BsonInt32(1)));
+    }
+
+    @Test
+    public void pagesCoverMixedTypeIds() {
+        assumeTrue(client != null);
+        for (int i = 0; i < 20; i++) {
+            collection.insertOne(new BsonDocument("_id", new BsonObjectId(new ObjectId())));
+            collection.insertOne(new BsonDocument("_id", new BsonString("id" + i)));
+            collection.insertOne(new BsonDocument("_id", new BsonInt32(i)));
+        }
+        assertPagesCoverAllDocuments(new FindResult(collection, FindCriteria.EMPTY));
+    }
+
+    @Test
+    public void pagesCoverMixedTypeAndMissingSortValues() {
+        assumeTrue(client != null);
+        for (int i = 0; i < 20; i++) {
+            collection.insertOne(new BsonDocument("value", new BsonInt32(i)));
+            collection.insertOne(new BsonDocument("value", new BsonString("value" + i)));
+            collection.insertOne(new BsonDocument("value", BsonNull.VALUE));
+            collection.insertOne(new BsonDocument());
+        }
+        final BsonDocument sort = new BsonDocument("value", new BsonInt32(1));
+        assertPagesCoverAllDocuments(new FindResult(collection, new FindCriteria(null, null, sort)));
+    }
+
+    @Test
+    public void pagesCoverSameTypeIds() {
+        assumeTrue(client != null);
+        for (int i = 0; i < 60; i++) {
+            collection.insertOne(new BsonDocument("_id", new BsonInt32(i)));
+        }
+        assertPagesCoverAllDocuments(new FindResult(collection, FindCriteria.EMPTY));
+    }
+
+    @Test
+    public void pagesCoverDocumentsInsertedBeforeRefresh() {
+        assumeTrue(client != null);
+        for (int i = 0; i < 60; i++) {
+            collection.insertOne(new BsonDocument("_id", new BsonInt32(i)));
+        }
+        final FindResult result = new FindResult(collection, FindCriteria.EMPTY);
+        assertPagesCoverAllDocuments(result);
+        // shifts the remembered boundaries and breaks the same type _ids
+        collection.insertOne(new BsonDocument("_id", new BsonInt32(-1)));
+        collection.insertOne(new BsonDocument("_id", new BsonString("late")));
+        result.refresh();
+        assertPagesCoverAllDocuments(result);
+    }
+
+    /**
+     * Reads the pages forward then backward, the second reading using the
+     * boundaries remembered by the first one.
+     */
+    private static void assertPagesCoverAllDocuments(FindResult result) {
+        final long count = result.getTotalElementsCount();
+        final List<Long> offsets = new ArrayList<>();
+        for (long offset = 0; offset < count; offset += PAGE_SIZE) {
+            offsets.add(offset);
+        }
+        assertCoverage(result, offsets, count);
+        final List<Long> reversedOffsets = new ArrayList<>();
+        for (int i = offsets.size() - 1; i >= 0; i--) {
+            reversedOffsets.add(offsets.get(i));
+        }
+        assertCoverage(result, reversedOffsets, count);
+    }
+
+    private static void assertCoverage(FindResult result, List<Long> offsets, long count) {
+        final Set<BsonValue> ids = new HashSet<>();
+        for (long offset : offsets) {
+            for (BsonDocument document : result.get(offset, PAGE_SIZE)) {
+                assertTrue("document read twice: " + document, ids.add(document.get("_id")));
+            }
+        }
+        assertEquals(count, ids.size());
+    }
+}